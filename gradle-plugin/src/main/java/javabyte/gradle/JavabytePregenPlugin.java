@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+import java.util.Collections;
+
+/**
+ * Runs {@code javabyte.pregen.ClassGenerator}s of the main source set after compilation
+ * and adds written class files to its output, so they are packed into the jar.
+ *
+ * @author whilein
+ */
+public final class JavabytePregenPlugin implements Plugin<Project> {
+
+    public static final String TASK_NAME = "pregenerateClasses";
+
+    private static final String MAIN_CLASS = "javabyte.pregen.PregenMain";
+
+    @Override
+    public void apply(final Project project) {
+        project.getPluginManager().apply(JavaPlugin.class);
+
+        final SourceSet main = project.getExtensions().getByType(SourceSetContainer.class)
+                .getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+
+        final Provider<Directory> outputDirectory = project.getLayout().getBuildDirectory()
+                .dir("javabyte/classes/" + main.getName());
+
+        // runtime classpath of the source set includes its output, so it cannot be used here
+        final FileCollection classpath = main.getOutput().getClassesDirs()
+                .plus(project.files(main.getOutput().getResourcesDir()))
+                .plus(project.getConfigurations().getByName(main.getRuntimeClasspathConfigurationName()));
+
+        final TaskProvider<JavaExec> task = project.getTasks().register(TASK_NAME, JavaExec.class, exec -> {
+            exec.setGroup("build");
+            exec.setDescription("Writes classes of javabyte generators into the main source set output");
+
+            exec.dependsOn(main.getProcessResourcesTaskName());
+
+            exec.setClasspath(classpath);
+            exec.getMainClass().set(MAIN_CLASS);
+            exec.getOutputs().dir(outputDirectory);
+
+            exec.getArgumentProviders().add(() -> Collections.singletonList(
+                    outputDirectory.get().getAsFile().getAbsolutePath()));
+
+            exec.doFirst(__ -> project.delete(outputDirectory));
+        });
+
+        main.getOutput().dir(Collections.singletonMap("builtBy", task), outputDirectory);
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte;
+
+/**
+ * @author whilein
+ */
+public enum CompileMode {
+
+    /**
+     * Validate operand stack before each instruction and track max stack size
+     */
+    DEBUG,
+
+    /**
+     * Skip validation of operand stack, stack is still simulated to select instructions by types
+     * and to track max stack size. Use it for already tested generators
+     */
+    TRUSTED
+
+}
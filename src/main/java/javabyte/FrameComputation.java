@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * @author whilein
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public enum FrameComputation {
+
+    /**
+     * Let ASM compute frames using <code>ClassWriter.COMPUTE_FRAMES</code>
+     */
+    ASM(ClassWriter.COMPUTE_FRAMES),
+
+    /**
+     * Emit frames from the stack and locals tracked during compilation,
+     * ASM only computes max stack and locals
+     * <p>
+     * Uninitialized objects created by <code>callInit</code> and <code>this</code> before
+     * the <code>super</code> or <code>this</code> constructor call are tracked only on the stack
+     * and in local <code>0</code>, code that stores them to other locals requires {@link #ASM}
+     */
+    TRACKED(ClassWriter.COMPUTE_MAXS);
+
+    int writerFlags;
+
+}
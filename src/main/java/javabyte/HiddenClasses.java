@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Hidden classes are available since Java 15, implementation is located in <code>META-INF/versions/15</code>.
+ *
+ * @author whilein
+ */
+@UtilityClass
+class HiddenClasses {
+
+    @NotNull Class<?> define(
+            final @NotNull MethodHandles.Lookup lookup,
+            final byte @NotNull [] bytes,
+            final @NotNull HiddenClassOption @NotNull [] options
+    ) {
+        throw new UnsupportedOperationException("Hidden classes are supported since Java 15");
+    }
+
+}
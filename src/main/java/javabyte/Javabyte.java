@@ -19,6 +19,25 @@ package javabyte;
 import javabyte.bytecode.Bytecode;
 import javabyte.bytecode.ExecutableInstructionSet;
 import javabyte.bytecode.InstructionSet;
+import javabyte.bytecode.LocalIndex;
+import javabyte.bytecode.Position;
+import javabyte.bytecode.branch.CaseBranch;
+import javabyte.bytecode.insn.FieldInsn;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.insn.IntsSwitchInsn;
+import javabyte.bytecode.insn.MethodInsn;
+import javabyte.bytecode.insn.StringsSwitchInsn;
+import javabyte.bytecode.insn.SwitchInsn;
+import javabyte.bytecode.pass.InstructionPass;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.bytecode.pass.Passes;
+import javabyte.cache.ClassKey;
+import javabyte.cache.ClassKeys;
+import javabyte.hierarchy.ClassHierarchy;
+import javabyte.hierarchy.Hierarchies;
+import javabyte.instrument.Instrumentations;
+import javabyte.loader.ClassArena;
+import javabyte.make.MakeArena;
 import javabyte.make.MakeClass;
 import javabyte.make.MakeConstructor;
 import javabyte.make.MakeElement;
@@ -33,6 +52,7 @@ import javabyte.opcode.FieldOpcode;
 import javabyte.opcode.JumpOpcode;
 import javabyte.opcode.MathOpcode;
 import javabyte.opcode.MethodOpcode;
+import javabyte.reflect.Reflections;
 import javabyte.signature.MethodSignature;
 import javabyte.signature.Signatures;
 import javabyte.type.ExactTypeName;
@@ -43,31 +63,47 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.UtilityClass;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Unmodifiable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 /**
@@ -88,6 +124,59 @@ public class Javabyte {
         );
     }
 
+    /**
+     * Import class file, so it can be patched. Fields and methods of the class file are not imported,
+     * they are copied on write as is, unless the class declares a field with the same name or an executable
+     * with the same name and descriptor, which replaces the original one.
+     * <p>
+     * Header of the class (modifiers, super class and interfaces) can be changed, inner classes,
+     * that are added to the class, replace the original ones with the same name.
+     * <p>
+     * Class is written using {@link ClassWriter#ClassWriter(ClassReader, int)}, so the constant pool is preserved
+     * and unchanged methods are copied without being parsed. Version of the class file, including minor version,
+     * is written back unchanged, even if it is not supported by {@link Version}.
+     *
+     * @param bytes class file
+     * @return imported class
+     */
+    public @NotNull MakeClass importClass(final byte @NonNull [] bytes) {
+        return _importClass(new ClassReader(bytes));
+    }
+
+    public @NotNull MakeClass importClass(final @NonNull ClassReader reader) {
+        return _importClass(reader);
+    }
+
+    private MakeClass _importClass(final ClassReader reader) {
+        val superName = reader.getSuperName();
+
+        // minor and major versions precede the constant pool, ClassReader reads them the same way
+        val classVersion = reader.readInt(reader.getItem(1) - 7);
+
+        val type = new MakeClassImpl(
+                Version.find(classVersion & 0xFFFF),
+                Types.ofInternal(reader.getClassName()),
+                new ArrayList<>(Arrays.asList(Types.ofInternal(reader.getInterfaces()))), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(),
+                superName != null ? Types.ofInternal(superName) : Types.OBJECT
+        );
+
+        type.setModifiers(reader.getAccess());
+        type.source = reader;
+        type.importedVersion = classVersion;
+
+        return type;
+    }
+
+    /**
+     * Create arena, which reuses lists and instruction streams of classes after {@link MakeArena#reset()}.
+     *
+     * @return new arena
+     */
+    public @NotNull MakeArena arena() {
+        return new MakeArenaImpl(new ArrayList<>(), new ArrayDeque<>(), new ArrayDeque<>());
+    }
+
     public @NotNull MakeClass make(
             final @NonNull Version version,
             final @NonNull String name
@@ -114,13 +203,160 @@ public class Javabyte {
         return _make(Version.V1_8, name);
     }
 
+    /**
+     * Write classes and all of their inner classes in parallel using {@link ForkJoinPool#commonPool()}.
+     * Classes of the batch are visible to each other in the class hierarchy.
+     *
+     * @param types generated classes
+     * @return class files by binary names of classes, inner classes go after their declaring class
+     */
+    public @NotNull Map<@NotNull String, byte @NotNull []> writeAll(
+            final @NonNull Collection<? extends @NotNull MakeClass> types
+    ) {
+        val classes = _flatten(types);
+        val bytes = _writeAll(classes, types);
+
+        val result = new LinkedHashMap<String, byte[]>(classes.size());
+
+        for (int i = 0; i < classes.size(); i++) {
+            result.put(classes.get(i).getName().getName(), bytes[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Write classes and all of their inner classes in parallel using {@link ForkJoinPool#commonPool()},
+     * then define them in {@code loader}, super classes and interfaces from the batch are defined first.
+     *
+     * @param types  generated classes
+     * @param loader class loader
+     * @return defined classes by binary names, in order of definition
+     * @throws IllegalStateException if there is a cycle in the hierarchy of classes
+     */
+    public @NotNull Map<@NotNull String, @NotNull Class<?>> compileAll(
+            final @NonNull Collection<? extends @NotNull MakeClass> types,
+            final @NonNull ClassLoader loader
+    ) {
+        val classes = _flatten(types);
+        val bytes = _writeAll(classes, types);
+
+        val indexes = new HashMap<String, Integer>(classes.size());
+
+        for (int i = 0; i < classes.size(); i++) {
+            indexes.put(classes.get(i).getName().getInternalName(), i);
+        }
+
+        // 0 - not defined, 1 - defining, 2 - defined
+        val states = new byte[classes.size()];
+        val result = new LinkedHashMap<String, Class<?>>(classes.size());
+
+        for (int i = 0; i < classes.size(); i++) {
+            _defineAll(classes, bytes, indexes, states, i, loader, result);
+        }
+
+        return result;
+    }
+
+    private void _defineAll(
+            final List<AbstractMakeClass> classes,
+            final byte[][] bytes,
+            final Map<String, Integer> indexes,
+            final byte[] states,
+            final int index,
+            final ClassLoader loader,
+            final Map<String, Class<?>> result
+    ) {
+        if (states[index] == 2) return;
+
+        val type = classes.get(index);
+
+        if (states[index] == 1) {
+            throw new IllegalStateException("Cyclic inheritance involving " + type.getName());
+        }
+
+        states[index] = 1;
+
+        val superIndex = indexes.get(type.getSuperName().getInternalName());
+
+        if (superIndex != null) {
+            _defineAll(classes, bytes, indexes, states, superIndex, loader, result);
+        }
+
+        for (val interfaceType : type.getInterfaces()) {
+            val interfaceIndex = indexes.get(interfaceType.getInternalName());
+
+            if (interfaceIndex != null) {
+                _defineAll(classes, bytes, indexes, states, interfaceIndex, loader, result);
+            }
+        }
+
+        val name = type.getName().getName();
+        result.put(name, AbstractMakeClass._define(loader, name, bytes[index]));
+
+        states[index] = 2;
+    }
+
+    private byte[][] _writeAll(
+            final List<AbstractMakeClass> classes,
+            final Collection<? extends MakeClass> types
+    ) {
+        val batch = Hierarchies.ofMakeClasses(new ArrayList<>(types));
+
+        val pool = ForkJoinPool.commonPool();
+        val tasks = new ArrayList<ForkJoinTask<byte[]>>(classes.size());
+
+        for (val type : classes) {
+            tasks.add(pool.submit(() -> type.makeClassWriter(batch).toByteArray()));
+        }
+
+        val result = new byte[classes.size()][];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = tasks.get(i).join();
+        }
+
+        return result;
+    }
+
+    private List<AbstractMakeClass> _flatten(final Collection<? extends MakeClass> types) {
+        val result = new ArrayList<AbstractMakeClass>();
+
+        for (val type : types) {
+            _flatten(type, result);
+        }
+
+        return result;
+    }
+
+    private void _flatten(final MakeClass type, final List<AbstractMakeClass> result) {
+        if (!(type instanceof AbstractMakeClass)) {
+            throw new IllegalArgumentException("Unsupported type: " + type.getClass());
+        }
+
+        result.add((AbstractMakeClass) type);
+
+        for (val innerClass : type.getInnerClasses()) {
+            _flatten(innerClass, result);
+        }
+    }
+
     @FieldDefaults(level = AccessLevel.PROTECTED)
     @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
     private static abstract class AbstractMakeElement implements MakeElement {
         @Getter
-        @Setter
         int modifiers;
 
+        protected void _checkReleased() {
+        }
+
+        @Override
+        public void setModifiers(final int modifiers) {
+            _checkReleased();
+
+            this.modifiers = modifiers;
+        }
+
         public void setAccess(final @NonNull Access access) {
             setModifiers((modifiers & ~0b111) | access.getOpcode());
         }
@@ -163,18 +399,18 @@ public class Javabyte {
         @Override
         public void setFinal(final boolean flag) {
             if (flag) {
-                setModifiers(modifiers |= Opcodes.ACC_FINAL);
+                setModifiers(modifiers | Opcodes.ACC_FINAL);
             } else {
-                setModifiers(modifiers &= ~Opcodes.ACC_FINAL);
+                setModifiers(modifiers & ~Opcodes.ACC_FINAL);
             }
         }
 
         @Override
         public void setStatic(final boolean flag) {
             if (flag) {
-                setModifiers(modifiers |= Opcodes.ACC_STATIC);
+                setModifiers(modifiers | Opcodes.ACC_STATIC);
             } else {
-                setModifiers(modifiers &= ~Opcodes.ACC_STATIC);
+                setModifiers(modifiers & ~Opcodes.ACC_STATIC);
             }
         }
 
@@ -194,19 +430,26 @@ public class Javabyte {
     @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
     private static abstract class AbstractMakeClass extends AbstractMakeElement implements MakeClass {
 
-        private static final Method INVOKE_DEFINE_CLASS;
+        // initialized only when needed, writing classes doesn't require access to ClassLoader#defineClass
+        private static final class DefineClass {
 
-        static {
-            try {
-                INVOKE_DEFINE_CLASS = ClassLoader.class.getDeclaredMethod("defineClass",
-                        String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
-                INVOKE_DEFINE_CLASS.setAccessible(true);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            private static final Method INVOKE_DEFINE_CLASS;
+
+            static {
+                try {
+                    INVOKE_DEFINE_CLASS = ClassLoader.class.getDeclaredMethod("defineClass",
+                            String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
+                    INVOKE_DEFINE_CLASS.setAccessible(true);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
             }
+
         }
 
-        @Getter
+        /**
+         * Version of the class, it is {@code null} if the class is imported from unsupported class file version.
+         */
         final Version version;
 
         @Getter
@@ -228,98 +471,679 @@ public class Javabyte {
 
         MakeConstructorImpl staticConstructor;
 
-        protected final ClassWriter makeClassWriter() {
-            val cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        @Getter
+        @NonNull
+        FrameComputation frameComputation = FrameComputation.ASM;
+
+        @Getter
+        @NonNull
+        CompileMode compileMode = CompileMode.DEBUG;
+
+        @Getter
+        boolean parallelCompilation;
+
+        @Getter
+        boolean incrementalCompilation;
+
+        @Getter
+        boolean releaseAfterWrite;
+
+        @Getter
+        boolean released;
+
+        MakeArenaImpl arena;
+
+        ClassReader source;
+
+        /**
+         * Raw version of imported class file, including minor version, which is written back unchanged.
+         */
+        int importedVersion;
+
+        @Override
+        public @NotNull Version getVersion() {
+            if (version == null) {
+                throw new IllegalStateException("Unsupported class file version: " + (importedVersion & 0xFFFF));
+            }
+
+            return version;
+        }
+
+        private int _classVersion() {
+            return source != null ? importedVersion : version.getNumber();
+        }
+
+        @Getter
+        @NonNull
+        ClassHierarchy hierarchy = Hierarchies.ofClassLoader(Javabyte.class.getClassLoader());
+
+        @Getter
+        @NonNull
+        PassManager passManager = Passes.defaultManager();
+
+        Map<String, Boolean> enabledPasses;
+
+        /**
+         * Lists and instructions of released class may be reused by other classes of the arena,
+         * so released class cannot be changed.
+         */
+        @Override
+        protected final void _checkReleased() {
+            if (released) {
+                throw new IllegalStateException("Class " + name + " is released");
+            }
+        }
+
+        @Override
+        public void setFrameComputation(final @NonNull FrameComputation frameComputation) {
+            _checkReleased();
+
+            this.frameComputation = frameComputation;
+        }
+
+        @Override
+        public void setCompileMode(final @NonNull CompileMode compileMode) {
+            _checkReleased();
+
+            this.compileMode = compileMode;
+        }
+
+        @Override
+        public void setParallelCompilation(final boolean parallelCompilation) {
+            _checkReleased();
+
+            this.parallelCompilation = parallelCompilation;
+        }
+
+        @Override
+        public void setIncrementalCompilation(final boolean incrementalCompilation) {
+            _checkReleased();
+
+            this.incrementalCompilation = incrementalCompilation;
+        }
+
+        @Override
+        public void setReleaseAfterWrite(final boolean releaseAfterWrite) {
+            _checkReleased();
+
+            this.releaseAfterWrite = releaseAfterWrite;
+        }
+
+        @Override
+        public void setHierarchy(final @NonNull ClassHierarchy hierarchy) {
+            _checkReleased();
+
+            this.hierarchy = hierarchy;
+        }
+
+        @Override
+        public void setPassManager(final @NonNull PassManager passManager) {
+            _checkReleased();
+
+            this.passManager = passManager;
+        }
+
+        @Override
+        public void setPassEnabled(final @NonNull String name, final boolean enabled) {
+            _checkReleased();
+
+            if (enabledPasses == null) {
+                enabledPasses = new HashMap<>();
+            }
+
+            enabledPasses.put(name, enabled);
+        }
+
+        @Override
+        public boolean isPassEnabled(final @NonNull InstructionPass pass) {
+            if (enabledPasses != null) {
+                val enabled = enabledPasses.get(pass.getName());
+
+                if (enabled != null) {
+                    return enabled;
+                }
+            }
+
+            return pass.isEnabledByDefault();
+        }
+
+        protected final ClassWriter makeClassWriter(final ClassHierarchy batch) {
+            val hierarchy = batch != null
+                    ? Hierarchies.chain(Hierarchies.ofMakeClass(this), batch, this.hierarchy)
+                    : Hierarchies.chain(Hierarchies.ofMakeClass(this), this.hierarchy);
+
+            // writer, created from the reader, copies constant pool and unchanged methods of imported class
+            val cw = source != null
+                    ? new HierarchyClassWriter(source, frameComputation.getWriterFlags(), hierarchy)
+                    : new HierarchyClassWriter(frameComputation.getWriterFlags(), hierarchy);
+
+            makeClass(cw);
+
+            return cw;
+        }
+
+        /**
+         * Append structure of this class and its inner classes to the key. Instructions are appended
+         * as is, executable is compiled only if it contains instructions, which state is unknown.
+         */
+        protected final void makeKey(final StringBuilder out) {
+            _checkReleased();
+
+            _appendHeader(out);
+
+            out.append(' ').append(modifiers).append(' ').append(_classSignature());
+
+            if (source != null) {
+                out.append(" source ").append(ClassKeys.of(cv -> source.accept(cv, 0)).toHexString());
+            }
+
+            out.append('\n');
 
             for (val innerClass : innerClasses) {
-                cw.visitInnerClass(innerClass.getName().getInternalName(), name.getInternalName(),
-                        innerClass.getInnerName(), innerClass.getModifiers());
+                out.append("inner ").append(innerClass.getInnerName()).append(' ')
+                        .append(innerClass.getModifiers()).append('\n');
+            }
 
-                val innerWriter = innerClass.makeClassWriter();
-                innerWriter.visitOuterClass(name.getInternalName(), null, null);
+            for (val field : fields) {
+                out.append("field ").append(field.getModifiers()).append(' ').append(field.getName()).append(' ')
+                        .append(field.getType().getSignature()).append('\n');
             }
 
-            final String[] interfaceNames;
+            if (source == null && !_hasConstructors()) {
+                out.append("default constructor\n");
+            }
 
-            if (!interfaces.isEmpty()) {
-                interfaceNames = interfaces.stream()
-                        .map(TypeName::getInternalName)
-                        .toArray(String[]::new);
-            } else {
-                interfaceNames = null;
+            for (val executable : _collectExecutables()) {
+                _appendExecutable(out, executable);
+
+                if (!_appendInstructions(out, executable.getBytecode(), new IdentityHashMap<>())) {
+                    out.append(ClassKeys.of(cv -> {
+                        val mv = _visitExecutable(cv, executable);
+                        executable.getBytecode().compile(executable, mv);
+                        mv.visitEnd();
+                    }).toHexString());
+                }
+
+                out.append('\n');
+            }
+
+            for (val innerClass : innerClasses) {
+                out.append('{');
+                innerClass.makeKey(out);
+                out.append("}\n");
+            }
+        }
+
+        private void makeClass(final ClassVisitor cv) {
+            _checkReleased();
+
+            if (source != null) {
+                _makeImportedClass(cv);
+                return;
+            }
+
+            for (val innerClass : innerClasses) {
+                _visitInnerClass(cv, innerClass);
+            }
+
+            cv.visit(version.getNumber(), modifiers, name.getInternalName(), _classSignature(),
+                    superName.getInternalName(), _interfaceNames());
+
+            _visitFields(cv);
+
+            val executables = _collectExecutables();
+
+            if (!_hasConstructors()) {
+                val emptyConstructor = _initConstructor(false);
+                emptyConstructor.setAccess(Access.PUBLIC);
+
+                val emptyConstructorCode = emptyConstructor.getBytecode();
+                emptyConstructorCode.loadLocal(0);
+
+                emptyConstructorCode.methodInsn(MethodOpcode.SPECIAL, "<init>")
+                        .inSuper()
+                        .descriptor(void.class);
+
+                emptyConstructorCode.callReturn();
+
+                _collectExecutable(executables, emptyConstructor);
             }
 
-            final String classSignature;
+            _visitExecutables(cv, executables);
 
+            cv.visitEnd();
+        }
+
+        /**
+         * Copy class file, from which this class is imported, replacing fields and executables,
+         * that are declared in this class.
+         */
+        private void _makeImportedClass(final ClassVisitor cv) {
+            val executables = _collectExecutables();
+
+            val replacedExecutables = new HashSet<String>();
+
+            for (val executable : executables) {
+                replacedExecutables.add(executable.getName() + _methodSignature(executable).getDescriptor());
+            }
+
+            val replacedFields = new HashSet<String>();
+
+            for (val field : fields) {
+                replacedFields.add(field.getName());
+            }
+
+            val replacedInnerClasses = new HashSet<String>();
+
+            for (val innerClass : innerClasses) {
+                replacedInnerClasses.add(innerClass.getName().getInternalName());
+            }
+
+            source.accept(new ClassVisitor(Opcodes.ASM9, cv) {
+                @Override
+                public void visit(
+                        final int originalVersion,
+                        final int originalModifiers,
+                        final String originalName,
+                        final String originalSignature,
+                        final String originalSuperName,
+                        final String[] originalInterfaces
+                ) {
+                    val interfaceNames = _interfaceNames();
+
+                    String signature = _classSignature();
+
+                    // keep generic signature of the original class, if its header is not changed
+                    if (signature == null && superName.getInternalName().equals(originalSuperName)
+                            && Arrays.equals(interfaceNames != null ? interfaceNames : new String[0],
+                            originalInterfaces)) {
+                        signature = originalSignature;
+                    }
+
+                    super.visit(importedVersion, modifiers, name.getInternalName(), signature,
+                            superName.getInternalName(), interfaceNames);
+                }
+
+                @Override
+                public void visitInnerClass(
+                        final String innerName,
+                        final String outerName,
+                        final String innerSimpleName,
+                        final int innerModifiers
+                ) {
+                    if (replacedInnerClasses.contains(innerName)) return;
+
+                    super.visitInnerClass(innerName, outerName, innerSimpleName, innerModifiers);
+                }
+
+                @Override
+                public FieldVisitor visitField(
+                        final int fieldModifiers,
+                        final String fieldName,
+                        final String descriptor,
+                        final String signature,
+                        final Object value
+                ) {
+                    if (replacedFields.contains(fieldName)) return null;
+
+                    return super.visitField(fieldModifiers, fieldName, descriptor, signature, value);
+                }
+
+                @Override
+                public MethodVisitor visitMethod(
+                        final int methodModifiers,
+                        final String methodName,
+                        final String descriptor,
+                        final String signature,
+                        final String[] exceptions
+                ) {
+                    if (replacedExecutables.contains(methodName + descriptor)) return null;
+
+                    // method writer is returned as is, so ClassReader copies method without parsing its code
+                    return super.visitMethod(methodModifiers, methodName, descriptor, signature, exceptions);
+                }
+
+                @Override
+                public void visitEnd() {
+                    for (val innerClass : innerClasses) {
+                        _visitInnerClass(cv, innerClass);
+                    }
+
+                    _visitFields(cv);
+                    _visitExecutables(cv, executables);
+
+                    super.visitEnd();
+                }
+            }, 0);
+        }
+
+        private void _visitInnerClass(final ClassVisitor cv, final MakeInnerClassImpl innerClass) {
+            cv.visitInnerClass(innerClass.getName().getInternalName(), name.getInternalName(),
+                    innerClass.getInnerName(), innerClass.getModifiers());
+        }
+
+        private String[] _interfaceNames() {
+            if (interfaces.isEmpty()) {
+                return null;
+            }
+
+            return interfaces.stream()
+                    .map(TypeName::getInternalName)
+                    .toArray(String[]::new);
+        }
+
+        private String _classSignature() {
             if (superName.hasParameterizedTypes() || Types.hasParameterizedTypes(interfaces)) {
-                classSignature = Signatures.classSignature(
+                return Signatures.classSignature(
                         new TypeParameter[0], superName,
                         interfaces.toArray(new TypeName[0])
                 ).getSignature();
-            } else {
-                classSignature = null;
             }
 
-            cw.visit(version.getNumber(), modifiers, name.getInternalName(), classSignature,
-                    superName.getInternalName(), interfaceNames);
+            return null;
+        }
 
+        private void _visitFields(final ClassVisitor cv) {
             for (val field : fields) {
                 val fieldType = field.getType();
 
-                val signature = fieldType.hasParameterizedTypes()
-                        ? fieldType.getSignature()
-                        : null;
+                val signature = fieldType.hasParameterizedTypes()
+                        ? fieldType.getSignature()
+                        : null;
+
+                val fv = cv.visitField(field.getModifiers(), field.getName(), fieldType.getDescriptor(),
+                        signature, null);
+
+                if (fv != null) {
+                    fv.visitEnd();
+                }
+            }
+        }
+
+        private List<MakeExecutableImpl> _collectExecutables() {
+            val executables = new ArrayList<MakeExecutableImpl>(this.executables.size());
+
+            for (val executable : this.executables) {
+                _collectExecutable(executables, executable);
+            }
+
+            return executables;
+        }
+
+        private boolean _hasConstructors() {
+            for (val executable : executables) {
+                if (executable.getName().equals("<init>")) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void _visitExecutables(final ClassVisitor cv, final List<MakeExecutableImpl> executables) {
+            if (parallelCompilation && executables.size() > 1) {
+                val pool = ForkJoinPool.commonPool();
+                val buffers = new ArrayList<ForkJoinTask<MethodBuffer>>(executables.size());
+
+                for (val executable : executables) {
+                    buffers.add(pool.submit(() -> _compile(executable)));
+                }
+
+                // methods are appended in declaration order, regardless of compilation order
+                for (int i = 0; i < executables.size(); i++) {
+                    val mv = _visitExecutable(cv, executables.get(i));
+                    buffers.get(i).join().accept(mv);
+                    mv.visitEnd();
+                }
+            } else {
+                for (val executable : executables) {
+                    val mv = _visitExecutable(cv, executable);
+
+                    if (incrementalCompilation) {
+                        _compile(executable).accept(mv);
+                    } else {
+                        executable.getBytecode().compile(executable, mv);
+                    }
+
+                    mv.visitEnd();
+                }
+            }
+        }
+
+        /**
+         * Compile executable into the buffer. If incremental compilation is enabled and neither executable,
+         * nor this class are changed since the last compilation, then the last buffer is replayed
+         * instead of compilation.
+         */
+        private MethodBuffer _compile(final MakeExecutableImpl executable) {
+            if (!incrementalCompilation) {
+                val buffer = new MethodBuffer();
+                executable.getBytecode().compile(executable, buffer);
+
+                return buffer;
+            }
+
+            val key = _executableKey(executable);
+            val compiled = executable.compiled;
+
+            if (key != null && compiled != null && compiled.key.equals(key) && compiled.hierarchy == hierarchy) {
+                return compiled.buffer;
+            }
+
+            val buffer = new MethodBuffer();
+            executable.getBytecode().compile(executable, buffer);
+
+            executable.compiled = key != null
+                    ? new CompiledExecutable(key, hierarchy, buffer)
+                    : null;
+
+            return buffer;
+        }
+
+        /**
+         * Make key of the executable and state of this class, that affects its compilation.
+         *
+         * @return key or {@code null}, if executable contains instructions, which state is unknown
+         */
+        private ClassKey _executableKey(final MakeExecutableImpl executable) {
+            val out = new StringBuilder();
+            _appendHeader(out);
+            out.append('\n');
+            _appendExecutable(out, executable);
+
+            if (!_appendInstructions(out, executable.getBytecode(), new IdentityHashMap<>())) {
+                return null;
+            }
+
+            return ClassKeys.of(out.toString());
+        }
+
+        private void _appendHeader(final StringBuilder out) {
+            out.append(_classVersion()).append(' ').append(frameComputation).append(' ')
+                    .append(name.getInternalName()).append(' ').append(superName.getInternalName());
+
+            for (val interfaceType : interfaces) {
+                out.append(' ').append(interfaceType.getInternalName());
+            }
+
+            if (enabledPasses != null) {
+                out.append(' ').append(new TreeMap<>(enabledPasses));
+            }
+
+            out.append(' ').append(compileMode);
+
+            // pass manager is mutable, so passes are compared by names in order they are applied
+            for (val pass : passManager.getPasses()) {
+                if (isPassEnabled(pass)) {
+                    out.append(' ').append(pass.getName());
+                }
+            }
+        }
+
+        private static void _appendExecutable(final StringBuilder out, final MakeExecutableImpl executable) {
+            out.append(executable.getModifiers()).append(' ').append(executable.getName())
+                    .append(executable.getSignature().getSignature());
+
+            for (val exception : executable.getExceptions()) {
+                out.append(' ').append(exception.getInternalName());
+            }
+
+            out.append('\n');
+        }
+
+        private static boolean _appendInstructions(
+                final StringBuilder out,
+                final InstructionSet set,
+                final Map<Object, Integer> ids
+        ) {
+            val instructions = set.getInstructions();
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                out.append(instructions.getKind(i).ordinal()).append(' ')
+                        .append(instructions.getOperand(i)).append(' ');
+
+                val ref = instructions.getRef(i);
+
+                if (ref == null) {
+                    out.append('-');
+                } else if (ref instanceof String) {
+                    out.append(((String) ref).length()).append(':').append(ref);
+                } else if (ref instanceof TypeName) {
+                    out.append(((TypeName) ref).getSignature());
+                } else if (ref instanceof Enum) {
+                    out.append(((Enum<?>) ref).name());
+                } else if (ref instanceof LocalIndex && ((LocalIndex) ref).isInitialized()) {
+                    out.append('#').append(((LocalIndex) ref).getValue());
+                } else if (ref instanceof LocalIndex) {
+                    // locals are identified by order of appearance, positions by order of their labels
+                    out.append('@').append(ids.computeIfAbsent(ref, __ -> ids.size()));
+                } else if (ref instanceof Position) {
+                    out.append('@').append(ids.computeIfAbsent(((Position) ref).getLabel(), __ -> ids.size()));
+                } else if (ref instanceof MethodInsn || ref instanceof FieldInsn) {
+                    out.append(ref);
+                } else if (ref instanceof InstructionSet) {
+                    out.append('{');
+
+                    if (!_appendInstructions(out, (InstructionSet) ref, ids)) {
+                        return false;
+                    }
+
+                    out.append('}');
+                } else if (ref instanceof IntsSwitchInsn) {
+                    val insn = (IntsSwitchInsn) ref;
+
+                    if (!_appendSwitch(out, insn, insn.getBranches(), ids)) {
+                        return false;
+                    }
+                } else if (ref instanceof StringsSwitchInsn) {
+                    val insn = (StringsSwitchInsn) ref;
+                    out.append(insn.getImpl().name()).append(' ');
+
+                    if (!_appendSwitch(out, insn, insn.getBranches(), ids)) {
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+
+                out.append('\n');
+            }
+
+            return true;
+        }
+
+        /**
+         * Append source, keys in order and bodies of branches. Branch of several keys is appended once.
+         */
+        private static boolean _appendSwitch(
+                final StringBuilder out,
+                final SwitchInsn insn,
+                final Map<?, CaseBranch> branches,
+                final Map<Object, Integer> ids
+        ) {
+            val source = insn.getSource();
 
-                cw.visitField(field.getModifiers(), field.getName(), fieldType.getDescriptor(), signature, null)
-                        .visitEnd();
+            if (source == null) {
+                out.append('-');
+            } else if (source.isInitialized()) {
+                out.append('#').append(source.getValue());
+            } else {
+                out.append('@').append(ids.computeIfAbsent(source, __ -> ids.size()));
             }
 
-            boolean hasConstructors = false;
+            for (val branch : branches.entrySet()) {
+                val key = branch.getKey();
+                out.append(' ');
 
-            for (val executable : executables) {
-                addExecutable(cw, executable);
+                if (key instanceof String) {
+                    out.append(((String) key).length()).append(':').append(key);
+                } else {
+                    out.append(key);
+                }
 
-                if (executable.getName().equals("<init>")) {
-                    hasConstructors = true;
+                if (!_appendBranch(out, branch.getValue(), ids)) {
+                    return false;
                 }
             }
 
-            if (!hasConstructors) {
-                val emptyConstructor = _initConstructor(false);
-                emptyConstructor.setAccess(Access.PUBLIC);
+            out.append(" default");
 
-                val emptyConstructorCode = emptyConstructor.getBytecode();
-                emptyConstructorCode.loadLocal(0);
+            return _appendBranch(out, insn.defaultBranch(), ids);
+        }
 
-                emptyConstructorCode.methodInsn(MethodOpcode.SPECIAL, "<init>")
-                        .inSuper()
-                        .descriptor(void.class);
+        private static boolean _appendBranch(
+                final StringBuilder out,
+                final CaseBranch branch,
+                final Map<Object, Integer> ids
+        ) {
+            val appended = ids.containsKey(branch);
+            out.append('@').append(ids.computeIfAbsent(branch, __ -> ids.size()));
 
-                emptyConstructorCode.callReturn();
+            if (appended) {
+                return true;
+            }
 
-                addExecutable(cw, emptyConstructor);
+            out.append('{');
+
+            if (!_appendInstructions(out, branch, ids)) {
+                return false;
             }
 
-            return cw;
+            out.append('}');
+
+            return true;
         }
 
-        private void addExecutable(final ClassWriter writer, final MakeExecutableImpl executable) {
+        private MethodVisitor _visitExecutable(final ClassVisitor visitor, final MakeExecutableImpl executable) {
             val exceptions = executable.getExceptions().stream()
                     .map(ExactTypeName::getName)
                     .toArray(String[]::new);
 
-            val methodSignature = Signatures.methodSignature(executable.getReturnType(),
-                    executable.getParameters().toArray(new TypeName[0]));
+            val methodSignature = _methodSignature(executable);
 
             val signature = methodSignature.hasParameterizedTypes()
                     ? methodSignature.getSignature()
                     : null;
 
-            val mv = writer.visitMethod(executable.getModifiers(), executable.getName(),
+            val mv = visitor.visitMethod(executable.getModifiers(), executable.getName(),
                     methodSignature.getDescriptor(), signature, exceptions);
 
             mv.visitCode();
 
+            return mv;
+        }
+
+        private MethodSignature _methodSignature(final MakeExecutableImpl executable) {
+            return Signatures.methodSignature(executable.getReturnType(),
+                    executable.getParameters().toArray(new TypeName[0]));
+        }
+
+        /**
+         * Add executable to the list, bridge method (if any) is added after it.
+         */
+        private void _collectExecutable(final List<MakeExecutableImpl> executables, final MakeExecutableImpl executable) {
+            executables.add(executable);
+
             if (executable instanceof MakeMethodImpl) {
                 val method = (MakeMethodImpl) executable;
 
@@ -354,24 +1178,20 @@ public class Javabyte {
 
                     code.callReturn();
 
-                    addExecutable(writer, bridge);
+                    _collectExecutable(executables, bridge);
                 }
             }
-
-            executable.getBytecode().compile(executable, mv);
-
-            mv.visitEnd();
         }
 
         private MakeConstructorImpl _initConstructor(final boolean isStatic) {
-            return new MakeConstructorImpl(Bytecode.bytecode(), this,
+            return new MakeConstructorImpl(_bytecode(), this,
                     isStatic ? "<clinit>" : "<init>", Types.VOID,
-                    new ArrayList<>(), new ArrayList<>(), isStatic);
+                    _list(), _list(), isStatic);
         }
 
         private MakeMethodImpl _initMethod(final String name) {
-            return new MakeMethodImpl(Bytecode.bytecode(), this,
-                    name, Types.VOID, new ArrayList<>(), new ArrayList<>());
+            return new MakeMethodImpl(_bytecode(), this,
+                    name, Types.VOID, _list(), _list());
         }
 
         private <T extends MakeExecutableImpl> T _addExecutable(final T executable) {
@@ -381,6 +1201,8 @@ public class Javabyte {
 
         @Override
         public @NotNull MakeHashCodeAndEquals addHashCodeAndEquals() {
+            _checkReleased();
+
             val hashCodeMethod = _addExecutable(_initMethod("hashCode"));
             hashCodeMethod.setReturnType(int.class);
 
@@ -397,6 +1219,8 @@ public class Javabyte {
 
         @Override
         public @NotNull MakeToString addToString() {
+            _checkReleased();
+
             val method = _addExecutable(_initMethod("toString"));
             method.setReturnType(String.class);
 
@@ -408,11 +1232,15 @@ public class Javabyte {
 
         @Override
         public @NotNull MakeConstructor addConstructor() {
+            _checkReleased();
+
             return _addExecutable(_initConstructor(false));
         }
 
         @Override
         public @NotNull MakeConstructor getStaticConstructor() {
+            _checkReleased();
+
             if (staticConstructor == null) {
                 val clinit = _addExecutable(_initConstructor(true));
                 clinit.setStatic(true);
@@ -425,22 +1253,29 @@ public class Javabyte {
 
         @Override
         public @NotNull MakeMethod addMethod(final @NonNull String name) {
+            _checkReleased();
+
             return _addExecutable(_initMethod(name));
         }
 
         @Override
         public @NotNull MakeInnerClass addInner(final @NonNull String name) {
+            _checkReleased();
+
             val inner = new MakeInnerClassImpl(
-                    version, Types.of(this.name.getName() + "$" + name), name,
-                    new ArrayList<>(), new ArrayList<>(),
-                    new ArrayList<>(), new ArrayList<>(),
+                    getVersion(), Types.of(this.name.getName() + "$" + name), name,
+                    _list(), _list(),
+                    _list(), _list(),
                     this, Types.OBJECT
             );
+            inner.arena = arena;
             innerClasses.add(inner);
             return inner;
         }
 
         private MakeField _addField(final String name, final TypeName type) {
+            _checkReleased();
+
             val field = new MakeFieldImpl(this, name, type);
             fields.add(field);
 
@@ -480,32 +1315,44 @@ public class Javabyte {
 
         @Override
         public void setSuperName(final @NonNull Type type) {
+            _checkReleased();
+
             this.superName = Types.of(type);
         }
 
         @Override
         public void setSuperName(final @NonNull TypeName name) {
+            _checkReleased();
+
             this.superName = name;
         }
 
         @Override
         public void addInterface(final @NonNull TypeName name) {
+            _checkReleased();
+
             this.interfaces.add(name);
         }
 
         @Override
         public void addInterface(final @NonNull Type type) {
+            _checkReleased();
+
             this.interfaces.add(Types.of(type));
         }
 
         @Override
         public void setInterfaces(final @NotNull TypeName @NotNull ... interfaces) {
+            _checkReleased();
+
             this.interfaces.clear();
             this.interfaces.addAll(Arrays.asList(interfaces));
         }
 
         @Override
         public void setInterfaces(final @NonNull Collection<? extends @NotNull TypeName> interfaces) {
+            _checkReleased();
+
             this.interfaces.clear();
             this.interfaces.addAll(interfaces);
         }
@@ -551,9 +1398,68 @@ public class Javabyte {
             }
         }
 
+        @Override
+        public @NotNull ClassKey computeKey() {
+            val out = new StringBuilder();
+            makeKey(out);
+
+            return ClassKeys.of(out.toString());
+        }
+
         @Override
         public byte @NotNull [] writeAsBytes() {
-            return makeClassWriter().toByteArray();
+            val bytes = makeClassWriter(null).toByteArray();
+
+            if (releaseAfterWrite) {
+                release();
+            }
+
+            return bytes;
+        }
+
+        @Override
+        public void redefine(final @NonNull Class<?> type) {
+            Instrumentations.redefine(type, makeClassWriter(null).toByteArray());
+        }
+
+        @Override
+        public void accept(final @NonNull ClassVisitor visitor) {
+            makeClass(visitor);
+        }
+
+        @Override
+        public void release() {
+            _release(null);
+        }
+
+        private void _release(final MakeArenaImpl pool) {
+            for (val executable : executables) {
+                val instructions = executable.getBytecode().release();
+                instructions.clear();
+
+                if (pool != null) {
+                    pool.streams.add(instructions);
+                    pool._release(executable.parameters);
+                    pool._release(executable.exceptions);
+                }
+            }
+
+            executables.clear();
+            fields.clear();
+
+            staticConstructor = null;
+            source = null;
+            released = true;
+        }
+
+        private <T> List<T> _list() {
+            return arena != null ? arena._list() : new ArrayList<>();
+        }
+
+        private ExecutableInstructionSet _bytecode() {
+            return arena != null && !arena.streams.isEmpty()
+                    ? Bytecode.bytecode(arena.streams.poll())
+                    : Bytecode.bytecode();
         }
 
         @Override
@@ -562,17 +1468,37 @@ public class Javabyte {
                 innerClass.load(loader);
             }
 
-            val bytes = writeAsBytes();
+            return _define(loader, name.getName(), writeAsBytes());
+        }
+
+        private static Class<?> _define(final ClassLoader loader, final String name, final byte[] bytes) {
+            if (loader instanceof ClassArena) {
+                return ((ClassArena) loader).define(name, bytes);
+            }
 
             try {
-                return (Class<?>) INVOKE_DEFINE_CLASS.invoke(loader, name.getName(),
+                return (Class<?>) DefineClass.INVOKE_DEFINE_CLASS.invoke(loader, name,
                         bytes, 0, bytes.length, null);
             } catch (IllegalAccessException | InvocationTargetException e) {
                 throw new RuntimeException(e);
             }
         }
 
+        @Override
+        public @NotNull Class<?> load(
+                final @NonNull MethodHandles.Lookup lookup,
+                final @NotNull HiddenClassOption @NonNull ... options
+        ) {
+            if (!innerClasses.isEmpty()) {
+                throw new IllegalStateException("Hidden class cannot have inner classes");
+            }
+
+            return HiddenClasses.define(lookup, writeAsBytes(), options);
+        }
+
         private void _setInterfaces(final Collection<TypeName> interfaces) {
+            _checkReleased();
+
             this.interfaces.clear();
             this.interfaces.addAll(interfaces);
         }
@@ -580,6 +1506,30 @@ public class Javabyte {
     }
 
 
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class HierarchyClassWriter extends ClassWriter {
+
+        ClassHierarchy hierarchy;
+
+        private HierarchyClassWriter(final int flags, final ClassHierarchy hierarchy) {
+            super(flags);
+
+            this.hierarchy = hierarchy;
+        }
+
+        private HierarchyClassWriter(final ClassReader reader, final int flags, final ClassHierarchy hierarchy) {
+            super(reader, flags);
+
+            this.hierarchy = hierarchy;
+        }
+
+        @Override
+        protected String getCommonSuperClass(final String type1, final String type2) {
+            return Hierarchies.getCommonSuperClass(hierarchy, type1, type2);
+        }
+
+    }
+
     @Getter
     @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
@@ -795,7 +1745,7 @@ public class Javabyte {
                             }
                         } else {
                             code.methodInsn(MethodOpcode.STATIC, "hashCode")
-                                    .descriptor(Signatures.methodSignature(Types.INT, fieldType))
+                                    .descriptor(Signatures.methodSignature(Types.INT, Types.OBJECT))
                                     .in(Objects.class);
                         }
 
@@ -1019,6 +1969,13 @@ public class Javabyte {
         MakeClass declaringClass;
         String name;
         TypeName type;
+
+        @Override
+        protected void _checkReleased() {
+            if (declaringClass.isReleased()) {
+                throw new IllegalStateException("Class " + declaringClass.getName() + " is released");
+            }
+        }
     }
 
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
@@ -1069,6 +2026,8 @@ public class Javabyte {
 
         @Override
         public void setSignature(@NotNull final MethodSignature signature) {
+            _checkReleased();
+
             this.returnType = signature.getReturnType();
 
             _setParameters(Arrays.asList(signature.getParameterTypes()));
@@ -1076,18 +2035,20 @@ public class Javabyte {
 
         @Override
         public void setReturnType(final @NonNull TypeName type) {
+            _checkReleased();
+
             this.returnType = type;
         }
 
         @Override
         public void setReturnType(final @NonNull Type type) {
+            _checkReleased();
+
             this.returnType = Types.of(type);
         }
 
         private Method getSameMethod(final Class<?> type) {
-            val methods = Arrays.stream(type.getDeclaredMethods())
-                    .filter(method -> method.getName().equals(name))
-                    .collect(Collectors.toList());
+            val methods = Reflections.of(type).getDeclaredMethods(name);
 
             if (methods.isEmpty()) {
                 throw new IllegalStateException("Cannot override method "
@@ -1130,6 +2091,8 @@ public class Javabyte {
                 final TypeName returnType,
                 final TypeName... parameterTypes
         ) {
+            _checkReleased();
+
             this.overrides = new Overrides(type, returnType, parameterTypes);
         }
 
@@ -1194,6 +2157,15 @@ public class Javabyte {
 
         Overrides overrides;
 
+        CompiledExecutable compiled;
+
+        @Override
+        protected void _checkReleased() {
+            if (declaringClass.isReleased()) {
+                throw new IllegalStateException("Class " + declaringClass.getName() + " is released");
+            }
+        }
+
         @Override
         public int getParameterCount() {
             return parameters.size();
@@ -1206,11 +2178,15 @@ public class Javabyte {
 
         @Override
         public final void addException(final @NonNull Class<?> type) {
+            _checkReleased();
+
             exceptions.add(Types.of(type));
         }
 
         @Override
         public final void addException(final @NonNull ExactTypeName name) {
+            _checkReleased();
+
             exceptions.add(name);
         }
 
@@ -1236,31 +2212,43 @@ public class Javabyte {
 
         @Override
         public final void addParameter(final @NonNull TypeName type) {
+            _checkReleased();
+
             parameters.add(type);
         }
 
         @Override
         public final void addParameter(final int i, final @NonNull TypeName parameter) {
+            _checkReleased();
+
             parameters.add(i, parameter);
         }
 
         @Override
         public final void addParameter(final @NonNull Type type) {
+            _checkReleased();
+
             parameters.add(Types.of(type));
         }
 
         @Override
         public final void addParameter(final int i, final @NonNull Type type) {
+            _checkReleased();
+
             parameters.add(i, Types.of(type));
         }
 
         @Override
         public final void addParameter(final @NonNull String name) {
+            _checkReleased();
+
             parameters.add(Types.of(name));
         }
 
         @Override
         public final void addParameter(final int i, final @NonNull String name) {
+            _checkReleased();
+
             parameters.add(i, Types.of(name));
         }
 
@@ -1285,11 +2273,15 @@ public class Javabyte {
         }
 
         protected void _setParameters(final Collection<? extends TypeName> parameters) {
+            _checkReleased();
+
             this.parameters.clear();
             this.parameters.addAll(parameters);
         }
 
         protected void _setExceptions(final Collection<? extends ExactTypeName> exceptions) {
+            _checkReleased();
+
             this.exceptions.clear();
             this.exceptions.addAll(exceptions);
         }
@@ -1304,4 +2296,273 @@ public class Javabyte {
         TypeName[] parameterTypes;
     }
 
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class MakeArenaImpl implements MakeArena {
+
+        List<AbstractMakeClass> made;
+
+        Queue<List<?>> lists;
+        Queue<InstructionStream> streams;
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> _list() {
+            val list = lists.poll();
+
+            return list != null ? (List<T>) list : new ArrayList<>();
+        }
+
+        private void _release(final List<?> list) {
+            list.clear();
+            lists.add(list);
+        }
+
+        private MakeClass _make(final Version version, final ExactTypeName name) {
+            val type = new MakeClassImpl(
+                    version, name,
+                    _list(), _list(),
+                    _list(), _list(),
+                    Types.OBJECT
+            );
+
+            type.arena = this;
+            made.add(type);
+
+            return type;
+        }
+
+        @Override
+        public @NotNull MakeClass make(final @NonNull Version version, final @NonNull String name) {
+            return _make(version, Types.of(name));
+        }
+
+        @Override
+        public @NotNull MakeClass make(final @NonNull String name) {
+            return _make(Version.V1_8, Types.of(name));
+        }
+
+        @Override
+        public @NotNull MakeClass make(final @NonNull Version version, final @NonNull ExactTypeName name) {
+            return _make(version, name);
+        }
+
+        @Override
+        public @NotNull MakeClass make(final @NonNull ExactTypeName name) {
+            return _make(Version.V1_8, name);
+        }
+
+        @Override
+        public void reset() {
+            for (val type : made) {
+                _reset(type);
+            }
+
+            made.clear();
+        }
+
+        private void _reset(final AbstractMakeClass type) {
+            for (val innerClass : type.innerClasses) {
+                _reset(innerClass);
+            }
+
+            type._release(this);
+
+            _release(type.interfaces);
+            _release(type.fields);
+            _release(type.executables);
+            _release(type.innerClasses);
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class CompiledExecutable {
+        ClassKey key;
+        ClassHierarchy hierarchy;
+        MethodBuffer buffer;
+    }
+
+    /**
+     * Records instructions of the method, so they can be replayed into the class writer later.
+     * <p>
+     * Labels are replaced with new ones on every replay, so buffer can be replayed multiple times.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class MethodBuffer extends MethodVisitor {
+
+        List<Op> ops = new ArrayList<>();
+
+        private MethodBuffer() {
+            super(Opcodes.ASM9);
+        }
+
+        private void accept(final MethodVisitor mv) {
+            val labels = new IdentityHashMap<Label, Label>();
+
+            for (val op : ops) {
+                op.accept(mv, labels);
+            }
+        }
+
+        private static Label _label(final Map<Label, Label> labels, final Label label) {
+            return label != null ? labels.computeIfAbsent(label, __ -> new Label()) : null;
+        }
+
+        private static Label[] _labels(final Map<Label, Label> labels, final Label[] array) {
+            val result = new Label[array.length];
+
+            for (int i = 0; i < array.length; i++) {
+                result[i] = _label(labels, array[i]);
+            }
+
+            return result;
+        }
+
+        private static Object[] _frameTypes(final Map<Label, Label> labels, final Object[] types) {
+            if (types == null) {
+                return null;
+            }
+
+            val result = types.clone();
+
+            for (int i = 0; i < result.length; i++) {
+                if (result[i] instanceof Label) {
+                    result[i] = _label(labels, (Label) result[i]);
+                }
+            }
+
+            return result;
+        }
+
+        private interface Op {
+            void accept(MethodVisitor mv, Map<Label, Label> labels);
+        }
+
+        @Override
+        public void visitFrame(
+                final int type,
+                final int numLocal,
+                final Object[] local,
+                final int numStack,
+                final Object[] stack
+        ) {
+            ops.add((mv, labels) -> mv.visitFrame(type, numLocal, _frameTypes(labels, local),
+                    numStack, _frameTypes(labels, stack)));
+        }
+
+        @Override
+        public void visitInsn(final int opcode) {
+            ops.add((mv, labels) -> mv.visitInsn(opcode));
+        }
+
+        @Override
+        public void visitIntInsn(final int opcode, final int operand) {
+            ops.add((mv, labels) -> mv.visitIntInsn(opcode, operand));
+        }
+
+        @Override
+        public void visitVarInsn(final int opcode, final int var) {
+            ops.add((mv, labels) -> mv.visitVarInsn(opcode, var));
+        }
+
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+            ops.add((mv, labels) -> mv.visitTypeInsn(opcode, type));
+        }
+
+        @Override
+        public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            ops.add((mv, labels) -> mv.visitFieldInsn(opcode, owner, name, descriptor));
+        }
+
+        @Override
+        public void visitMethodInsn(
+                final int opcode,
+                final String owner,
+                final String name,
+                final String descriptor,
+                final boolean isInterface
+        ) {
+            ops.add((mv, labels) -> mv.visitMethodInsn(opcode, owner, name, descriptor, isInterface));
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(
+                final String name,
+                final String descriptor,
+                final Handle bootstrapMethodHandle,
+                final Object... bootstrapMethodArguments
+        ) {
+            ops.add((mv, labels) -> mv.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle,
+                    bootstrapMethodArguments));
+        }
+
+        @Override
+        public void visitJumpInsn(final int opcode, final Label label) {
+            ops.add((mv, labels) -> mv.visitJumpInsn(opcode, _label(labels, label)));
+        }
+
+        @Override
+        public void visitLabel(final Label label) {
+            ops.add((mv, labels) -> mv.visitLabel(_label(labels, label)));
+        }
+
+        @Override
+        public void visitLdcInsn(final Object value) {
+            ops.add((mv, labels) -> mv.visitLdcInsn(value));
+        }
+
+        @Override
+        public void visitIincInsn(final int var, final int increment) {
+            ops.add((mv, labels) -> mv.visitIincInsn(var, increment));
+        }
+
+        @Override
+        public void visitTableSwitchInsn(final int min, final int max, final Label dflt, final Label... cases) {
+            ops.add((mv, labels) -> mv.visitTableSwitchInsn(min, max, _label(labels, dflt),
+                    _labels(labels, cases)));
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] cases) {
+            ops.add((mv, labels) -> mv.visitLookupSwitchInsn(_label(labels, dflt), keys, _labels(labels, cases)));
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+            ops.add((mv, labels) -> mv.visitMultiANewArrayInsn(descriptor, numDimensions));
+        }
+
+        @Override
+        public void visitTryCatchBlock(final Label start, final Label end, final Label handler, final String type) {
+            ops.add((mv, labels) -> mv.visitTryCatchBlock(_label(labels, start), _label(labels, end),
+                    _label(labels, handler), type));
+        }
+
+        @Override
+        public void visitLocalVariable(
+                final String name,
+                final String descriptor,
+                final String signature,
+                final Label start,
+                final Label end,
+                final int index
+        ) {
+            ops.add((mv, labels) -> mv.visitLocalVariable(name, descriptor, signature,
+                    _label(labels, start), _label(labels, end), index));
+        }
+
+        @Override
+        public void visitLineNumber(final int line, final Label start) {
+            ops.add((mv, labels) -> mv.visitLineNumber(line, _label(labels, start)));
+        }
+
+        @Override
+        public void visitMaxs(final int maxStack, final int maxLocals) {
+            ops.add((mv, labels) -> mv.visitMaxs(maxStack, maxLocals));
+        }
+
+    }
+
 }
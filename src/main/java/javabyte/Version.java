@@ -20,6 +20,9 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author whilein
@@ -43,4 +46,33 @@ public enum Version {
 
     int number;
 
+    private static final Version[] VALUES = values();
+
+    /**
+     * Get version by major version of class file.
+     *
+     * @param number major version
+     * @return version
+     * @throws IllegalArgumentException if version is not supported
+     */
+    public static @NotNull Version of(final int number) {
+        val version = find(number);
+
+        if (version == null) {
+            throw new IllegalArgumentException("Unsupported class file version: " + number);
+        }
+
+        return version;
+    }
+
+    static @Nullable Version find(final int number) {
+        for (val version : VALUES) {
+            if (version.number == number) {
+                return version;
+            }
+        }
+
+        return null;
+    }
+
 }
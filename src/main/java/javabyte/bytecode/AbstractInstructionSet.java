@@ -23,29 +23,51 @@ import javabyte.type.TypeName;
 import javabyte.type.Types;
 import lombok.AccessLevel;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Type;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.List;
-
 /**
  * @author whilein
  */
 @FieldDefaults(level = AccessLevel.PROTECTED)
-@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public abstract class AbstractInstructionSet implements InstructionSet {
 
-    Deque<Instruction> inserted;
+    InstructionStream inserted;
+
+    InstructionStream instructions;
+
+    InstructionStream compiled;
 
-    final List<Instruction> instructions;
+    protected AbstractInstructionSet(final InstructionStream instructions) {
+        this.instructions = instructions;
+    }
+
+    protected final InstructionStream _instructions() {
+        if (instructions == null) {
+            throw new IllegalStateException("Instruction set is released");
+        }
+
+        return instructions;
+    }
+
+    @Override
+    public final @NotNull InstructionStream getInstructions() {
+        return _instructions();
+    }
+
+    @Override
+    public final @NotNull InstructionStream getCompiledInstructions() {
+        return compiled == null ? _instructions() : compiled;
+    }
+
+    protected final InstructionStream _stream() {
+        return inserted == null ? _instructions() : inserted;
+    }
 
     protected final void _callInsn(final Instruction instruction) {
-        (inserted == null ? instructions : inserted).add(instruction);
+        _stream().add(instruction);
     }
 
     @Override
@@ -55,17 +77,17 @@ public abstract class AbstractInstructionSet implements InstructionSet {
 
     @Override
     public final void pop() {
-        _callInsn(Instructions.popInsn());
+        _stream().pop();
     }
 
     @Override
     public final void dup() {
-        _callInsn(Instructions.dupInsn());
+        _stream().dup();
     }
 
     @Override
     public final void swap() {
-        _callInsn(Instructions.swapInsn());
+        _stream().swap();
     }
 
     @Override
@@ -90,19 +112,32 @@ public abstract class AbstractInstructionSet implements InstructionSet {
 
     @Override
     public void compile(final @NonNull CompileContext ctx) {
-        inserted = new ArrayDeque<>();
+        val inserted = this.inserted = InstructionStream.create();
+        val instructions = getCompiledInstructions();
 
-        for (val instruction : instructions) {
-            instruction.compile(ctx);
+        for (int i = 0; i < instructions.size(); i++) {
+            instructions.compile(ctx, i);
 
-            Instruction insertedEntry;
-
-            while ((insertedEntry = inserted.poll()) != null) {
-                insertedEntry.compile(ctx);
+            // instructions, inserted during compilation of inserted ones, are appended to the end
+            for (int j = 0; j < inserted.size(); j++) {
+                inserted.compile(ctx, j);
             }
+
+            inserted.clear();
+
+            _compiled(ctx, i);
         }
 
-        inserted = null;
+        this.inserted = null;
+    }
+
+    /**
+     * Called after instruction at given index and all instructions, inserted by it, are compiled.
+     *
+     * @param ctx   compile context
+     * @param index index of the compiled instruction
+     */
+    protected void _compiled(final CompileContext ctx, final int index) {
     }
 
     @Override
@@ -112,7 +147,7 @@ public abstract class AbstractInstructionSet implements InstructionSet {
 
     @Override
     public final void callSout() {
-        instructions.add(Instructions.sout());
+        _instructions().callSout();
     }
 
     @Override
@@ -125,22 +160,22 @@ public abstract class AbstractInstructionSet implements InstructionSet {
 
     @Override
     public final void loadArrayLength() {
-        _callInsn(Instructions.arrayLengthInsn());
+        _stream().loadArrayLength();
     }
 
     @Override
     public final void loadFromArray() {
-        _callInsn(Instructions.arrayLoadInsn());
+        _stream().loadFromArray();
     }
 
     @Override
     public final void visit(final @NonNull Position position) {
-        _callInsn(Instructions.visitInsn(position));
+        _stream().visit(position);
     }
 
     @Override
     public final void jump(final @NonNull JumpOpcode opcode, final @NonNull Position position) {
-        _callInsn(Instructions.jumpInsn(opcode, position));
+        _stream().jump(opcode, position);
     }
 
     private void _jumpIfEquals(
@@ -148,7 +183,7 @@ public abstract class AbstractInstructionSet implements InstructionSet {
             final Position position,
             final boolean inverted
     ) {
-        _callInsn(Instructions.jumpIfEqualsInsn(strategy, position, inverted));
+        _stream().jumpIfEquals(strategy, position, inverted);
     }
 
     @Override
@@ -173,29 +208,29 @@ public abstract class AbstractInstructionSet implements InstructionSet {
     
     @Override
     public final void loadLocal(final @NonNull LocalIndex index) {
-        _callInsn(Instructions.loadLocalInsn(index));
+        _stream().loadLocal(index);
     }
 
     @Override
     public final void loadLocal(final int index) {
-        _callInsn(Instructions.loadLocalInsn(Bytecode.indexOf(index)));
+        _stream().loadLocal(Bytecode.indexOf(index));
     }
 
     @Override
     public final void storeLocal(final int index) {
-        _callInsn(Instructions.storeLocalInsn(Bytecode.indexOf(index)));
+        _stream().storeLocal(Bytecode.indexOf(index));
     }
 
     @Override
     public final void storeLocal(final @NonNull LocalIndex index) {
-        _callInsn(Instructions.storeLocalInsn(index));
+        _stream().storeLocal(index);
     }
 
     @Override
     public final @NotNull LocalIndex storeLocal() {
         val localIndex = Bytecode.index();
 
-        _callInsn(Instructions.storeLocalInsn(localIndex));
+        _stream().storeLocal(localIndex);
 
         return localIndex;
     }
@@ -218,111 +253,111 @@ public abstract class AbstractInstructionSet implements InstructionSet {
 
     @Override
     public final void pushString(final @NotNull String value) {
-        _callInsn(Instructions.pushStringInsn(value));
+        _stream().pushString(value);
     }
 
     @Override
     public final void pushInt(final int value) {
-        _callInsn(Instructions.pushIntInsn(value));
+        _stream().pushInt(value);
     }
 
     @Override
     public final void pushFloat(final float value) {
-        _callInsn(Instructions.pushFloatInsn(value));
+        _stream().pushFloat(value);
     }
 
     @Override
     public final void pushDouble(final double value) {
-        _callInsn(Instructions.pushDoubleInsn(value));
+        _stream().pushDouble(value);
     }
 
     @Override
     public final void pushLong(final long value) {
-        _callInsn(Instructions.pushLongInsn(value));
+        _stream().pushLong(value);
     }
 
     @Override
     public final void pushNull() {
-        _callInsn(Instructions.pushNullInsn());
+        _stream().pushNull();
     }
 
     @Override
     public final void pushDefault(final @NonNull TypeName type) {
-        _callInsn(Instructions.pushDefaultInsn(type));
+        _stream().pushDefault(type);
     }
 
     @Override
     public final void callMath(final @NonNull MathOpcode opcode) {
-        _callInsn(Instructions.mathInsn(opcode));
+        _stream().callMath(opcode);
     }
 
     @Override
     public final void callCompare(final @NonNull CompareOpcode opcode) {
-        _callInsn(Instructions.compareInsn(opcode));
+        _stream().callCompare(opcode);
     }
 
     @Override
     public final void callBox() {
-        _callInsn(Instructions.boxInsn());
+        _stream().callBox();
     }
 
     @Override
     public final void callCast(final @NonNull Type to) {
-        _callInsn(Instructions.castInsn(Types.of(to)));
+        _stream().callCast(Types.of(to));
     }
 
     @Override
     public final void callNewArray(final @NonNull TypeName arrayType, final int knownDims) {
-        _callInsn(Instructions.newArrayInsn(arrayType, knownDims));
+        _stream().callNewArray(arrayType, knownDims);
     }
 
     @Override
     public final void callNewArray(final @NonNull Type arrayType, final int knownDims) {
-        _callInsn(Instructions.newArrayInsn(Types.of(arrayType), knownDims));
+        _stream().callNewArray(Types.of(arrayType), knownDims);
     }
 
     @Override
     public final void callNewArray(final @NonNull TypeName arrayType) {
-        _callInsn(Instructions.newArrayInsn(arrayType, arrayType.getDimensions()));
+        _stream().callNewArray(arrayType, arrayType.getDimensions());
     }
 
     @Override
     public final void callThrow() {
-        _callInsn(Instructions.throwInsn());
+        _stream().callThrow();
     }
 
     @Override
     public final void callNewArray(final @NonNull Type arrayType) {
         val name = Types.of(arrayType);
 
-        _callInsn(Instructions.newArrayInsn(name, name.getDimensions()));
+        _stream().callNewArray(name, name.getDimensions());
     }
 
 
     @Override
     public final void callCast(final @NonNull TypeName to) {
-        _callInsn(Instructions.castInsn(to));
+        _stream().callCast(to);
     }
 
     @Override
     public final void callInstanceOf(final @NonNull Type type) {
-        _callInsn(Instructions.instanceOfInsn(Types.of(type)));
+        _stream().callInstanceOf(Types.of(type));
 
     }
 
     @Override
     public final void callInstanceOf(final @NonNull TypeName name) {
-        _callInsn(Instructions.instanceOfInsn(name));
+        _stream().callInstanceOf(name);
     }
 
     @Override
     public final void callUnbox() {
-        _callInsn(Instructions.unboxInsn());
+        _stream().callUnbox();
     }
 
     @Override
     public final void callReturn() {
-        _callInsn(Instructions.returnInsn());
+        _stream().callReturn();
     }
 
     @Override
@@ -16,18 +16,29 @@
 
 package javabyte.bytecode;
 
-import javabyte.bytecode.insn.Instruction;
+import javabyte.CompileMode;
+import javabyte.FrameComputation;
+import javabyte.hierarchy.ClassHierarchy;
+import javabyte.hierarchy.Hierarchies;
+import javabyte.bytecode.insn.CompositeInstruction;
+import javabyte.bytecode.insn.InstructionKind;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.make.MakeClass;
 import javabyte.make.MakeExecutable;
 import javabyte.opcode.MethodOpcode;
 import javabyte.signature.MethodSignature;
 import javabyte.type.TypeName;
 import javabyte.type.Types;
+import javabyte.util.Interner;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.UtilityClass;
 import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 import java.util.*;
 
@@ -52,8 +63,14 @@ public class Bytecode {
 
     public static final StackItem REF = new StackItemImpl(5, Types.OBJECT, "objectRef", 1);
 
+    private static final Interner<TypeName, StackItem> REF_ITEMS = new Interner<>();
+
     public @NotNull ExecutableInstructionSet bytecode() {
-        return new ExecutableInstructionSetImpl(new ArrayList<>());
+        return new ExecutableInstructionSetImpl(InstructionStream.create());
+    }
+
+    public @NotNull ExecutableInstructionSet bytecode(final @NonNull InstructionStream instructions) {
+        return new ExecutableInstructionSetImpl(instructions);
     }
 
     public @NotNull LocalIndex index() {
@@ -95,6 +112,27 @@ public class Bytecode {
             }
         }
 
+        // items are weakly interned, so they don't pin types and their class loaders
+        val item = REF_ITEMS.get(type);
+
+        if (item != null) {
+            return item;
+        }
+
+        return REF_ITEMS.intern(type, _refItem(type));
+    }
+
+    /**
+     * Get new item of the object, that is created by {@code NEW}, but its constructor isn't called yet.
+     * <p>
+     * Unlike {@link #item(TypeName)}, item isn't interned, so each object can be told apart
+     * by the {@link FrameComputation#TRACKED} frames.
+     */
+    public @NotNull StackItem uninitialized(final @NonNull TypeName type) {
+        return new StackItemImpl(5, type, "uninitialized[" + type + "]", 1);
+    }
+
+    private StackItem _refItem(final TypeName type) {
         return new StackItemImpl(5, type, "objectRef[" + type + "]", 1);
     }
 
@@ -124,11 +162,20 @@ public class Bytecode {
         }
     }
 
+    /**
+     * Stack of interned {@link StackItem}s, top of the stack is the last element of the array.
+     * <p>
+     * Trusted stack doesn't validate items, but still tracks max size, because it is
+     * visited as is by {@link javabyte.make.MakeClass#accept(org.objectweb.asm.ClassVisitor)}.
+     */
     @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class StackImpl implements Stack {
 
-        final LinkedList<StackItem> stack;
+        final boolean trusted;
+
+        StackItem[] items = new StackItem[16];
+        int length;
 
         @Getter
         int size;
@@ -153,63 +200,87 @@ public class Bytecode {
 
         @Override
         public void ensureSize(final int i) {
-            if (stack.size() < i) {
+            if (trusted) return;
+
+            if (length < i) {
                 throw new IllegalStateException("Required stack: "
-                        + Collections.nCopies(i, "any") + ", but: " + stack);
+                        + Collections.nCopies(i, "any") + ", but: " + this);
             }
         }
 
         @Override
         public void ensure(final @NotNull StackItem item, final int count) {
-            if (stack.size() >= count) {
-                int counter = 0;
+            if (trusted) return;
 
-                for (val stackStart : stack) {
-                    if (++counter >= count) return;
+            if (length >= count) {
+                for (int i = 0; i < length; i++) {
+                    if (i + 1 >= count) return;
 
-                    if (!stackStart.equals(item))
+                    if (!items[length - i - 1].equals(item))
                         break;
                 }
             }
 
             throw new IllegalStateException("Required stack: "
-                    + Collections.nCopies(count, item.getName()) + ", but: " + stack);
+                    + Collections.nCopies(count, item.getName()) + ", but: " + this);
         }
 
+        @Override
+        public void ensure(final @NotNull StackItem item) {
+            if (trusted) return;
+
+            if (length < 1) {
+                throw new IllegalStateException("Required stack: [" + item + "], but: " + this);
+            }
+        }
+
+        @Override
+        public void ensure(final @NotNull StackItem first, final @NotNull StackItem second) {
+            if (trusted) return;
+
+            if (length < 2 || !items[length - 1].equals(first)) {
+                throw new IllegalStateException("Required stack: [" + first + ", " + second + "], but: " + this);
+            }
+        }
 
         @Override
         public void ensure(final @NotNull StackItem @NonNull ... items) {
-            if (stack.size() >= items.length) {
-                int counter = 0;
+            if (trusted) return;
 
-                for (val stackStart : stack) {
-                    if (counter >= items.length - 1) return;
+            if (length >= items.length) {
+                for (int i = 0; i < length; i++) {
+                    if (i >= items.length - 1) return;
 
-                    if (!stackStart.equals(items[counter++]))
+                    if (!this.items[length - i - 1].equals(items[i]))
                         break;
                 }
             }
 
             throw new IllegalStateException("Required stack: "
-                    + Arrays.toString(items) + ", but: " + stack);
+                    + Arrays.toString(items) + ", but: " + this);
         }
 
         @Override
         public @NotNull StackItem pop() {
-            if (stack.isEmpty()) {
+            if (length == 0) {
                 throw new IllegalStateException("No more elements in the stack");
             }
 
-            val name = stack.pop();
-            size -= name.getSize();
+            val item = items[--length];
+            items[length] = null;
 
-            return name;
+            size -= item.getSize();
+
+            return item;
         }
 
         private void _push(final StackItem item) {
-            stack.push(item);
-            size += item.getSize();
+            if (length == items.length) {
+                items = Arrays.copyOf(items, length << 1);
+            }
 
+            items[length++] = item;
+            size += item.getSize();
             maxSize = Math.max(maxSize, size);
         }
 
@@ -223,12 +294,57 @@ public class Bytecode {
             _push(item(type));
         }
 
+        /**
+         * Get items of the stack, starting from the top.
+         */
+        private List<StackItem> snapshot() {
+            val result = new ArrayList<StackItem>(length);
+
+            for (int i = length - 1; i >= 0; i--) {
+                result.add(items[i]);
+            }
+
+            return result;
+        }
+
+        private StackItem top() {
+            return length == 0 ? null : items[length - 1];
+        }
+
+        private void replaceTop(final StackItem item) {
+            items[length - 1] = item;
+        }
+
+        private void replace(final StackItem from, final StackItem to) {
+            for (int i = 0; i < length; i++) {
+                if (items[i] == from) {
+                    items[i] = to;
+                }
+            }
+        }
+
+        private void reset(final List<StackItem> items) {
+            Arrays.fill(this.items, 0, length, null);
+            length = 0;
+            size = 0;
+
+            for (int i = items.size() - 1; i >= 0; i--) {
+                _push(items.get(i));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return snapshot().toString();
+        }
+
     }
 
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class PositionImpl implements Position {
 
+        @Getter
         Label label;
 
         @Override
@@ -275,12 +391,88 @@ public class Bytecode {
     private static final class ExecutableInstructionSetImpl
             extends AbstractInstructionSet
             implements ExecutableInstructionSet {
-        private ExecutableInstructionSetImpl(final List<Instruction> instructions) {
+        private ExecutableInstructionSetImpl(final InstructionStream instructions) {
             super(instructions);
         }
 
+        @Override
+        public @NotNull InstructionStream release() {
+            val instructions = _instructions();
+            this.instructions = null;
+
+            return instructions;
+        }
+
         @Override
         public void compile(final @NonNull MakeExecutable executable, final @NonNull MethodVisitor visitor) {
+            compile(executable, visitor, executable.getDeclaringClass().getCompileMode());
+        }
+
+        @Override
+        public void compile(
+                final @NonNull MakeExecutable executable,
+                final @NonNull MethodVisitor visitor,
+                final @NonNull CompileMode mode
+        ) {
+            val type = executable.getDeclaringClass();
+            val passManager = type.getPassManager();
+
+            List<AbstractInstructionSet> copied = null;
+
+            if (_hasEnabledPasses(type, passManager)) {
+                // passes are applied to copies, so instructions of the executable remain the same
+                _copyInstructions(this, copied = new ArrayList<>());
+                passManager.run(executable, this);
+            }
+
+            try {
+                _compile(executable, visitor, mode);
+            } finally {
+                if (copied != null) {
+                    for (val set : copied) {
+                        set.compiled = null;
+                    }
+                }
+            }
+        }
+
+        private static boolean _hasEnabledPasses(final MakeClass type, final PassManager passManager) {
+            for (val pass : passManager.getPasses()) {
+                if (type.isPassEnabled(pass)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static void _copyInstructions(final InstructionSet set, final List<AbstractInstructionSet> copied) {
+            if (!(set instanceof AbstractInstructionSet)) return;
+
+            val abstractSet = (AbstractInstructionSet) set;
+            val instructions = abstractSet.compiled = abstractSet.getInstructions().copy();
+            copied.add(abstractSet);
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                if (instructions.getKind(i) != InstructionKind.INSN) continue;
+
+                val ref = instructions.getRef(i);
+
+                if (ref instanceof InstructionSet) {
+                    _copyInstructions((InstructionSet) ref, copied);
+                } else if (ref instanceof CompositeInstruction) {
+                    for (val nested : ((CompositeInstruction) ref).getInstructionSets()) {
+                        _copyInstructions(nested, copied);
+                    }
+                }
+            }
+        }
+
+        private void _compile(
+                final MakeExecutable executable,
+                final MethodVisitor visitor,
+                final CompileMode mode
+        ) {
             val locals = new ArrayList<Local>();
 
             int localSize = 0;
@@ -295,14 +487,433 @@ public class Bytecode {
                 localSize += parameter.getSize();
             }
 
-            val ctx = new CompileContextImpl(new StackImpl(new LinkedList<>()), localSize, localSize,
-                    executable, visitor, locals);
+            val frames = executable.getDeclaringClass().getFrameComputation() == FrameComputation.TRACKED
+                    ? new FrameTracker(visitor)
+                    : null;
 
-            compile(ctx);
+            val slots = new BitSet();
+            slots.set(0, localSize);
+
+            val ctx = new CompileContextImpl(new StackImpl(mode == CompileMode.TRUSTED),
+                    executable, frames != null ? frames : visitor, locals, slots);
+            ctx.maxLocalSize = localSize;
+            ctx.liveness = LocalLiveness.compute(this, locals.size());
+
+            if (frames != null) {
+                frames.ctx = ctx;
+                frames.initialized = !executable.getName().equals("<init>");
+            }
+
+            try {
+                compile(ctx);
+            } finally {
+                // compilation is repeatable, so indexes assigned by it are reset
+                for (val index : ctx.assigned) {
+                    index.setValue(-1);
+                }
+            }
 
             visitor.visitMaxs(ctx.getStack().getMaxSize(), ctx.maxLocalSize);
         }
 
+        @Override
+        protected void _compiled(final CompileContext ctx, final int index) {
+            ((CompileContextImpl) ctx).release(index);
+        }
+
+    }
+
+    /**
+     * Emits {@link MethodVisitor#visitFrame} entries using stack and locals, tracked by {@link CompileContextImpl}.
+     * <p>
+     * State is captured at every jump and label, so the frame is emitted right before
+     * the first instruction after visited labels or after unconditional jump.
+     * <p>
+     * Objects created by {@code NEW} are tracked by their {@link Bytecode#uninitialized(TypeName)} items,
+     * {@code this} of the constructor is uninitialized until first {@code <init>} call, that doesn't
+     * belong to any {@code NEW}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class FrameTracker extends MethodVisitor {
+
+        private static final Object WIDE = new Object();
+
+        final Map<Label, FrameState> jumps = new HashMap<>();
+        final Set<Label> visited = new HashSet<>();
+
+        final Map<StackItem, Object> uninitialized = new IdentityHashMap<>();
+        StackItem uninitializedThis;
+
+        boolean initialized = true;
+        int initializing;
+
+        CompileContextImpl ctx;
+        ClassHierarchy hierarchy;
+
+        FrameState pending;
+        FrameState unreachable;
+
+        boolean hasPending;
+        boolean reachable = true;
+
+        private FrameTracker(final MethodVisitor mv) {
+            super(ASM9, mv);
+        }
+
+        private static Object frameType(final TypeName type) {
+            if (type.isPrimitive()) {
+                switch (type.getPrimitive()) {
+                    default:
+                        return INTEGER;
+                    case Types.LONG_TYPE:
+                        return Opcodes.LONG;
+                    case Types.FLOAT_TYPE:
+                        return Opcodes.FLOAT;
+                    case Types.DOUBLE_TYPE:
+                        return Opcodes.DOUBLE;
+                }
+            }
+
+            return type.getInternalName();
+        }
+
+        private FrameState capture() {
+            int slots = 0;
+
+            for (val local : ctx.locals) {
+                if (local == null) continue;
+
+                slots = Math.max(slots, local.getOffset() + local.getName().getSize());
+            }
+
+            val locals = new Object[slots];
+            Arrays.fill(locals, TOP);
+
+            for (val local : ctx.locals) {
+                if (local == null) continue;
+
+                val name = local.getName();
+                val offset = local.getOffset();
+
+                locals[offset] = frameType(name);
+
+                if (name.getSize() == 2) {
+                    locals[offset + 1] = WIDE;
+                }
+            }
+
+            if (!initialized) {
+                locals[0] = UNINITIALIZED_THIS;
+            }
+
+            val items = ((StackImpl) ctx.stack).snapshot();
+            val stack = new Object[items.size()];
+
+            int i = stack.length;
+
+            for (val item : items) {
+                val type = uninitialized.get(item);
+                stack[--i] = type != null ? type : frameType(item.getType());
+            }
+
+            return new FrameState(locals, stack, items);
+        }
+
+        private static boolean isWide(final Object type) {
+            return type == Opcodes.LONG || type == Opcodes.DOUBLE;
+        }
+
+        private String commonSuperClass(final String first, final String second) {
+            if (hierarchy == null) {
+                val type = ctx.executable.getDeclaringClass();
+                hierarchy = Hierarchies.chain(Hierarchies.ofMakeClass(type), type.getHierarchy());
+            }
+
+            return Hierarchies.getCommonSuperClass(hierarchy, first, second);
+        }
+
+        private FrameState merge(final FrameState first, final FrameState second) {
+            if (first == null) return second;
+            if (second == null) return first;
+
+            if (first.stack.length != second.stack.length) {
+                throw new IllegalStateException("Inconsistent stack size at jump target: "
+                        + Arrays.toString(first.stack) + " and " + Arrays.toString(second.stack));
+            }
+
+            val stack = new Object[first.stack.length];
+
+            for (int i = 0; i < stack.length; i++) {
+                val a = first.stack[i];
+                val b = second.stack[i];
+
+                if (a.equals(b)) {
+                    stack[i] = a;
+                } else if (a instanceof String && b instanceof String) {
+                    stack[i] = commonSuperClass((String) a, (String) b);
+                } else {
+                    throw new IllegalStateException("Inconsistent stack at jump target: "
+                            + Arrays.toString(first.stack) + " and " + Arrays.toString(second.stack));
+                }
+            }
+
+            val locals = new Object[Math.min(first.locals.length, second.locals.length)];
+
+            for (int i = 0; i < locals.length; i++) {
+                val a = first.locals[i];
+                val b = second.locals[i];
+
+                if (a.equals(b)) {
+                    locals[i] = a;
+                } else if (a instanceof String && b instanceof String) {
+                    locals[i] = commonSuperClass((String) a, (String) b);
+                } else {
+                    locals[i] = TOP;
+                }
+            }
+
+            for (int i = 0; i < locals.length; i++) {
+                if (isWide(locals[i]) && (i + 1 == locals.length || locals[i + 1] != WIDE)) {
+                    locals[i] = TOP;
+                } else if (locals[i] == WIDE && (i == 0 || !isWide(locals[i - 1]))) {
+                    locals[i] = TOP;
+                }
+            }
+
+            return new FrameState(locals, stack, first.items);
+        }
+
+        private void emit(final FrameState state) {
+            val locals = new ArrayList<>(state.locals.length);
+
+            for (int i = 0; i < state.locals.length; i++) {
+                val type = state.locals[i];
+
+                if (type == WIDE) continue;
+
+                locals.add(type);
+            }
+
+            for (int i = locals.size() - 1; i >= 0 && locals.get(i) == TOP; i--) {
+                locals.remove(i);
+            }
+
+            super.visitFrame(F_NEW, locals.size(), locals.toArray(), state.stack.length, state.stack);
+        }
+
+        private void beforeInsn() {
+            if (hasPending) {
+                emit(pending != null ? pending : unreachable != null ? unreachable : capture());
+
+                pending = null;
+                hasPending = false;
+            } else if (!reachable) {
+                emit(unreachable != null ? unreachable : capture());
+            }
+
+            reachable = true;
+            unreachable = null;
+        }
+
+        private void jumpTo(final Label label, final FrameState state) {
+            if (visited.contains(label)) return;
+
+            jumps.put(label, merge(jumps.get(label), state));
+        }
+
+        private void afterUnconditional() {
+            reachable = false;
+            unreachable = capture();
+        }
+
+        @Override
+        public void visitLabel(final Label label) {
+            super.visitLabel(label);
+
+            if (!hasPending) {
+                hasPending = true;
+                pending = reachable ? capture() : null;
+            }
+
+            visited.add(label);
+
+            val jump = jumps.remove(label);
+
+            if (jump != null && !reachable) {
+                // stack is tracked linearly, so restore it from the jump after unconditional one
+                ((StackImpl) ctx.stack).reset(jump.items);
+            }
+
+            pending = merge(pending, jump);
+        }
+
+        @Override
+        public void visitJumpInsn(final int opcode, final Label label) {
+            beforeInsn();
+            super.visitJumpInsn(opcode, label);
+
+            val state = capture();
+            jumpTo(label, state);
+
+            if (opcode == GOTO) {
+                reachable = false;
+                unreachable = state;
+            }
+        }
+
+        @Override
+        public void visitTableSwitchInsn(final int min, final int max, final Label dflt, final Label... labels) {
+            beforeInsn();
+            super.visitTableSwitchInsn(min, max, dflt, labels);
+
+            val state = capture();
+            jumpTo(dflt, state);
+
+            for (val label : labels) {
+                jumpTo(label, state);
+            }
+
+            reachable = false;
+            unreachable = state;
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] labels) {
+            beforeInsn();
+            super.visitLookupSwitchInsn(dflt, keys, labels);
+
+            val state = capture();
+            jumpTo(dflt, state);
+
+            for (val label : labels) {
+                jumpTo(label, state);
+            }
+
+            reachable = false;
+            unreachable = state;
+        }
+
+        @Override
+        public void visitInsn(final int opcode) {
+            beforeInsn();
+            super.visitInsn(opcode);
+
+            if ((opcode >= IRETURN && opcode <= RETURN) || opcode == ATHROW) {
+                afterUnconditional();
+            }
+        }
+
+        @Override
+        public void visitIntInsn(final int opcode, final int operand) {
+            beforeInsn();
+            super.visitIntInsn(opcode, operand);
+        }
+
+        @Override
+        public void visitVarInsn(final int opcode, final int var) {
+            beforeInsn();
+            super.visitVarInsn(opcode, var);
+
+            if (!initialized && opcode == ALOAD && var == 0) {
+                if (uninitializedThis == null) {
+                    uninitializedThis = uninitialized(ctx.executable.getDeclaringClass().getName());
+                    uninitialized.put(uninitializedThis, UNINITIALIZED_THIS);
+                }
+
+                ((StackImpl) ctx.stack).replaceTop(uninitializedThis);
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+            beforeInsn();
+
+            if (opcode == NEW) {
+                val item = ((StackImpl) ctx.stack).top();
+
+                if (item == null || item == item(item.getType())) {
+                    throw new IllegalStateException("Item of NEW " + type + " should be created using "
+                            + "Bytecode.uninitialized, but: " + item);
+                }
+
+                val label = new Label();
+                super.visitLabel(label);
+
+                uninitialized.put(item, label);
+                initializing++;
+            }
+
+            super.visitTypeInsn(opcode, type);
+        }
+
+        @Override
+        public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            beforeInsn();
+            super.visitFieldInsn(opcode, owner, name, descriptor);
+        }
+
+        @Override
+        public void visitMethodInsn(
+                final int opcode,
+                final String owner,
+                final String name,
+                final String descriptor,
+                final boolean isInterface
+        ) {
+            beforeInsn();
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+
+            if (opcode == INVOKESPECIAL && name.equals("<init>")) {
+                if (initializing > 0) {
+                    // constructor of the latest NEW, because arguments of NEW are compiled between them
+                    initializing--;
+                } else if (!initialized) {
+                    initialized = true;
+
+                    if (uninitializedThis != null) {
+                        ((StackImpl) ctx.stack).replace(uninitializedThis, item(uninitializedThis.getType()));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(
+                final String name,
+                final String descriptor,
+                final Handle bootstrapMethodHandle,
+                final Object... bootstrapMethodArguments
+        ) {
+            beforeInsn();
+            super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+        }
+
+        @Override
+        public void visitLdcInsn(final Object value) {
+            beforeInsn();
+            super.visitLdcInsn(value);
+        }
+
+        @Override
+        public void visitIincInsn(final int var, final int increment) {
+            beforeInsn();
+            super.visitIincInsn(var, increment);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+            beforeInsn();
+            super.visitMultiANewArrayInsn(descriptor, numDimensions);
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class FrameState {
+        Object[] locals;
+        Object[] stack;
+        List<StackItem> items;
     }
 
     @Getter
@@ -315,16 +926,20 @@ public class Bytecode {
         int offset;
     }
 
+    /**
+     * Locals are stored at index of their {@link LocalIndex}, released locals are replaced with {@code null}.
+     * <p>
+     * Each local gets the lowest free slot of its size, slots of locals are freed at the end of
+     * their live range (see {@link LocalLiveness}) or when local is popped, so locals with disjoint
+     * ranges share same slots.
+     */
     @FieldDefaults(level = AccessLevel.PRIVATE)
-    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class CompileContextImpl implements CompileContext {
 
         @Getter
         final Stack stack;
 
-        int localSize;
-        int maxLocalSize;
-
         @Getter
         final MakeExecutable executable;
 
@@ -332,6 +947,14 @@ public class Bytecode {
         final MethodVisitor methodVisitor;
         final List<Local> locals;
 
+        final BitSet slots;
+        int maxLocalSize;
+
+        final List<LocalIndex> assigned = new ArrayList<>();
+
+        LocalLiveness liveness;
+        int released;
+
         @Override
         public void visitLong(final long value) {
             if (value == 0) {
@@ -389,13 +1012,14 @@ public class Bytecode {
                 final @NonNull String name,
                 final @NonNull MethodSignature descriptor
         ) {
-            for (int i = 0, j = descriptor.getParameterTypes().length; i < j; i++) {
+            for (int i = 0, j = descriptor.getParameterCount(); i < j; i++) {
                 stack.pop();
             }
 
             switch (opcode) {
                 case SPECIAL:
                 case VIRTUAL:
+                case INTERFACE:
                     stack.pop();
                     break;
             }
@@ -463,6 +1087,42 @@ public class Bytecode {
             return component;
         }
 
+        private int _allocate(final int size) {
+            int offset = slots.nextClearBit(0);
+
+            while (size == 2 && slots.get(offset + 1)) {
+                offset = slots.nextClearBit(offset + 1);
+            }
+
+            slots.set(offset, offset + size);
+            maxLocalSize = Math.max(maxLocalSize, offset + size);
+
+            return offset;
+        }
+
+        private void _free(final Local local) {
+            slots.clear(local.getOffset(), local.getOffset() + local.getName().getSize());
+        }
+
+        private void release(final int index) {
+            if (liveness == null) return;
+
+            while (released < liveness.size() && liveness.getEnd(released) <= index) {
+                val localIndex = liveness.getLocal(released++);
+
+                if (!localIndex.isInitialized() || localIndex.getValue() >= locals.size()) {
+                    continue;
+                }
+
+                val local = locals.get(localIndex.getValue());
+
+                if (local != null && local.getIndex() == localIndex) {
+                    _free(local);
+                    locals.set(localIndex.getValue(), null);
+                }
+            }
+        }
+
         @Override
         public @NotNull Local replaceLocal(final @NonNull LocalIndex localIndex, final @NonNull TypeName name) {
             if (!localIndex.isInitialized()) {
@@ -476,41 +1136,38 @@ public class Bytecode {
             }
 
             val oldLocal = this.locals.get(index);
-            val oldName = oldLocal.getName();
 
-            val local = new LocalImpl(name, localIndex, oldLocal.getOffset());
-
-            this.locals.set(index, local);
-
-            if (name.getSize() != oldName.getSize()) {
-                val shift = name.getSize() - oldName.getSize();
+            if (oldLocal != null && oldLocal.getIndex() == localIndex && oldLocal.getName().equals(name)) {
+                return oldLocal;
+            }
 
-                for (int i = index + 1; i < locals.size(); i++) {
-                    val unshiftedLocal = locals.get(i);
+            final int offset;
 
-                    locals.set(i, new LocalImpl(
-                            unshiftedLocal.getName(), unshiftedLocal.getIndex(),
-                            unshiftedLocal.getOffset() + shift
-                    ));
+            if (oldLocal != null && oldLocal.getName().getSize() == name.getSize()) {
+                offset = oldLocal.getOffset();
+            } else {
+                if (oldLocal != null) {
+                    _free(oldLocal);
                 }
 
-                this.localSize += shift;
-                this.maxLocalSize = Math.max(maxLocalSize, localSize);
+                offset = _allocate(name.getSize());
             }
 
+            val local = new LocalImpl(name, localIndex, offset);
+
+            this.locals.set(index, local);
+
             return local;
         }
 
         private Local _pushLocal(final LocalIndex index, final TypeName name) {
             index.setValue(locals.size());
+            assigned.add(index);
 
-            val local = new LocalImpl(name, index, localSize);
+            val local = new LocalImpl(name, index, _allocate(name.getSize()));
 
             this.locals.add(local);
 
-            this.localSize += name.getSize();
-            this.maxLocalSize = Math.max(maxLocalSize, localSize);
-
             return local;
         }
 
@@ -528,7 +1185,11 @@ public class Bytecode {
         public @NotNull Local popLocal() {
             val local = this.locals.remove(this.locals.size() - 1);
 
-            this.localSize -= local.getName().getSize();
+            if (local == null) {
+                throw new IllegalStateException("Local is already released");
+            }
+
+            _free(local);
 
             return local;
         }
@@ -539,12 +1200,18 @@ public class Bytecode {
                 throw new IllegalStateException("Index should be initiailized!");
             }
 
-            return locals.get(index.getValue());
+            return getLocal(index.getValue());
         }
 
         @Override
         public @NotNull Local getLocal(final int index) {
-            return locals.get(index);
+            val local = locals.get(index);
+
+            if (local == null) {
+                throw new IllegalStateException("Local " + index + " is already released");
+            }
+
+            return local;
         }
 
         @Override
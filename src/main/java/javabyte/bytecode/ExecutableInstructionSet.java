@@ -16,6 +16,8 @@
 
 package javabyte.bytecode;
 
+import javabyte.CompileMode;
+import javabyte.bytecode.insn.InstructionStream;
 import javabyte.make.MakeExecutable;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.MethodVisitor;
@@ -28,4 +30,18 @@ public interface ExecutableInstructionSet extends InstructionSet {
             @NotNull MakeExecutable executable,
             @NotNull MethodVisitor visitor
     );
+
+    void compile(
+            @NotNull MakeExecutable executable,
+            @NotNull MethodVisitor visitor,
+            @NotNull CompileMode mode
+    );
+
+    /**
+     * Detaches instructions from this set, so they can be reused. Any further use of this set
+     * throws {@link IllegalStateException}.
+     *
+     * @return detached instructions
+     */
+    @NotNull InstructionStream release();
 }
@@ -29,6 +29,29 @@ import java.lang.reflect.Type;
  */
 public interface InstructionSet extends Instruction {
 
+    /**
+     * Get instructions of this set, instructions of nested sets are stored
+     * in {@link CompositeInstruction} entries.
+     *
+     * @return instruction stream
+     */
+    @NotNull InstructionStream getInstructions();
+
+    /**
+     * Get instructions, that are compiled. During compilation with passes it is a copy
+     * of {@link #getInstructions()}, which is transformed by passes, otherwise it is
+     * {@link #getInstructions()} itself.
+     *
+     * @return instruction stream
+     */
+    @NotNull InstructionStream getCompiledInstructions();
+
+    /**
+     * Call runnable during compilation, instructions added by it are compiled right after
+     * the call. Instruction passes aren't applied to them.
+     *
+     * @param runnable runnable
+     */
     void whenCompile(@NotNull Runnable runnable);
 
     void callInsn(@NotNull Instruction instruction);
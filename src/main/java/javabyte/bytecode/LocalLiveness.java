@@ -0,0 +1,221 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode;
+
+import javabyte.bytecode.insn.CompositeInstruction;
+import javabyte.bytecode.insn.FieldInsn;
+import javabyte.bytecode.insn.InstructionKind;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.insn.MethodInsn;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live ranges of locals, stored by the executable bytecode.
+ * <p>
+ * Ranges are measured in indexes of top-level instructions, uses inside of nested instruction
+ * sets are attributed to the instruction that owns them. Ranges are widened over backward jumps
+ * and up to the last opaque instruction, since it may access any local.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class LocalLiveness {
+
+    private static final LocalLiveness EMPTY = new LocalLiveness(new LocalIndex[0], new int[0]);
+
+    /**
+     * Locals, ordered by the end of their live range.
+     */
+    LocalIndex[] locals;
+    int[] ends;
+
+    /**
+     * Computes live ranges of locals in the bytecode.
+     *
+     * @param bytecode executable bytecode
+     * @param reserved count of locals, reserved for {@code this} and parameters
+     * @return live ranges, or empty ranges if locals are addressed by raw indexes
+     */
+    static LocalLiveness compute(final InstructionSet bytecode, final int reserved) {
+        val scanner = new Scanner(reserved);
+
+        val instructions = bytecode.getCompiledInstructions();
+
+        for (int i = 0, j = instructions.size(); i < j; i++) {
+            scanner.scan(instructions, i, i);
+        }
+
+        return scanner.finish();
+    }
+
+    int size() {
+        return locals.length;
+    }
+
+    LocalIndex getLocal(final int i) {
+        return locals[i];
+    }
+
+    int getEnd(final int i) {
+        return ends[i];
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Scanner {
+
+        final Map<LocalIndex, int[]> ranges = new IdentityHashMap<>();
+        final Map<Position, Integer> visits = new IdentityHashMap<>();
+        final List<Object> jumps = new ArrayList<>();
+
+        final int reserved;
+
+        int lastOpaque = -1;
+        boolean aliased;
+
+        void scan(final InstructionStream stream, final int i, final int owner) {
+            switch (stream.getKind(i)) {
+                case LOAD_LOCAL:
+                case STORE_LOCAL: {
+                    val index = (LocalIndex) stream.getRef(i);
+
+                    if (index.isInitialized()) {
+                        // local is addressed by a raw index, it may be an alias of any other local
+                        aliased |= index.getValue() >= reserved;
+                        break;
+                    }
+
+                    val range = ranges.get(index);
+
+                    if (range == null) {
+                        ranges.put(index, new int[]{owner, owner});
+                    } else {
+                        range[1] = owner;
+                    }
+
+                    break;
+                }
+                case VISIT:
+                    visits.putIfAbsent((Position) stream.getRef(i), owner);
+                    break;
+                case JUMP:
+                case JUMP_IF_EQUALS:
+                    jumps.add(stream.getRef(i));
+                    jumps.add(owner);
+                    break;
+                case INSN: {
+                    val ref = stream.getRef(i);
+
+                    if (ref instanceof InstructionSet) {
+                        scanNested((InstructionSet) ref, owner);
+                    } else if (ref instanceof CompositeInstruction) {
+                        lastOpaque = owner;
+
+                        for (val nested : ((CompositeInstruction) ref).getInstructionSets()) {
+                            scanNested(nested, owner);
+                        }
+                    } else if (!(ref instanceof MethodInsn) && !(ref instanceof FieldInsn)) {
+                        lastOpaque = owner;
+                    }
+
+                    break;
+                }
+            }
+        }
+
+        void scanNested(final InstructionSet set, final int owner) {
+            val instructions = set.getCompiledInstructions();
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                scan(instructions, i, owner);
+            }
+        }
+
+        LocalLiveness finish() {
+            if (aliased || ranges.isEmpty()) {
+                return EMPTY;
+            }
+
+            val loops = new ArrayList<int[]>();
+
+            for (int i = 0; i < jumps.size(); i += 2) {
+                val target = visits.get(jumps.get(i));
+
+                if (target == null) {
+                    // position is visited somewhere we can't see
+                    return EMPTY;
+                }
+
+                val source = (int) jumps.get(i + 1);
+
+                if (target < source) {
+                    loops.add(new int[]{target, source});
+                }
+            }
+
+            boolean changed;
+
+            do {
+                changed = false;
+
+                for (val range : ranges.values()) {
+                    if (range[0] < lastOpaque && range[1] < lastOpaque) {
+                        range[1] = lastOpaque;
+                        changed = true;
+                    }
+
+                    // local, used inside of the loop, should stay alive during whole loop
+                    for (val loop : loops) {
+                        if (range[0] <= loop[1] && range[1] >= loop[0]
+                                && (range[0] > loop[0] || range[1] < loop[1])) {
+                            range[0] = Math.min(range[0], loop[0]);
+                            range[1] = Math.max(range[1], loop[1]);
+                            changed = true;
+                        }
+                    }
+                }
+            } while (changed);
+
+            val entries = new ArrayList<>(ranges.entrySet());
+            entries.sort((a, b) -> Integer.compare(a.getValue()[1], b.getValue()[1]));
+
+            val locals = new LocalIndex[entries.size()];
+            val ends = new int[entries.size()];
+
+            for (int i = 0; i < locals.length; i++) {
+                val entry = entries.get(i);
+
+                locals[i] = entry.getKey();
+                ends[i] = entry.getValue()[1];
+            }
+
+            return new LocalLiveness(locals, ends);
+        }
+
+    }
+
+}
@@ -17,6 +17,7 @@
 package javabyte.bytecode;
 
 import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
 /**
@@ -24,6 +25,13 @@ import org.objectweb.asm.MethodVisitor;
  */
 public interface Position {
 
+    /**
+     * Get label of this position, positions with the same label are the same position.
+     *
+     * @return label
+     */
+    @NotNull Label getLabel();
+
     void visit(@NotNull MethodVisitor mv);
     void jump(@NotNull MethodVisitor mv, int opcode);
 
@@ -16,23 +16,20 @@
 
 package javabyte.bytecode;
 
-import javabyte.bytecode.insn.Instruction;
+import javabyte.bytecode.insn.InstructionStream;
 import lombok.NonNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author whilein
  */
 public final class SimpleInstructionSet extends AbstractInstructionSet {
 
-    private SimpleInstructionSet(final List<Instruction> instructions) {
+    private SimpleInstructionSet(final InstructionStream instructions) {
         super(instructions);
     }
 
     public static @NonNull InstructionSet create() {
-        return new SimpleInstructionSet(new ArrayList<>());
+        return new SimpleInstructionSet(InstructionStream.create());
     }
 
 }
@@ -32,6 +32,8 @@ public interface Stack {
 
     void ensureSize(int i);
     void ensure(@NotNull StackItem item, int i);
+    void ensure(@NotNull StackItem item);
+    void ensure(@NotNull StackItem first, @NotNull StackItem second);
     void ensure(@NotNull StackItem @NotNull ... items);
 
     @NotNull StackItem pop();
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode.insn;
+
+/**
+ * Kind of entry in the {@link InstructionStream}.
+ *
+ * @author whilein
+ */
+public enum InstructionKind {
+
+    /**
+     * Arbitrary {@link Instruction}, stored in the ref table
+     */
+    INSN,
+
+    /**
+     * Erased entry, compiles to nothing and is dropped by {@link InstructionStream#compact()}
+     */
+    NOP,
+
+    POP,
+    DUP,
+    SWAP,
+    RETURN,
+    BOX,
+    UNBOX,
+    PUSH_NULL,
+    ARRAY_LOAD,
+    ARRAY_LENGTH,
+    THROW,
+    SOUT,
+
+    /**
+     * Value is stored in the operand table
+     */
+    PUSH_INT,
+    PUSH_LONG,
+    PUSH_FLOAT,
+    PUSH_DOUBLE,
+
+    /**
+     * Value is stored in the ref table
+     */
+    PUSH_STRING,
+    PUSH_DEFAULT,
+    INSTANCE_OF,
+    LOAD_LOCAL,
+    STORE_LOCAL,
+    VISIT,
+    MATH,
+    COMPARE,
+
+    /**
+     * Type is stored in the ref table, non-zero operand allows to omit CHECKCAST,
+     * if type on the stack is already assignable to the cast type
+     */
+    CAST,
+
+    /**
+     * Position is stored in the ref table, opcode ordinal in the operand table
+     */
+    JUMP,
+
+    /**
+     * Position is stored in the ref table, strategy ordinal and inversion flag in the operand table
+     */
+    JUMP_IF_EQUALS,
+
+    /**
+     * Array type is stored in the ref table, known dimensions in the operand table
+     */
+    NEW_ARRAY
+
+}
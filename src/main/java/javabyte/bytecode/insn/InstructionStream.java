@@ -0,0 +1,490 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode.insn;
+
+import javabyte.EqualityStrategy;
+import javabyte.bytecode.CompileContext;
+import javabyte.bytecode.LocalIndex;
+import javabyte.bytecode.Position;
+import javabyte.opcode.CompareOpcode;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import javabyte.type.TypeName;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Flat instruction storage: each entry is a kind code with an operand and a ref,
+ * so common instructions are stored without allocating {@link Instruction} objects.
+ * <p>
+ * Entries are compiled one by one using {@link #compile(CompileContext, int)}.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class InstructionStream {
+
+    private static final InstructionKind[] KINDS = InstructionKind.values();
+    private static final JumpOpcode[] JUMP_OPCODES = JumpOpcode.values();
+    private static final EqualityStrategy[] STRATEGIES = EqualityStrategy.values();
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    int[] codes;
+    long[] operands;
+    Object[] refs;
+
+    int size;
+
+    public static @NotNull InstructionStream create() {
+        return create(DEFAULT_CAPACITY);
+    }
+
+    public static @NotNull InstructionStream create(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+
+        return new InstructionStream(new int[capacity], new long[capacity], new Object[capacity], 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Create copy of this stream, refs are shared between the streams.
+     *
+     * @return new stream
+     */
+    public @NotNull InstructionStream copy() {
+        return new InstructionStream(
+                Arrays.copyOf(codes, size),
+                Arrays.copyOf(operands, size),
+                Arrays.copyOf(refs, size),
+                size
+        );
+    }
+
+    public void clear() {
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
+    }
+
+    private void _checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    public @NotNull InstructionKind getKind(final int index) {
+        _checkIndex(index);
+
+        return KINDS[codes[index]];
+    }
+
+    public long getOperand(final int index) {
+        _checkIndex(index);
+
+        return operands[index];
+    }
+
+    public @Nullable Object getRef(final int index) {
+        _checkIndex(index);
+
+        return refs[index];
+    }
+
+    /**
+     * Replace entry at given index, ref and operand should be encoded as described
+     * in {@link InstructionKind}.
+     */
+    public void set(
+            final int index,
+            final @NonNull InstructionKind kind,
+            final long operand,
+            final @Nullable Object ref
+    ) {
+        _checkIndex(index);
+
+        codes[index] = kind.ordinal();
+        operands[index] = operand;
+        refs[index] = ref;
+    }
+
+    /**
+     * Replace entry at given index with {@link InstructionKind#NOP}, indexes of
+     * other entries remain the same until {@link #compact()}.
+     */
+    public void erase(final int index) {
+        set(index, InstructionKind.NOP, 0, null);
+    }
+
+    /**
+     * Remove all {@link InstructionKind#NOP} entries.
+     */
+    public void compact() {
+        val nop = InstructionKind.NOP.ordinal();
+
+        int newSize = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == nop) continue;
+
+            if (newSize != i) {
+                codes[newSize] = codes[i];
+                operands[newSize] = operands[i];
+                refs[newSize] = refs[i];
+            }
+
+            newSize++;
+        }
+
+        Arrays.fill(refs, newSize, size, null);
+        size = newSize;
+    }
+
+    private void _add(final InstructionKind kind, final long operand, final Object ref) {
+        if (size == codes.length) {
+            val capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+
+            codes = Arrays.copyOf(codes, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+
+        codes[size] = kind.ordinal();
+        operands[size] = operand;
+        refs[size] = ref;
+        size++;
+    }
+
+    public void add(final @NonNull Instruction instruction) {
+        _add(InstructionKind.INSN, 0, instruction);
+    }
+
+    public void pop() {
+        _add(InstructionKind.POP, 0, null);
+    }
+
+    public void dup() {
+        _add(InstructionKind.DUP, 0, null);
+    }
+
+    public void swap() {
+        _add(InstructionKind.SWAP, 0, null);
+    }
+
+    public void callReturn() {
+        _add(InstructionKind.RETURN, 0, null);
+    }
+
+    public void callBox() {
+        _add(InstructionKind.BOX, 0, null);
+    }
+
+    public void callUnbox() {
+        _add(InstructionKind.UNBOX, 0, null);
+    }
+
+    public void pushNull() {
+        _add(InstructionKind.PUSH_NULL, 0, null);
+    }
+
+    public void loadFromArray() {
+        _add(InstructionKind.ARRAY_LOAD, 0, null);
+    }
+
+    public void loadArrayLength() {
+        _add(InstructionKind.ARRAY_LENGTH, 0, null);
+    }
+
+    public void callThrow() {
+        _add(InstructionKind.THROW, 0, null);
+    }
+
+    public void callSout() {
+        _add(InstructionKind.SOUT, 0, null);
+    }
+
+    public void pushInt(final int value) {
+        _add(InstructionKind.PUSH_INT, value, null);
+    }
+
+    public void pushLong(final long value) {
+        _add(InstructionKind.PUSH_LONG, value, null);
+    }
+
+    public void pushFloat(final float value) {
+        _add(InstructionKind.PUSH_FLOAT, Float.floatToRawIntBits(value), null);
+    }
+
+    public void pushDouble(final double value) {
+        _add(InstructionKind.PUSH_DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    public void pushString(final @NonNull String value) {
+        _add(InstructionKind.PUSH_STRING, 0, value);
+    }
+
+    public void pushDefault(final @NonNull TypeName type) {
+        _add(InstructionKind.PUSH_DEFAULT, 0, type);
+    }
+
+    public void callCast(final @NonNull TypeName type) {
+        _add(InstructionKind.CAST, 0, type);
+    }
+
+    public void callInstanceOf(final @NonNull TypeName type) {
+        _add(InstructionKind.INSTANCE_OF, 0, type);
+    }
+
+    public void loadLocal(final @NonNull LocalIndex index) {
+        _add(InstructionKind.LOAD_LOCAL, 0, index);
+    }
+
+    public void storeLocal(final @NonNull LocalIndex index) {
+        _add(InstructionKind.STORE_LOCAL, 0, index);
+    }
+
+    public void visit(final @NonNull Position position) {
+        _add(InstructionKind.VISIT, 0, position);
+    }
+
+    public void callMath(final @NonNull MathOpcode opcode) {
+        _add(InstructionKind.MATH, 0, opcode);
+    }
+
+    public void callCompare(final @NonNull CompareOpcode opcode) {
+        _add(InstructionKind.COMPARE, 0, opcode);
+    }
+
+    public void jump(final @NonNull JumpOpcode opcode, final @NonNull Position position) {
+        _add(InstructionKind.JUMP, opcode.ordinal(), position);
+    }
+
+    public void jumpIfEquals(
+            final @NonNull EqualityStrategy strategy,
+            final @NonNull Position position,
+            final boolean inverted
+    ) {
+        _add(InstructionKind.JUMP_IF_EQUALS, strategy.ordinal() << 1 | (inverted ? 1 : 0), position);
+    }
+
+    public void callNewArray(final @NonNull TypeName arrayType, final int knownDims) {
+        Instructions.checkNewArray(arrayType, knownDims);
+
+        _add(InstructionKind.NEW_ARRAY, knownDims, arrayType);
+    }
+
+    public void compile(final @NonNull CompileContext ctx, final int index) {
+        _checkIndex(index);
+
+        val operand = operands[index];
+        val ref = refs[index];
+
+        switch (KINDS[codes[index]]) {
+            case INSN:
+                ((Instruction) ref).compile(ctx);
+                break;
+            case NOP:
+                break;
+            case POP:
+                Instructions.popInsn().compile(ctx);
+                break;
+            case DUP:
+                Instructions.dupInsn().compile(ctx);
+                break;
+            case SWAP:
+                Instructions.swapInsn().compile(ctx);
+                break;
+            case RETURN:
+                Instructions.returnInsn().compile(ctx);
+                break;
+            case BOX:
+                Instructions.boxInsn().compile(ctx);
+                break;
+            case UNBOX:
+                Instructions.unboxInsn().compile(ctx);
+                break;
+            case PUSH_NULL:
+                Instructions.pushNullInsn().compile(ctx);
+                break;
+            case ARRAY_LOAD:
+                Instructions.arrayLoadInsn().compile(ctx);
+                break;
+            case ARRAY_LENGTH:
+                Instructions.arrayLengthInsn().compile(ctx);
+                break;
+            case THROW:
+                Instructions.throwInsn().compile(ctx);
+                break;
+            case SOUT:
+                Instructions.sout().compile(ctx);
+                break;
+            case PUSH_INT:
+                Instructions.compilePushInt(ctx, (int) operand);
+                break;
+            case PUSH_LONG:
+                Instructions.compilePushLong(ctx, operand);
+                break;
+            case PUSH_FLOAT:
+                Instructions.compilePushFloat(ctx, Float.intBitsToFloat((int) operand));
+                break;
+            case PUSH_DOUBLE:
+                Instructions.compilePushDouble(ctx, Double.longBitsToDouble(operand));
+                break;
+            case PUSH_STRING:
+                Instructions.compilePushString(ctx, (String) ref);
+                break;
+            case PUSH_DEFAULT:
+                Instructions.compilePushDefault(ctx, (TypeName) ref);
+                break;
+            case CAST:
+                Instructions.compileCast(ctx, (TypeName) ref, operand != 0);
+                break;
+            case INSTANCE_OF:
+                Instructions.compileInstanceOf(ctx, (TypeName) ref);
+                break;
+            case LOAD_LOCAL:
+                Instructions.compileLoadLocal(ctx, (LocalIndex) ref);
+                break;
+            case STORE_LOCAL:
+                Instructions.compileStoreLocal(ctx, (LocalIndex) ref);
+                break;
+            case VISIT:
+                Instructions.compileVisit(ctx, (Position) ref);
+                break;
+            case MATH:
+                Instructions.compileMath(ctx, (MathOpcode) ref);
+                break;
+            case COMPARE:
+                Instructions.compileCompare(ctx, (CompareOpcode) ref);
+                break;
+            case JUMP:
+                Instructions.compileJump(ctx, JUMP_OPCODES[(int) operand], (Position) ref);
+                break;
+            case JUMP_IF_EQUALS:
+                Instructions.compileJumpIfEquals(ctx, STRATEGIES[(int) (operand >> 1)], (Position) ref,
+                        (operand & 1) != 0);
+                break;
+            case NEW_ARRAY:
+                Instructions.compileNewArray(ctx, (TypeName) ref, (int) operand);
+                break;
+        }
+    }
+
+    /**
+     * Creates standalone {@link Instruction} for the entry at given index,
+     * used for debugging and for consumers which need instruction objects.
+     */
+    public @NotNull Instruction get(final int index) {
+        _checkIndex(index);
+
+        val operand = operands[index];
+        val ref = refs[index];
+
+        switch (KINDS[codes[index]]) {
+            default:
+            case INSN:
+                return (Instruction) ref;
+            case NOP:
+                return Instructions.nopInsn();
+            case POP:
+                return Instructions.popInsn();
+            case DUP:
+                return Instructions.dupInsn();
+            case SWAP:
+                return Instructions.swapInsn();
+            case RETURN:
+                return Instructions.returnInsn();
+            case BOX:
+                return Instructions.boxInsn();
+            case UNBOX:
+                return Instructions.unboxInsn();
+            case PUSH_NULL:
+                return Instructions.pushNullInsn();
+            case ARRAY_LOAD:
+                return Instructions.arrayLoadInsn();
+            case ARRAY_LENGTH:
+                return Instructions.arrayLengthInsn();
+            case THROW:
+                return Instructions.throwInsn();
+            case SOUT:
+                return Instructions.sout();
+            case PUSH_INT:
+                return Instructions.pushIntInsn((int) operand);
+            case PUSH_LONG:
+                return Instructions.pushLongInsn(operand);
+            case PUSH_FLOAT:
+                return Instructions.pushFloatInsn(Float.intBitsToFloat((int) operand));
+            case PUSH_DOUBLE:
+                return Instructions.pushDoubleInsn(Double.longBitsToDouble(operand));
+            case PUSH_STRING:
+                return Instructions.pushStringInsn((String) ref);
+            case PUSH_DEFAULT:
+                return Instructions.pushDefaultInsn((TypeName) ref);
+            case CAST:
+                return Instructions.castInsn((TypeName) ref);
+            case INSTANCE_OF:
+                return Instructions.instanceOfInsn((TypeName) ref);
+            case LOAD_LOCAL:
+                return Instructions.loadLocalInsn((LocalIndex) ref);
+            case STORE_LOCAL:
+                return Instructions.storeLocalInsn((LocalIndex) ref);
+            case VISIT:
+                return Instructions.visitInsn((Position) ref);
+            case MATH:
+                return Instructions.mathInsn((MathOpcode) ref);
+            case COMPARE:
+                return Instructions.compareInsn((CompareOpcode) ref);
+            case JUMP:
+                return Instructions.jumpInsn(JUMP_OPCODES[(int) operand], (Position) ref);
+            case JUMP_IF_EQUALS:
+                return Instructions.jumpIfEqualsInsn(STRATEGIES[(int) (operand >> 1)], (Position) ref,
+                        (operand & 1) != 0);
+            case NEW_ARRAY:
+                return Instructions.newArrayInsn((TypeName) ref, (int) operand);
+        }
+    }
+
+    @Override
+    public String toString() {
+        val result = new StringBuilder("[");
+
+        for (int i = 0; i < size; i++) {
+            if (i != 0) result.append(", ");
+            result.append(get(i));
+        }
+
+        return result.append(']').toString();
+    }
+
+}
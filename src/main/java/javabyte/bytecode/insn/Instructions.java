@@ -28,6 +28,7 @@ import javabyte.bytecode.SimpleInstructionSet;
 import javabyte.bytecode.StackItem;
 import javabyte.bytecode.branch.CaseBranch;
 import javabyte.bytecode.branch.LoopBranch;
+import javabyte.hierarchy.Hierarchies;
 import javabyte.opcode.CompareOpcode;
 import javabyte.opcode.FieldOpcode;
 import javabyte.opcode.JumpOpcode;
@@ -47,17 +48,18 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.UtilityClass;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Label;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.Consumer;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static javabyte.bytecode.Bytecode.INT;
@@ -102,6 +104,12 @@ import static org.objectweb.asm.Opcodes.SWAP;
 public final class Instructions {
 
     public @NotNull Instruction newArrayInsn(final @NonNull TypeName name, final int knownDims) {
+        checkNewArray(name, knownDims);
+
+        return new NewArrayInsn(name, knownDims);
+    }
+
+    void checkNewArray(final TypeName name, final int knownDims) {
         if (!name.isArray()) {
             throw new IllegalArgumentException("Name should be an array");
         }
@@ -109,8 +117,10 @@ public final class Instructions {
         if (knownDims > name.getDimensions()) {
             throw new IllegalArgumentException("knownDims > array.getDimensions");
         }
+    }
 
-        return new NewArrayInsn(name, knownDims);
+    public @NotNull Instruction nopInsn() {
+        return NopInsn.INSTANCE;
     }
 
     public @NotNull Instruction throwInsn() {
@@ -215,14 +225,14 @@ public final class Instructions {
 
     public @NotNull StringsSwitchInsn stringsSwitchInsn(final @NonNull InstructionSet parent) {
         return new StringsSwitchInsnImpl(
-                parent, new HashMap<>(),
+                parent, new LinkedHashMap<>(),
                 CaseBranchImpl.create(new Label(), parent), new Label()
         );
     }
 
     public @NotNull IntsSwitchInsn intsSwitchInsn(final @NonNull InstructionSet parent) {
         return new IntsSwitchInsnImpl(
-                parent, new HashMap<>(),
+                parent, new LinkedHashMap<>(),
                 CaseBranchImpl.create(new Label(), parent), new Label()
         );
     }
@@ -250,10 +260,382 @@ public final class Instructions {
     public @NotNull IterateOverInsn iterateOverInsn(final @NonNull InstructionSet parent) {
         return new IterateOverInsnImpl(
                 Bytecode.index(),
-                new LoopBranchImpl(parent, new ArrayList<>(), new Label(), new Label(), new Label())
+                new LoopBranchImpl(parent, InstructionStream.create(), new Label(), new Label(), new Label())
         );
     }
 
+    void compileNewArray(final CompileContext ctx, final TypeName name, final int knownDims) {
+        val mv = ctx.getMethodVisitor();
+
+        val stack = ctx.getStack();
+        stack.ensure(INT, knownDims);
+
+        for (int i = 0; i < knownDims; i++) {
+            stack.pop();
+        }
+
+        val component = name.getComponent();
+        val arrayCode = arrayCode(name, component);
+
+        if (arrayCode == 0 || (arrayCode == 1 && knownDims == 1)) {
+            mv.visitTypeInsn(ANEWARRAY, component.getInternalName());
+        } else if (arrayCode == 1) {
+            mv.visitMultiANewArrayInsn(name.getInternalName(), knownDims);
+        } else {
+            mv.visitIntInsn(NEWARRAY, arrayCode);
+        }
+
+        stack.push(name);
+    }
+
+    void compileStoreLocal(final CompileContext ctx, final LocalIndex index) {
+        val stack = ctx.getStack();
+
+        val item = stack.pop();
+        val itemType = item.getType();
+
+        val local = index.isInitialized()
+                ? ctx.replaceLocal(index, itemType)
+                : ctx.pushLocal(index, itemType);
+
+        ctx.getMethodVisitor().visitVarInsn(itemType.toType().getOpcode(ISTORE), local.getOffset());
+    }
+
+    void compileLoadLocal(final CompileContext ctx, final LocalIndex index) {
+        val stack = ctx.getStack();
+
+        val local = ctx.getLocal(index);
+        val localName = local.getName();
+        val localType = localName.toType();
+
+        stack.push(localName);
+        ctx.getMethodVisitor().visitVarInsn(localType.getOpcode(ILOAD), local.getOffset());
+    }
+
+    void compileCompare(final CompileContext ctx, final CompareOpcode opcode) {
+        val stack = ctx.getStack();
+
+        final StackItem type;
+
+        switch (opcode) {
+            default:
+            case LCMP:
+                type = Bytecode.LONG;
+                break;
+            case FCMPL: case FCMPG:
+                type = Bytecode.FLOAT;
+                break;
+            case DCMPL: case DCMPG:
+                type = Bytecode.DOUBLE;
+                break;
+        }
+
+        stack.ensure(type, 2);
+        stack.pop();
+        stack.pop();
+        ctx.getMethodVisitor().visitInsn(opcode.getOpcode());
+        stack.push(Types.INT);
+    }
+
+    void compileMath(final CompileContext ctx, final MathOpcode opcode) {
+        val stack = ctx.getStack();
+
+        final StackItem type;
+        final StackItem operand;
+
+        switch (opcode) {
+            default:
+            case IADD: case ISUB: case IMUL: case IDIV: case IREM:
+            case ISHL: case ISHR: case IUSHR: case IAND: case IOR: case IXOR:
+                type = operand = Bytecode.INT;
+                break;
+            case LADD: case LSUB: case LMUL: case LDIV: case LREM:
+            case LAND: case LOR: case LXOR:
+                type = operand = Bytecode.LONG;
+                break;
+            case LSHL: case LSHR: case LUSHR:
+                type = Bytecode.LONG;
+                operand = Bytecode.INT;
+                break;
+            case FADD: case FSUB: case FMUL: case FDIV: case FREM:
+                type = operand = Bytecode.FLOAT;
+                break;
+            case DADD: case DSUB: case DMUL: case DDIV: case DREM:
+                type = operand = Bytecode.DOUBLE;
+                break;
+            case INEG:
+                type = Bytecode.INT;
+                operand = null;
+                break;
+            case LNEG:
+                type = Bytecode.LONG;
+                operand = null;
+                break;
+            case FNEG:
+                type = Bytecode.FLOAT;
+                operand = null;
+                break;
+            case DNEG:
+                type = Bytecode.DOUBLE;
+                operand = null;
+                break;
+        }
+
+        if (operand != null) {
+            stack.ensure(operand, type);
+            stack.pop();
+        } else {
+            stack.ensure(type);
+        }
+
+        stack.pop();
+        ctx.getMethodVisitor().visitInsn(opcode.getOpcode());
+        stack.push(type);
+    }
+
+    void compileJumpIfEquals(
+            final CompileContext ctx,
+            final EqualityStrategy strategy,
+            final Position position,
+            final boolean inverted
+    ) {
+        val stack = ctx.getStack();
+
+        val firstItem = stack.pop();
+        val secondItem = stack.pop();
+
+        val first = firstItem.getType();
+        val second = secondItem.getType();
+
+        val mv = ctx.getMethodVisitor();
+
+        if (first.isPrimitive() && second.isPrimitive()) {
+            ctx.callCast(second, first);
+
+            final int INT_JUMP = inverted ? IF_ICMPNE : IF_ICMPEQ;
+            final int JUMP = inverted ? IFNE : IFEQ;
+
+            if (firstItem.equals(Bytecode.INT)) {
+                position.jump(mv, INT_JUMP);
+            } else if (firstItem.equals(Bytecode.LONG)) {
+                mv.visitInsn(LCMP);
+                position.jump(mv, JUMP);
+            } else if (firstItem.equals(Bytecode.FLOAT)) {
+                mv.visitInsn(FCMPL);
+                position.jump(mv, JUMP);
+            } else if (firstItem.equals(Bytecode.DOUBLE)) {
+                mv.visitInsn(DCMPL);
+                position.jump(mv, JUMP);
+            }
+        } else if (!first.isPrimitive() && !second.isPrimitive()) {
+            if (strategy == EqualityStrategy.CONTENTS && first.isArray() && second.isArray()) {
+                val cmpf = first.getComponent();
+                val cmps = second.getComponent();
+
+                if (cmpf.isPrimitive() && cmps.isPrimitive() && !cmps.equals(cmpf)) {
+                    throw new IllegalStateException("Cannot compare two primitive arrays with types "
+                            + cmpf + " and " + cmps);
+                }
+
+                if (cmpf.isPrimitive() != cmps.isPrimitive()) {
+                    throw new IllegalStateException("Cannot compare two arrays, "
+                            + "because one of them is primitive and second is not: "
+                            + cmpf + " ~ " + cmps);
+                }
+
+                if (cmpf.isPrimitive()) {
+                    val descriptor = "([" + cmpf.getDescriptor() + "[" + cmps.getDescriptor() + ")Z";
+
+                    mv.visitMethodInsn(
+                            INVOKESTATIC,
+                            "java/util/Arrays",
+                            "equals", descriptor, false
+                    );
+                } else {
+                    val name = cmpf.isArray() && cmps.isArray() ? "deepEquals" : "equals";
+
+                    mv.visitMethodInsn(
+                            INVOKESTATIC,
+                            "java/util/Arrays",
+                            name, "([Ljava/lang/Object;[Ljava/lang/Object;)Z", false
+                    );
+                }
+            } else if (strategy == EqualityStrategy.REF) {
+                position.jump(mv, inverted ? IF_ACMPNE : IF_ACMPEQ);
+                return;
+            } else if (strategy == EqualityStrategy.SAFE){
+                mv.visitMethodInsn(
+                        INVOKESTATIC,
+                        "java/util/Objects",
+                        "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false
+                );
+            } else {
+                mv.visitMethodInsn(
+                        INVOKEVIRTUAL,
+                        "java/lang/Object",
+                        "equals", "(Ljava/lang/Object;)Z", false
+                );
+            }
+
+            stack.push(Types.INT);
+            stack.pop();
+            position.jump(mv, inverted ? IFEQ : IFNE);
+        } else {
+            throw new IllegalStateException("Cannot compare " + first + " and " + second);
+        }
+    }
+
+    void compileJump(final CompileContext ctx, final JumpOpcode opcode, final Position position) {
+        val stack = ctx.getStack();
+
+        switch (opcode) {
+            case IF_ICMPEQ:
+            case IF_ICMPNE:
+            case IF_ICMPLT:
+            case IF_ICMPGE:
+            case IF_ICMPGT:
+            case IF_ICMPLE:
+            case IF_ACMPEQ:
+            case IF_ACMPNE:
+                stack.ensureSize(2);
+                stack.pop();
+                stack.pop();
+                break;
+            case IFEQ:
+            case IFNE:
+            case IFLT:
+            case IFGE:
+            case IFGT:
+            case IFLE:
+                stack.ensure(Bytecode.INT);
+                stack.pop();
+                break;
+            case IFNULL:
+            case IFNONNULL:
+                stack.ensure(Bytecode.REF);
+                stack.pop();
+                break;
+        }
+
+        ctx.jump(opcode.getOpcode(), position);
+    }
+
+    void compilePushDefault(final CompileContext ctx, final TypeName type) {
+        ctx.getStack().push(type);
+
+        if (type.isPrimitive()) {
+            switch (type.getPrimitive()) {
+                default:
+                    ctx.visitInt(0);
+                    break;
+                case Types.FLOAT_TYPE:
+                    ctx.visitFloat(0);
+                    break;
+                case Types.DOUBLE_TYPE:
+                    ctx.visitDouble(0);
+                    break;
+                case Types.LONG_TYPE:
+                    ctx.visitLong(0);
+                    break;
+            }
+        } else {
+            ctx.visitNull();
+        }
+    }
+
+    void compileInstanceOf(final CompileContext ctx, final TypeName name) {
+        val stack = ctx.getStack();
+        stack.ensure(REF);
+        stack.pop();
+
+        val mv = ctx.getMethodVisitor();
+        mv.visitTypeInsn(INSTANCEOF, name.getInternalName());
+
+        stack.push(INT);
+    }
+
+    void compileCast(final CompileContext ctx, final TypeName name) {
+        compileCast(ctx, name, false);
+    }
+
+    void compileCast(final CompileContext ctx, final TypeName name, final boolean elidable) {
+        val stack = ctx.getStack();
+        stack.ensureSize(1);
+
+        val from = stack.pop().getType();
+
+        if (!elidable || from.isPrimitive() || name.isPrimitive() || !_isAssignable(ctx, name, from)) {
+            ctx.callCast(from, name);
+        }
+
+        stack.push(name);
+    }
+
+    private boolean _isAssignable(final CompileContext ctx, final TypeName to, final TypeName from) {
+        val type = ctx.getExecutable().getDeclaringClass();
+        val hierarchy = Hierarchies.chain(Hierarchies.ofMakeClass(type), type.getHierarchy());
+
+        return Hierarchies.isAssignable(hierarchy, to.getInternalName(), from.getInternalName());
+    }
+
+    void compileVisit(final CompileContext ctx, final Position position) {
+        position.visit(ctx.getMethodVisitor());
+    }
+
+    void compilePushString(final CompileContext ctx, final String value) {
+        ctx.getStack().push(Types.STRING);
+        ctx.visitString(value);
+    }
+
+    void compilePushFloat(final CompileContext ctx, final float value) {
+        ctx.getStack().push(Bytecode.FLOAT);
+        ctx.visitFloat(value);
+    }
+
+    void compilePushDouble(final CompileContext ctx, final double value) {
+        ctx.getStack().push(Bytecode.DOUBLE);
+        ctx.visitDouble(value);
+    }
+
+    void compilePushInt(final CompileContext ctx, final int value) {
+        ctx.getStack().push(Bytecode.INT);
+        ctx.visitInt(value);
+    }
+
+    void compilePushLong(final CompileContext ctx, final long value) {
+        ctx.getStack().push(Bytecode.LONG);
+        ctx.visitLong(value);
+    }
+
+    private int arrayCode(final TypeName name, final TypeName componentType) {
+        if (componentType.isArray())
+            return 1;
+
+        if (!componentType.isPrimitive())
+            return 0;
+
+        switch (componentType.getPrimitive()) {
+            case Types.BOOL_TYPE:
+                return 4;
+            case Types.CHAR_TYPE:
+                return 5;
+            case Types.FLOAT_TYPE:
+                return 6;
+            case Types.DOUBLE_TYPE:
+                return 7;
+            case Types.BYTE_TYPE:
+                return 8;
+            case Types.SHORT_TYPE:
+                return 9;
+            case Types.INT_TYPE:
+                return 10;
+            case Types.LONG_TYPE:
+                return 11;
+            default:
+                throw new IllegalArgumentException("Cannot create array: " + name);
+        }
+    }
+
     @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class InitInsnImpl implements InitInsn {
@@ -273,8 +655,9 @@ public final class Instructions {
 
             val mv = ctx.getMethodVisitor();
 
-            stack.push(Types.OBJECT);
-            stack.push(Types.OBJECT);
+            val uninitialized = Bytecode.uninitialized(type);
+            stack.push(uninitialized);
+            stack.push(uninitialized);
 
             mv.visitTypeInsn(NEW, type.getInternalName());
             mv.visitInsn(DUP);
@@ -374,61 +757,12 @@ public final class Instructions {
         TypeName name;
         int knownDims;
 
-        private int arrayCode(final TypeName componentType) {
-            if (componentType.isArray())
-                return 1;
-
-            if (!componentType.isPrimitive())
-                return 0;
-
-            switch (componentType.getPrimitive()) {
-                case Types.BOOL_TYPE:
-                    return 4;
-                case Types.CHAR_TYPE:
-                    return 5;
-                case Types.FLOAT_TYPE:
-                    return 6;
-                case Types.DOUBLE_TYPE:
-                    return 7;
-                case Types.BYTE_TYPE:
-                    return 8;
-                case Types.SHORT_TYPE:
-                    return 9;
-                case Types.INT_TYPE:
-                    return 10;
-                case Types.LONG_TYPE:
-                    return 11;
-                default:
-                    throw new IllegalArgumentException("Cannot create array: " + name);
-            }
-        }
-
         /**
          * http://hg.openjdk.java.net/jdk8/jdk8/langtools/file/30db5e0aaf83/src/share/classes/com/sun/tools/javac/jvm/Gen.java#l1750
          */
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val mv = ctx.getMethodVisitor();
-
-            val stack = ctx.getStack();
-            stack.ensure(INT, knownDims);
-
-            for (int i = 0; i < knownDims; i++) {
-                stack.pop();
-            }
-
-            val component = name.getComponent();
-            val arrayCode = arrayCode(component);
-
-            if (arrayCode == 0 || (arrayCode == 1 && knownDims == 1)) {
-                mv.visitTypeInsn(ANEWARRAY, component.getInternalName());
-            } else if (arrayCode == 1) {
-                mv.visitMultiANewArrayInsn(name.getInternalName(), knownDims);
-            } else {
-                mv.visitIntInsn(NEWARRAY, arrayCode);
-            }
-
-            stack.push(name);
+            compileNewArray(ctx, name, knownDims);
         }
 
         @Override
@@ -446,16 +780,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-
-            val item = stack.pop();
-            val itemType = item.getType();
-
-            val local = index.isInitialized()
-                    ? ctx.replaceLocal(index, itemType)
-                    : ctx.pushLocal(index, itemType);
-
-            ctx.getMethodVisitor().visitVarInsn(itemType.toType().getOpcode(ISTORE), local.getOffset());
+            compileStoreLocal(ctx, index);
         }
 
         @Override
@@ -472,14 +797,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-
-            val local = ctx.getLocal(index);
-            val localName = local.getName();
-            val localType = localName.toType();
-
-            ctx.getMethodVisitor().visitVarInsn(localType.getOpcode(ILOAD), local.getOffset());
-            stack.push(localName);
+            compileLoadLocal(ctx, index);
         }
 
         @Override
@@ -497,28 +815,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-
-            final StackItem type;
-
-            switch (opcode) {
-                default:
-                case LCMP:
-                    type = Bytecode.LONG;
-                    break;
-                case FCMPL: case FCMPG:
-                    type = Bytecode.FLOAT;
-                    break;
-                case DCMPL: case DCMPG:
-                    type = Bytecode.DOUBLE;
-                    break;
-            }
-
-            stack.ensure(type, 2);
-            stack.pop();
-            stack.pop();
-            ctx.getMethodVisitor().visitInsn(opcode.getOpcode());
-            stack.push(Types.INT);
+            compileCompare(ctx, opcode);
         }
 
         @Override
@@ -535,36 +832,27 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
+            compileMath(ctx, opcode);
+        }
 
-            final StackItem type;
+        @Override
+        public String toString() {
+            return "[" + opcode + "]";
+        }
+    }
 
-            switch (opcode) {
-                default:
-                case IADD: case ISUB: case IMUL: case IDIV: case IREM: case INEG:
-                    type = Bytecode.INT;
-                    break;
-                case LADD: case LSUB: case LMUL: case LDIV: case LREM: case LNEG:
-                    type = Bytecode.LONG;
-                    break;
-                case FADD: case FSUB: case FMUL: case FDIV: case FREM: case FNEG:
-                    type = Bytecode.FLOAT;
-                    break;
-                case DADD: case DSUB: case DMUL: case DDIV: case DREM: case DNEG:
-                    type = Bytecode.DOUBLE;
-                    break;
-            }
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class NopInsn implements Instruction {
 
-            stack.ensure(type, type);
-            stack.pop();
-            stack.pop();
-            ctx.getMethodVisitor().visitInsn(opcode.getOpcode());
-            stack.push(type);
+        public static Instruction INSTANCE = new NopInsn();
+
+        @Override
+        public void compile(final @NonNull CompileContext ctx) {
         }
 
         @Override
         public String toString() {
-            return "[" + opcode + "]";
+            return "[NOP]";
         }
     }
 
@@ -652,7 +940,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            position.visit(ctx.getMethodVisitor());
+            compileVisit(ctx, position);
         }
 
         @Override
@@ -671,90 +959,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-
-            val firstItem = stack.pop();
-            val secondItem = stack.pop();
-
-            val first = firstItem.getType();
-            val second = secondItem.getType();
-
-            val mv = ctx.getMethodVisitor();
-
-            if (first.isPrimitive() && second.isPrimitive()) {
-                ctx.callCast(second, first);
-
-                final int INT_JUMP = inverted ? IF_ICMPNE : IF_ICMPEQ;
-                final int JUMP = inverted ? IFNE : IFEQ;
-
-                if (firstItem.equals(Bytecode.INT)) {
-                    position.jump(mv, INT_JUMP);
-                } else if (firstItem.equals(Bytecode.LONG)) {
-                    mv.visitInsn(LCMP);
-                    position.jump(mv, JUMP);
-                } else if (firstItem.equals(Bytecode.FLOAT)) {
-                    mv.visitInsn(FCMPL);
-                    position.jump(mv, JUMP);
-                } else if (firstItem.equals(Bytecode.DOUBLE)) {
-                    mv.visitInsn(DCMPL);
-                    position.jump(mv, JUMP);
-                }
-            } else if (!first.isPrimitive() && !second.isPrimitive()) {
-                if (strategy == EqualityStrategy.CONTENTS && first.isArray() && second.isArray()) {
-                    val cmpf = first.getComponent();
-                    val cmps = second.getComponent();
-
-                    if (cmpf.isPrimitive() && cmps.isPrimitive() && !cmps.equals(cmpf)) {
-                        throw new IllegalStateException("Cannot compare two primitive arrays with types "
-                                + cmpf + " and " + cmps);
-                    }
-
-                    if (cmpf.isPrimitive() != cmps.isPrimitive()) {
-                        throw new IllegalStateException("Cannot compare two arrays, "
-                                + "because one of them is primitive and second is not: "
-                                + cmpf + " ~ " + cmps);
-                    }
-
-                    if (cmpf.isPrimitive()) {
-                        val descriptor = "([" + cmpf.getDescriptor() + "[" + cmps.getDescriptor() + ")Z";
-
-                        mv.visitMethodInsn(
-                                INVOKESTATIC,
-                                "java/util/Arrays",
-                                "equals", descriptor, false
-                        );
-                    } else {
-                        val name = cmpf.isArray() && cmps.isArray() ? "deepEquals" : "equals";
-
-                        mv.visitMethodInsn(
-                                INVOKESTATIC,
-                                "java/util/Arrays",
-                                name, "([Ljava/lang/Object;[Ljava/lang/Object;)Z", false
-                        );
-                    }
-                } else if (strategy == EqualityStrategy.REF) {
-                    position.jump(mv, inverted ? IF_ACMPNE : IF_ACMPEQ);
-                    return;
-                } else if (strategy == EqualityStrategy.SAFE){
-                    mv.visitMethodInsn(
-                            INVOKESTATIC,
-                            "java/util/Objects",
-                            "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false
-                    );
-                } else {
-                    mv.visitMethodInsn(
-                            INVOKEVIRTUAL,
-                            "java/lang/Object",
-                            "equals", "(Ljava/lang/Object;)Z", false
-                    );
-                }
-
-                stack.push(Types.INT);
-                position.jump(mv, inverted ? IFEQ : IFNE);
-                stack.pop();
-            } else {
-                throw new IllegalStateException("Cannot compare " + first + " and " + second);
-            }
+            compileJumpIfEquals(ctx, strategy, position, inverted);
         }
 
         @Override
@@ -772,38 +977,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-
-            switch (opcode) {
-                case IF_ICMPEQ:
-                case IF_ICMPNE:
-                case IF_ICMPLT:
-                case IF_ICMPGE:
-                case IF_ICMPGT:
-                case IF_ICMPLE:
-                case IF_ACMPEQ:
-                case IF_ACMPNE:
-                    stack.ensureSize(2);
-                    stack.pop();
-                    stack.pop();
-                    break;
-                case IFEQ:
-                case IFNE:
-                case IFLT:
-                case IFGE:
-                case IFGT:
-                case IFLE:
-                    stack.ensure(Bytecode.INT);
-                    stack.pop();
-                    break;
-                case IFNULL:
-                case IFNONNULL:
-                    stack.ensure(Bytecode.REF);
-                    stack.pop();
-                    break;
-            }
-
-            ctx.jump(opcode.getOpcode(), position);
+            compileJump(ctx, opcode, position);
         }
 
         @Override
@@ -823,7 +997,7 @@ public final class Instructions {
 
         protected LoopBranchImpl(
                 final InstructionSet parent,
-                final List<Instruction> instructions,
+                final InstructionStream instructions,
                 final Label continueLoop,
                 final Label insideLoop,
                 final Label afterLoop
@@ -838,12 +1012,12 @@ public final class Instructions {
 
         @Override
         public void callContinue() {
-            _callInsn(Instructions.jumpInsn(JumpOpcode.GOTO, getContinue()));
+            _stream().jump(JumpOpcode.GOTO, getContinue());
         }
 
         @Override
         public void callBreak() {
-            _callInsn(Instructions.jumpInsn(JumpOpcode.GOTO, getBreak()));
+            _stream().jump(JumpOpcode.GOTO, getBreak());
         }
 
         @Override
@@ -901,7 +1075,7 @@ public final class Instructions {
 
     @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-    private static final class IterateOverInsnImpl implements IterateOverInsn {
+    private static final class IterateOverInsnImpl implements IterateOverInsn, CompositeInstruction {
 
         @Getter
         final LocalIndex elementLocal;
@@ -916,6 +1090,11 @@ public final class Instructions {
 
         LocalIndex iterableIndex;
 
+        @Override
+        public @NotNull List<@NotNull InstructionSet> getInstructionSets() {
+            return Collections.singletonList(body);
+        }
+
         @Override
         public void compile(final @NonNull CompileContext ctx) {
             final TypeName iterable;
@@ -932,8 +1111,8 @@ public final class Instructions {
                 iterableIndex = Bytecode.index();
 
                 if (iterable.isArray() || lengthLocal != null) {
-                    ctx.pushLocal(iterableIndex, iterable);
-                    mv.visitVarInsn(ASTORE, iterableIndex.getValue());
+                    val iterableLocal = ctx.pushLocal(iterableIndex, iterable);
+                    mv.visitVarInsn(ASTORE, iterableLocal.getOffset());
                 }
             }
 
@@ -952,7 +1131,7 @@ public final class Instructions {
                         : ctx.pushLocal(Types.INT);
 
                 stack.push(iterable);
-                mv.visitVarInsn(ALOAD, iterableIndex.getValue());
+                mv.visitVarInsn(ALOAD, ctx.getLocal(iterableIndex).getOffset());
                 stack.pop();
                 stack.push(Types.INT);
                 mv.visitInsn(ARRAYLENGTH);
@@ -973,7 +1152,7 @@ public final class Instructions {
                 stack.push(iterable);
                 stack.push(Types.INT);
 
-                mv.visitVarInsn(ALOAD, iterableIndex.getValue());
+                mv.visitVarInsn(ALOAD, ctx.getLocal(iterableIndex).getOffset());
                 mv.visitVarInsn(ILOAD, counter.getOffset());
 
                 stack.pop();
@@ -996,12 +1175,13 @@ public final class Instructions {
 
                 body.compile(ctx);
 
-                ctx.popLocal(); // position
-                ctx.popLocal(); // length
-                ctx.popLocal(); // element
-
                 mv.visitLabel(body.continueLoop);
                 mv.visitIincInsn(counter.getOffset(), 1);
+                mv.visitJumpInsn(GOTO, body.insideLoop);
+
+                ctx.popLocal(); // element
+                ctx.popLocal(); // length
+                ctx.popLocal(); // position
             } else {
                 val counter = counterLocal != null
                         ? ctx.pushLocal(counterLocal, Types.INT)
@@ -1014,6 +1194,7 @@ public final class Instructions {
                 if (counter != null) {
                     stack.push(Types.INT);
                     ctx.visitInt(0);
+                    stack.pop();
                     mv.visitVarInsn(ISTORE, counter.getOffset());
                 }
 
@@ -1053,11 +1234,13 @@ public final class Instructions {
                         Signatures.methodSignature(Types.ITERATOR)
                 );
 
-                ctx.pushLocal(iteratorIndex, Types.ITERABLE);
-                mv.visitVarInsn(ASTORE, iteratorIndex.getValue());
+                stack.pop();
+
+                val iterator = ctx.pushLocal(iteratorIndex, Types.ITERATOR);
+                mv.visitVarInsn(ASTORE, iterator.getOffset());
 
                 mv.visitLabel(body.insideLoop);
-                mv.visitVarInsn(ALOAD, iteratorIndex.getValue());
+                mv.visitVarInsn(ALOAD, iterator.getOffset());
 
                 mv.visitMethodInsn(
                         INVOKEINTERFACE,
@@ -1067,7 +1250,7 @@ public final class Instructions {
                 );
 
                 mv.visitJumpInsn(IFEQ, body.afterLoop);
-                mv.visitVarInsn(ALOAD, iteratorIndex.getValue());
+                mv.visitVarInsn(ALOAD, iterator.getOffset());
 
                 mv.visitMethodInsn(
                         INVOKEINTERFACE,
@@ -1076,28 +1259,32 @@ public final class Instructions {
                         true
                 );
 
+                final Local element;
+
                 if (elementType != null) {
                     mv.visitTypeInsn(CHECKCAST, elementType.getInternalName());
-                    ctx.pushLocal(elementLocal, elementType);
+                    element = ctx.pushLocal(elementLocal, elementType);
                 } else {
-                    ctx.pushLocal(elementLocal, Types.OBJECT);
+                    element = ctx.pushLocal(elementLocal, Types.OBJECT);
                 }
 
-                mv.visitVarInsn(ASTORE, elementLocal.getValue());
+                mv.visitVarInsn(ASTORE, element.getOffset());
                 body.compile(ctx);
 
-                if (counter != null) ctx.popLocal(); // counter
-                ctx.popLocal(); // iterator
-                ctx.popLocal(); // element
-
                 mv.visitLabel(body.continueLoop);
 
                 if (counter != null) {
                     mv.visitIincInsn(counter.getOffset(), 1);
                 }
+
+                mv.visitJumpInsn(GOTO, body.insideLoop);
+
+                ctx.popLocal(); // element
+                ctx.popLocal(); // iterator
+                if (length != null) ctx.popLocal(); // length
+                if (counter != null) ctx.popLocal(); // counter
             }
 
-            mv.visitJumpInsn(GOTO, body.insideLoop);
             mv.visitLabel(body.afterLoop);
         }
 
@@ -1160,7 +1347,7 @@ public final class Instructions {
         InstructionSet parent;
 
         private CaseBranchImpl(
-                final List<Instruction> instructions,
+                final InstructionStream instructions,
                 final Label label,
                 final Label endLabel,
                 final InstructionSet parent
@@ -1174,7 +1361,7 @@ public final class Instructions {
         }
 
         private static CaseBranchImpl create(final Label endLabel, final InstructionSet parent) {
-            return new CaseBranchImpl(new ArrayList<>(), new Label(), endLabel, parent);
+            return new CaseBranchImpl(InstructionStream.create(), new Label(), endLabel, parent);
         }
 
         @Override
@@ -1185,7 +1372,7 @@ public final class Instructions {
 
         @Override
         public void callBreak() {
-            _callInsn(Instructions.jumpInsn(JumpOpcode.GOTO, getBreak()));
+            _stream().jump(JumpOpcode.GOTO, getBreak());
         }
 
         @Override
@@ -1196,11 +1383,20 @@ public final class Instructions {
 
     @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
     @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
-    private static abstract class AbstractSwitchInsn<T> implements SwitchInsn {
+    private static abstract class AbstractSwitchInsn<T> implements SwitchInsn, CompositeInstruction {
         Map<T, CaseBranchImpl> branches;
         CaseBranchImpl defaultBranch;
         Label endLabel;
 
+        @Override
+        public @NotNull List<@NotNull InstructionSet> getInstructionSets() {
+            val result = new ArrayList<InstructionSet>(branches.size() + 1);
+            result.addAll(branches.values());
+            result.add(defaultBranch);
+
+            return result;
+        }
+
         @Override
         public @NotNull CaseBranch defaultBranch() {
             return defaultBranch;
@@ -1442,13 +1638,13 @@ public final class Instructions {
                             : hashBranches[counter++];
                 }
 
+                stack.pop();
                 mv.visitTableSwitchInsn(lo, hi, endFirstSwitchLabel, table);
             } else {
+                stack.pop();
                 mv.visitLookupSwitchInsn(endFirstSwitchLabel, hashArray, hashBranches);
             }
 
-            stack.pop();
-
             int hashCounter = 0;
             int counter = 0;
 
@@ -1500,8 +1696,6 @@ public final class Instructions {
             mv.visitLabel(endFirstSwitchLabel);
             mv.visitVarInsn(ILOAD, switchIndexLocal.getOffset());
 
-            stack.push(Types.INT);
-
             if (nLabels > 1) {
                 val branches = new Label[nLabels];
 
@@ -1523,8 +1717,6 @@ public final class Instructions {
                         new Label[]{firstBranch});
             }
 
-            stack.pop();
-
             ctx.popLocal(); // pop index
             ctx.popLocal(); // pop item
 
@@ -1556,6 +1748,21 @@ public final class Instructions {
             return this;
         }
 
+        @Override
+        public @NotNull StringsSwitchImplementation getImpl() {
+            return impl;
+        }
+
+        @Override
+        public @Nullable LocalIndex getSource() {
+            return source;
+        }
+
+        @Override
+        public @NotNull Map<@NotNull String, @NotNull CaseBranch> getBranches() {
+            return Collections.unmodifiableMap(branches);
+        }
+
         @Override
         public @NotNull CaseBranch branch(final @NonNull String value) {
             return branches.computeIfAbsent(value, __ -> CaseBranchImpl.create(endLabel, parent));
@@ -1663,6 +1870,16 @@ public final class Instructions {
             return this;
         }
 
+        @Override
+        public @Nullable LocalIndex getSource() {
+            return source;
+        }
+
+        @Override
+        public @NotNull Map<@NotNull Integer, @NotNull CaseBranch> getBranches() {
+            return Collections.unmodifiableMap(branches);
+        }
+
         @Override
         public @NotNull CaseBranch branch(final int value) {
             return branches.computeIfAbsent(value, __ -> CaseBranchImpl.create(endLabel, parent));
@@ -1684,18 +1901,37 @@ public final class Instructions {
         }
     }
 
+    private enum OwnerKind {
+        GIVEN,
+        CURRENT,
+        SUPER;
+
+        private TypeName resolve(final CompileContext ctx, final TypeName owner) {
+            switch (this) {
+                default:
+                case GIVEN:
+                    return owner;
+                case CURRENT:
+                    return ctx.getExecutable().getDeclaringClass().getName();
+                case SUPER:
+                    return ctx.getExecutable().getDeclaringClass().getSuperName();
+            }
+        }
+    }
+
     @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class FieldInsnImpl implements FieldInsn {
         final String name;
         final FieldOpcode opcode;
 
-        Function<CompileContext, TypeName> owner;
+        OwnerKind ownerKind;
+        TypeName owner;
         TypeName descriptor;
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            if (owner == null) {
+            if (ownerKind == null) {
                 throw new IllegalStateException("You should to specify owner using FieldInsn#in method!");
             }
 
@@ -1714,7 +1950,7 @@ public final class Instructions {
             }
 
             ctx.getMethodVisitor().visitFieldInsn(
-                    opcode.getOpcode(), owner.apply(ctx).getInternalName(),
+                    opcode.getOpcode(), ownerKind.resolve(ctx, owner).getInternalName(),
                     name, descriptor.getDescriptor()
             );
 
@@ -1740,18 +1976,26 @@ public final class Instructions {
 
         @Override
         public @NotNull FieldInsn in(final @NonNull TypeName owner) {
-            this.owner = __ -> owner;
+            this.ownerKind = OwnerKind.GIVEN;
+            this.owner = owner;
 
             return this;
         }
 
         @Override
         public @NotNull FieldInsn inCurrent() {
-            this.owner = compile -> compile.getExecutable().getDeclaringClass().getName();
+            this.ownerKind = OwnerKind.CURRENT;
+            this.owner = null;
 
             return this;
         }
 
+        @Override
+        public String toString() {
+            return "[" + opcode + " " + ownerKind + " " + (owner != null ? owner.getInternalName() : null)
+                    + "." + name + " " + (descriptor != null ? descriptor.getDescriptor() : null) + "]";
+        }
+
     }
 
     @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -1760,12 +2004,13 @@ public final class Instructions {
         final String name;
         final MethodOpcode opcode;
 
-        Function<CompileContext, TypeName> owner;
+        OwnerKind ownerKind;
+        TypeName owner;
         MethodSignature descriptor;
 
         @Override
         public void compile(final @NonNull CompileContext compile) {
-            if (owner == null) {
+            if (ownerKind == null) {
                 throw new IllegalStateException("You should to specify owner using MethodInsn#in method!");
             }
 
@@ -1773,7 +2018,7 @@ public final class Instructions {
                 throw new IllegalStateException("You should to specify descriptor using MethodInsn#descriptor method!");
             }
 
-            compile.visitMethodInsn(opcode, owner.apply(compile), name, descriptor);
+            compile.visitMethodInsn(opcode, ownerKind.resolve(compile, owner), name, descriptor);
         }
 
         @Override
@@ -1799,24 +2044,33 @@ public final class Instructions {
 
         @Override
         public @NotNull MethodInsn in(final @NonNull TypeName owner) {
-            this.owner = __ -> owner;
+            this.ownerKind = OwnerKind.GIVEN;
+            this.owner = owner;
 
             return this;
         }
 
         @Override
         public @NotNull MethodInsn inCurrent() {
-            this.owner = compile -> compile.getExecutable().getDeclaringClass().getName();
+            this.ownerKind = OwnerKind.CURRENT;
+            this.owner = null;
 
             return this;
         }
 
         @Override
         public @NotNull MethodInsn inSuper() {
-            this.owner = compile -> compile.getExecutable().getDeclaringClass().getSuperName();
+            this.ownerKind = OwnerKind.SUPER;
+            this.owner = null;
 
             return this;
         }
+
+        @Override
+        public String toString() {
+            return "[" + opcode + " " + ownerKind + " " + (owner != null ? owner.getInternalName() : null)
+                    + "." + name + (descriptor != null ? descriptor.getDescriptor() : null) + "]";
+        }
     }
 
     @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -1939,25 +2193,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(type);
-
-            if (type.isPrimitive()) {
-                switch (type.getPrimitive()) {
-                    default:
-                        ctx.visitInt(0);
-                        break;
-                    case Types.FLOAT_TYPE:
-                        ctx.visitFloat(0);
-                        break;
-                    case Types.DOUBLE_TYPE:
-                        ctx.visitDouble(0);
-                    case Types.LONG_TYPE:
-                        ctx.visitLong(0);
-                        break;
-                }
-            } else {
-                ctx.visitNull();
-            }
+            compilePushDefault(ctx, type);
         }
 
         @Override
@@ -1975,8 +2211,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(Types.STRING);
-            ctx.visitString(value);
+            compilePushString(ctx, value);
         }
 
         @Override
@@ -1994,8 +2229,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(Bytecode.FLOAT);
-            ctx.visitFloat(value);
+            compilePushFloat(ctx, value);
         }
 
         @Override
@@ -2012,8 +2246,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(Bytecode.DOUBLE);
-            ctx.visitDouble(value);
+            compilePushDouble(ctx, value);
         }
 
         @Override
@@ -2030,8 +2263,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(Bytecode.INT);
-            ctx.visitInt(value);
+            compilePushInt(ctx, value);
         }
 
         @Override
@@ -2048,8 +2280,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            ctx.getStack().push(Bytecode.LONG);
-            ctx.visitLong(value);
+            compilePushLong(ctx, value);
         }
 
         @Override
@@ -2126,14 +2357,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-            stack.ensure(REF);
-            stack.pop();
-
-            val mv = ctx.getMethodVisitor();
-            mv.visitTypeInsn(INSTANCEOF, name.getInternalName());
-
-            stack.push(INT);
+            compileInstanceOf(ctx, name);
         }
 
         @Override
@@ -2149,11 +2373,7 @@ public final class Instructions {
 
         @Override
         public void compile(final @NonNull CompileContext ctx) {
-            val stack = ctx.getStack();
-            stack.ensureSize(1);
-
-            ctx.callCast(stack.pop().getType(), name);
-            stack.push(name);
+            compileCast(ctx, name);
         }
 
         @Override
@@ -20,6 +20,8 @@ import javabyte.bytecode.LocalIndex;
 import javabyte.bytecode.branch.CaseBranch;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+
 /**
  * @author whilein
  */
@@ -31,4 +33,12 @@ public interface IntsSwitchInsn extends SwitchInsn {
     @NotNull CaseBranch branch(int value);
     @NotNull CaseBranch branch(int @NotNull ... values);
 
+    /**
+     * Get unmodifiable view of branches in order they are added, values of the same
+     * branch are mapped to the same {@link CaseBranch}.
+     *
+     * @return branches by their values
+     */
+    @NotNull Map<@NotNull Integer, @NotNull CaseBranch> getBranches();
+
 }
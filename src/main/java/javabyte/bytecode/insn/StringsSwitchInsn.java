@@ -21,6 +21,8 @@ import javabyte.bytecode.branch.CaseBranch;
 import javabyte.opcode.StringsSwitchImplementation;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+
 /**
  * @author whilein
  */
@@ -31,4 +33,14 @@ public interface StringsSwitchInsn extends SwitchInsn {
     @NotNull StringsSwitchInsn impl(@NotNull StringsSwitchImplementation impl);
     @NotNull CaseBranch branch(@NotNull String value);
     @NotNull CaseBranch branch(@NotNull String @NotNull ... values);
+
+    @NotNull StringsSwitchImplementation getImpl();
+
+    /**
+     * Get unmodifiable view of branches in order they are added, values of the same
+     * branch are mapped to the same {@link CaseBranch}.
+     *
+     * @return branches by their values
+     */
+    @NotNull Map<@NotNull String, @NotNull CaseBranch> getBranches();
 }
@@ -16,8 +16,10 @@
 
 package javabyte.bytecode.insn;
 
+import javabyte.bytecode.LocalIndex;
 import javabyte.bytecode.branch.CaseBranch;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author whilein
@@ -26,4 +28,11 @@ public interface SwitchInsn extends Instruction {
 
     @NotNull CaseBranch defaultBranch();
 
+    /**
+     * Get local, that is switched, or {@code null}, if value is taken from the stack.
+     *
+     * @return local or {@code null}
+     */
+    @Nullable LocalIndex getSource();
+
 }
@@ -0,0 +1,58 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode.pass;
+
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.make.MakeExecutable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Transformation of instructions, which is applied before instructions are compiled.
+ * <p>
+ * Passes are applied to the copies of instructions of executable and of each nested set
+ * separately, so instructions of executable are not modified by compilation.
+ * <p>
+ * Instructions, that are inserted during compilation by
+ * {@link javabyte.bytecode.InstructionSet#whenCompile(Runnable)}, e.g. by
+ * {@link javabyte.make.MakeClass#addToString()}, are compiled as is, passes aren't applied to them.
+ *
+ * @author whilein
+ */
+public interface InstructionPass {
+
+    /**
+     * Get unique name of this pass, that used to order passes and to enable or disable pass
+     * using {@link javabyte.make.MakeClass#setPassEnabled(String, boolean)}.
+     *
+     * @return name of pass
+     */
+    @NotNull String getName();
+
+    /**
+     * Whether pass is applied, unless it is enabled or disabled in the class using
+     * {@link javabyte.make.MakeClass#setPassEnabled(String, boolean)}.
+     *
+     * @return {@code true} if pass is enabled by default
+     */
+    default boolean isEnabledByDefault() {
+        return false;
+    }
+
+    void apply(@NotNull MakeExecutable executable, @NotNull InstructionStream instructions);
+
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode.pass;
+
+import javabyte.bytecode.InstructionSet;
+import javabyte.make.MakeExecutable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered list of {@link InstructionPass}, which are applied to every executable
+ * of class before compilation.
+ *
+ * @author whilein
+ */
+public interface PassManager {
+
+    @Unmodifiable @NotNull List<@NotNull InstructionPass> getPasses();
+
+    void addFirst(@NotNull InstructionPass pass);
+
+    void addLast(@NotNull InstructionPass pass);
+
+    /**
+     * Add pass right before pass with given name.
+     *
+     * @param name name of existing pass
+     * @param pass new pass
+     * @throws IllegalArgumentException if there is no pass with given name or pass with same name
+     *                                  is already registered
+     */
+    void addBefore(@NotNull String name, @NotNull InstructionPass pass);
+
+    /**
+     * Add pass right after pass with given name.
+     *
+     * @param name name of existing pass
+     * @param pass new pass
+     * @throws IllegalArgumentException if there is no pass with given name or pass with same name
+     *                                  is already registered
+     */
+    void addAfter(@NotNull String name, @NotNull InstructionPass pass);
+
+    boolean remove(@NotNull String name);
+
+    /**
+     * Apply passes, that are enabled in declaring class of executable, to the {@code code}
+     * and all its nested sets.
+     *
+     * @param executable executable
+     * @param code       instructions of executable
+     */
+    void run(@NotNull MakeExecutable executable, @NotNull InstructionSet code);
+
+    @Unmodifiable @NotNull Map<@NotNull String, @NotNull PassTiming> getTimings();
+
+    void resetTimings();
+
+}
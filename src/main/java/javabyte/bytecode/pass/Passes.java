@@ -0,0 +1,1055 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.bytecode.pass;
+
+import javabyte.bytecode.InstructionSet;
+import javabyte.bytecode.LocalIndex;
+import javabyte.bytecode.insn.CompositeInstruction;
+import javabyte.bytecode.insn.FieldInsn;
+import javabyte.bytecode.insn.InitInsn;
+import javabyte.bytecode.insn.InstructionKind;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.insn.MethodInsn;
+import javabyte.make.MakeExecutable;
+import javabyte.opcode.CompareOpcode;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import javabyte.type.TypeName;
+import javabyte.type.Types;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class Passes {
+
+    public final String CONSTANT_FOLDING = "constantFolding";
+    public final String DEAD_CODE = "deadCode";
+    public final String PEEPHOLE = "peephole";
+
+    /**
+     * Create new empty pass manager.
+     *
+     * @return new pass manager
+     */
+    public @NotNull PassManager manager() {
+        return new PassManagerImpl(new CopyOnWriteArrayList<>(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Get pass, which evaluates arithmetic, casts between {@code int}, {@code long}, {@code float}
+     * and {@code double}, comparisons and conditional jumps on constant operands. Integer
+     * division by zero is never folded.
+     * <p>
+     * Pass is disabled by default, use {@link javabyte.make.MakeClass#setPassEnabled(String, boolean)}
+     * with {@link #CONSTANT_FOLDING} to enable it.
+     *
+     * @return constant folding pass
+     */
+    public @NotNull InstructionPass constantFolding() {
+        return ConstantFoldingPass.INSTANCE;
+    }
+
+    /**
+     * Get pass, which removes instructions between unconditional jump, return or throw and
+     * the next visited position, and jumps to the position, which is visited right after the jump.
+     * <p>
+     * Pass is disabled by default, use {@link javabyte.make.MakeClass#setPassEnabled(String, boolean)}
+     * with {@link #DEAD_CODE} to enable it.
+     *
+     * @return dead code elimination pass
+     */
+    public @NotNull InstructionPass deadCodeElimination() {
+        return DeadCodePass.INSTANCE;
+    }
+
+    /**
+     * Get pass, which removes redundant instruction pairs: boxing followed by unboxing,
+     * {@code dup} or value push followed by {@code pop}, {@code swap} pairs, repeated casts
+     * and store of temporary local, which is loaded right after. Casts to the type, which is
+     * proven by the stack during compilation, are omitted.
+     * <p>
+     * Pass is disabled by default, use {@link javabyte.make.MakeClass#setPassEnabled(String, boolean)}
+     * with {@link #PEEPHOLE} to enable it.
+     *
+     * @return peephole pass
+     */
+    public @NotNull InstructionPass peephole() {
+        return PeepholePass.INSTANCE;
+    }
+
+    /**
+     * Get shared pass manager, that used by default in all classes. It contains built-in
+     * passes only, passes, registered as {@link InstructionPass} services, may be added
+     * using {@link #loadServices(PassManager)}.
+     *
+     * @return default pass manager
+     */
+    public @NotNull PassManager defaultManager() {
+        return DefaultManager.INSTANCE;
+    }
+
+    /**
+     * Add passes, registered as {@link InstructionPass} services, to the end of pass manager.
+     *
+     * @param manager pass manager
+     */
+    public void loadServices(final @NonNull PassManager manager) {
+        loadServices(manager, Passes.class.getClassLoader());
+    }
+
+    /**
+     * Add passes, registered as {@link InstructionPass} services in given class loader,
+     * to the end of pass manager.
+     *
+     * @param manager pass manager
+     * @param loader  class loader
+     */
+    public void loadServices(final @NonNull PassManager manager, final @NonNull ClassLoader loader) {
+        for (val pass : ServiceLoader.load(InstructionPass.class, loader)) {
+            manager.addLast(pass);
+        }
+    }
+
+    private static final class DefaultManager {
+
+        private static final PassManager INSTANCE = manager();
+
+        static {
+            INSTANCE.addLast(constantFolding());
+            INSTANCE.addLast(deadCodeElimination());
+            INSTANCE.addLast(peephole());
+        }
+
+    }
+
+    private static void _collect(final InstructionSet set, final List<InstructionStream> streams) {
+        val instructions = set.getCompiledInstructions();
+        streams.add(instructions);
+
+        for (int i = 0, j = instructions.size(); i < j; i++) {
+            if (instructions.getKind(i) != InstructionKind.INSN) continue;
+
+            val ref = instructions.getRef(i);
+
+            if (ref instanceof InstructionSet) {
+                _collect((InstructionSet) ref, streams);
+            } else if (ref instanceof CompositeInstruction) {
+                for (val nested : ((CompositeInstruction) ref).getInstructionSets()) {
+                    _collect(nested, streams);
+                }
+            }
+        }
+    }
+
+    private static final class ConstantFoldingPass implements InstructionPass {
+
+        private static final InstructionPass INSTANCE = new ConstantFoldingPass();
+
+        private static final JumpOpcode[] JUMP_OPCODES = JumpOpcode.values();
+
+        @Override
+        public @NotNull String getName() {
+            return CONSTANT_FOLDING;
+        }
+
+        private static boolean _isConstant(final InstructionKind kind) {
+            switch (kind) {
+                case PUSH_INT:
+                case PUSH_LONG:
+                case PUSH_FLOAT:
+                case PUSH_DOUBLE:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static long _longValue(final InstructionStream instructions, final int index) {
+            val operand = instructions.getOperand(index);
+
+            switch (instructions.getKind(index)) {
+                default:
+                case PUSH_INT:
+                case PUSH_LONG:
+                    return operand;
+                case PUSH_FLOAT:
+                    return (long) Float.intBitsToFloat((int) operand);
+                case PUSH_DOUBLE:
+                    return (long) Double.longBitsToDouble(operand);
+            }
+        }
+
+        private static double _doubleValue(final InstructionStream instructions, final int index) {
+            val operand = instructions.getOperand(index);
+
+            switch (instructions.getKind(index)) {
+                default:
+                case PUSH_INT:
+                case PUSH_LONG:
+                    return operand;
+                case PUSH_FLOAT:
+                    return Float.intBitsToFloat((int) operand);
+                case PUSH_DOUBLE:
+                    return Double.longBitsToDouble(operand);
+            }
+        }
+
+        private static float _floatValue(final InstructionStream instructions, final int index) {
+            val operand = instructions.getOperand(index);
+
+            switch (instructions.getKind(index)) {
+                default:
+                case PUSH_INT:
+                case PUSH_LONG:
+                    return (float) operand;
+                case PUSH_FLOAT:
+                    return Float.intBitsToFloat((int) operand);
+                case PUSH_DOUBLE:
+                    return (float) Double.longBitsToDouble(operand);
+            }
+        }
+
+        private static int _intValue(final InstructionStream instructions, final int index) {
+            switch (instructions.getKind(index)) {
+                default:
+                case PUSH_INT:
+                case PUSH_LONG:
+                    return (int) instructions.getOperand(index);
+                case PUSH_FLOAT:
+                    return (int) Float.intBitsToFloat((int) instructions.getOperand(index));
+                case PUSH_DOUBLE:
+                    return (int) Double.longBitsToDouble(instructions.getOperand(index));
+            }
+        }
+
+        private static void _setInt(final InstructionStream instructions, final int index, final int value) {
+            instructions.set(index, InstructionKind.PUSH_INT, value, null);
+        }
+
+        private static void _setLong(final InstructionStream instructions, final int index, final long value) {
+            instructions.set(index, InstructionKind.PUSH_LONG, value, null);
+        }
+
+        private static void _setFloat(final InstructionStream instructions, final int index, final float value) {
+            instructions.set(index, InstructionKind.PUSH_FLOAT, Float.floatToRawIntBits(value), null);
+        }
+
+        private static void _setDouble(final InstructionStream instructions, final int index, final double value) {
+            instructions.set(index, InstructionKind.PUSH_DOUBLE, Double.doubleToRawLongBits(value), null);
+        }
+
+        /**
+         * Fold unary math operation at {@code index} with constant at {@code value}.
+         */
+        private static boolean _foldUnary(
+                final InstructionStream instructions,
+                final MathOpcode opcode,
+                final int value,
+                final int index
+        ) {
+            val kind = instructions.getKind(value);
+
+            switch (opcode) {
+                case INEG:
+                    if (kind != InstructionKind.PUSH_INT) return false;
+                    _setInt(instructions, index, -_intValue(instructions, value));
+                    return true;
+                case LNEG:
+                    if (kind != InstructionKind.PUSH_LONG) return false;
+                    _setLong(instructions, index, -_longValue(instructions, value));
+                    return true;
+                case FNEG:
+                    if (kind != InstructionKind.PUSH_FLOAT) return false;
+                    _setFloat(instructions, index, -_floatValue(instructions, value));
+                    return true;
+                case DNEG:
+                    if (kind != InstructionKind.PUSH_DOUBLE) return false;
+                    _setDouble(instructions, index, -_doubleValue(instructions, value));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Fold binary math operation at {@code index} with constants at {@code left} and {@code right}.
+         */
+        private static boolean _foldBinary(
+                final InstructionStream instructions,
+                final MathOpcode opcode,
+                final int left,
+                final int right,
+                final int index
+        ) {
+            val leftKind = instructions.getKind(left);
+            val rightKind = instructions.getKind(right);
+
+            switch (opcode) {
+                case IADD: case ISUB: case IMUL: case IDIV: case IREM:
+                case ISHL: case ISHR: case IUSHR: case IAND: case IOR: case IXOR: {
+                    if (leftKind != InstructionKind.PUSH_INT || rightKind != InstructionKind.PUSH_INT) {
+                        return false;
+                    }
+
+                    val a = _intValue(instructions, left);
+                    val b = _intValue(instructions, right);
+
+                    final int result;
+
+                    switch (opcode) {
+                        default:
+                        case IADD: result = a + b; break;
+                        case ISUB: result = a - b; break;
+                        case IMUL: result = a * b; break;
+                        case IDIV: if (b == 0) return false; result = a / b; break;
+                        case IREM: if (b == 0) return false; result = a % b; break;
+                        case ISHL: result = a << b; break;
+                        case ISHR: result = a >> b; break;
+                        case IUSHR: result = a >>> b; break;
+                        case IAND: result = a & b; break;
+                        case IOR: result = a | b; break;
+                        case IXOR: result = a ^ b; break;
+                    }
+
+                    _setInt(instructions, index, result);
+                    return true;
+                }
+                case LSHL: case LSHR: case LUSHR: {
+                    if (leftKind != InstructionKind.PUSH_LONG || rightKind != InstructionKind.PUSH_INT) {
+                        return false;
+                    }
+
+                    val a = _longValue(instructions, left);
+                    val b = _intValue(instructions, right);
+
+                    _setLong(instructions, index, opcode == MathOpcode.LSHL ? a << b
+                            : opcode == MathOpcode.LSHR ? a >> b
+                            : a >>> b);
+                    return true;
+                }
+                case LADD: case LSUB: case LMUL: case LDIV: case LREM:
+                case LAND: case LOR: case LXOR: {
+                    if (leftKind != InstructionKind.PUSH_LONG || rightKind != InstructionKind.PUSH_LONG) {
+                        return false;
+                    }
+
+                    val a = _longValue(instructions, left);
+                    val b = _longValue(instructions, right);
+
+                    final long result;
+
+                    switch (opcode) {
+                        default:
+                        case LADD: result = a + b; break;
+                        case LSUB: result = a - b; break;
+                        case LMUL: result = a * b; break;
+                        case LDIV: if (b == 0) return false; result = a / b; break;
+                        case LREM: if (b == 0) return false; result = a % b; break;
+                        case LAND: result = a & b; break;
+                        case LOR: result = a | b; break;
+                        case LXOR: result = a ^ b; break;
+                    }
+
+                    _setLong(instructions, index, result);
+                    return true;
+                }
+                case FADD: case FSUB: case FMUL: case FDIV: case FREM: {
+                    if (leftKind != InstructionKind.PUSH_FLOAT || rightKind != InstructionKind.PUSH_FLOAT) {
+                        return false;
+                    }
+
+                    val a = _floatValue(instructions, left);
+                    val b = _floatValue(instructions, right);
+
+                    final float result;
+
+                    switch (opcode) {
+                        default:
+                        case FADD: result = a + b; break;
+                        case FSUB: result = a - b; break;
+                        case FMUL: result = a * b; break;
+                        case FDIV: result = a / b; break;
+                        case FREM: result = a % b; break;
+                    }
+
+                    _setFloat(instructions, index, result);
+                    return true;
+                }
+                case DADD: case DSUB: case DMUL: case DDIV: case DREM: {
+                    if (leftKind != InstructionKind.PUSH_DOUBLE || rightKind != InstructionKind.PUSH_DOUBLE) {
+                        return false;
+                    }
+
+                    val a = _doubleValue(instructions, left);
+                    val b = _doubleValue(instructions, right);
+
+                    final double result;
+
+                    switch (opcode) {
+                        default:
+                        case DADD: result = a + b; break;
+                        case DSUB: result = a - b; break;
+                        case DMUL: result = a * b; break;
+                        case DDIV: result = a / b; break;
+                        case DREM: result = a % b; break;
+                    }
+
+                    _setDouble(instructions, index, result);
+                    return true;
+                }
+                default:
+                    return false;
+            }
+        }
+
+        private static boolean _foldCast(final InstructionStream instructions, final int value, final int index) {
+            val type = (TypeName) instructions.getRef(index);
+
+            if (type == null || !type.isPrimitive()) {
+                return false;
+            }
+
+            switch (type.getPrimitive()) {
+                case Types.INT_TYPE:
+                    _setInt(instructions, index, _intValue(instructions, value));
+                    return true;
+                case Types.LONG_TYPE:
+                    _setLong(instructions, index, _longValue(instructions, value));
+                    return true;
+                case Types.FLOAT_TYPE:
+                    _setFloat(instructions, index, _floatValue(instructions, value));
+                    return true;
+                case Types.DOUBLE_TYPE:
+                    _setDouble(instructions, index, _doubleValue(instructions, value));
+                    return true;
+                default:
+                    // narrowing casts to byte, short and char are kept as is
+                    return false;
+            }
+        }
+
+        private static boolean _foldCompare(
+                final InstructionStream instructions,
+                final CompareOpcode opcode,
+                final int left,
+                final int right,
+                final int index
+        ) {
+            val leftKind = instructions.getKind(left);
+            val rightKind = instructions.getKind(right);
+
+            final int result;
+
+            switch (opcode) {
+                default:
+                case LCMP:
+                    if (leftKind != InstructionKind.PUSH_LONG || rightKind != InstructionKind.PUSH_LONG) {
+                        return false;
+                    }
+
+                    result = Long.compare(_longValue(instructions, left), _longValue(instructions, right));
+                    break;
+                case FCMPL: case FCMPG:
+                case DCMPL: case DCMPG: {
+                    val expected = opcode == CompareOpcode.FCMPL || opcode == CompareOpcode.FCMPG
+                            ? InstructionKind.PUSH_FLOAT
+                            : InstructionKind.PUSH_DOUBLE;
+
+                    if (leftKind != expected || rightKind != expected) {
+                        return false;
+                    }
+
+                    val a = _doubleValue(instructions, left);
+                    val b = _doubleValue(instructions, right);
+
+                    if (Double.isNaN(a) || Double.isNaN(b)) {
+                        result = opcode == CompareOpcode.FCMPG || opcode == CompareOpcode.DCMPG ? 1 : -1;
+                    } else {
+                        result = a < b ? -1 : a > b ? 1 : 0;
+                    }
+
+                    break;
+                }
+            }
+
+            _setInt(instructions, index, result);
+            return true;
+        }
+
+        /**
+         * Fold conditional jump at {@code index}, which operands are {@code count} entries
+         * on top of {@code kept}.
+         *
+         * @return {@code 1} if jump is always taken, {@code 0} if never, {@code -1} if unknown
+         */
+        private static int _foldJump(
+                final InstructionStream instructions,
+                final JumpOpcode opcode,
+                final int[] kept,
+                final int top
+        ) {
+            switch (opcode) {
+                case IFEQ: case IFNE: case IFLT: case IFGE: case IFGT: case IFLE: {
+                    if (top < 1 || instructions.getKind(kept[top - 1]) != InstructionKind.PUSH_INT) {
+                        return -1;
+                    }
+
+                    val value = _intValue(instructions, kept[top - 1]);
+
+                    return _compare(opcode, value, 0) ? 1 : 0;
+                }
+                case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPGE: case IF_ICMPGT: case IF_ICMPLE: {
+                    if (top < 2 || instructions.getKind(kept[top - 2]) != InstructionKind.PUSH_INT
+                            || instructions.getKind(kept[top - 1]) != InstructionKind.PUSH_INT) {
+                        return -1;
+                    }
+
+                    val left = _intValue(instructions, kept[top - 2]);
+                    val right = _intValue(instructions, kept[top - 1]);
+
+                    return _compare(opcode, left, right) ? 1 : 0;
+                }
+                case IFNULL: case IFNONNULL: {
+                    if (top < 1) return -1;
+
+                    final boolean isNull;
+
+                    switch (instructions.getKind(kept[top - 1])) {
+                        case PUSH_NULL:
+                            isNull = true;
+                            break;
+                        case PUSH_STRING:
+                            isNull = false;
+                            break;
+                        default:
+                            return -1;
+                    }
+
+                    return isNull == (opcode == JumpOpcode.IFNULL) ? 1 : 0;
+                }
+                default:
+                    return -1;
+            }
+        }
+
+        private static boolean _compare(final JumpOpcode opcode, final int left, final int right) {
+            switch (opcode) {
+                default:
+                case IFEQ: case IF_ICMPEQ:
+                    return left == right;
+                case IFNE: case IF_ICMPNE:
+                    return left != right;
+                case IFLT: case IF_ICMPLT:
+                    return left < right;
+                case IFGE: case IF_ICMPGE:
+                    return left >= right;
+                case IFGT: case IF_ICMPGT:
+                    return left > right;
+                case IFLE: case IF_ICMPLE:
+                    return left <= right;
+            }
+        }
+
+        private static int _operands(final JumpOpcode opcode) {
+            switch (opcode) {
+                case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPGE: case IF_ICMPGT: case IF_ICMPLE:
+                    return 2;
+                default:
+                    return 1;
+            }
+        }
+
+        @Override
+        public void apply(final @NonNull MakeExecutable executable, final @NonNull InstructionStream instructions) {
+            val kept = new int[instructions.size()];
+            int top = 0;
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                val kind = instructions.getKind(i);
+
+                if (kind == InstructionKind.NOP) continue;
+
+                int operands = 0;
+
+                switch (kind) {
+                    case MATH: {
+                        val opcode = (MathOpcode) instructions.getRef(i);
+
+                        switch (opcode) {
+                            case INEG: case LNEG: case FNEG: case DNEG:
+                                if (top >= 1 && _foldUnary(instructions, opcode, kept[top - 1], i)) {
+                                    operands = 1;
+                                }
+                                break;
+                            default:
+                                if (top >= 2 && _isConstant(instructions.getKind(kept[top - 2]))
+                                        && _isConstant(instructions.getKind(kept[top - 1]))
+                                        && _foldBinary(instructions, opcode, kept[top - 2], kept[top - 1], i)) {
+                                    operands = 2;
+                                }
+                                break;
+                        }
+
+                        break;
+                    }
+                    case CAST:
+                        if (top >= 1 && _isConstant(instructions.getKind(kept[top - 1]))
+                                && _foldCast(instructions, kept[top - 1], i)) {
+                            operands = 1;
+                        }
+
+                        break;
+                    case COMPARE:
+                        if (top >= 2 && _foldCompare(instructions, (CompareOpcode) instructions.getRef(i),
+                                kept[top - 2], kept[top - 1], i)) {
+                            operands = 2;
+                        }
+
+                        break;
+                    case JUMP: {
+                        val opcode = JUMP_OPCODES[(int) instructions.getOperand(i)];
+                        val taken = _foldJump(instructions, opcode, kept, top);
+
+                        if (taken == -1) break;
+
+                        for (int k = _operands(opcode); k > 0; k--) {
+                            instructions.erase(kept[--top]);
+                        }
+
+                        if (taken == 1) {
+                            instructions.set(i, InstructionKind.JUMP, JumpOpcode.GOTO.ordinal(),
+                                    instructions.getRef(i));
+                            kept[top++] = i;
+                        } else {
+                            instructions.erase(i);
+                        }
+
+                        continue;
+                    }
+                }
+
+                for (int k = 0; k < operands; k++) {
+                    instructions.erase(kept[--top]);
+                }
+
+                kept[top++] = i;
+            }
+        }
+
+    }
+
+    private static final class DeadCodePass implements InstructionPass {
+
+        private static final InstructionPass INSTANCE = new DeadCodePass();
+
+        @Override
+        public @NotNull String getName() {
+            return DEAD_CODE;
+        }
+
+        private static boolean _isUnconditional(final InstructionStream instructions, final int index) {
+            switch (instructions.getKind(index)) {
+                case RETURN:
+                case THROW:
+                    return true;
+                case JUMP:
+                    return instructions.getOperand(index) == JumpOpcode.GOTO.ordinal();
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Whether instruction may be a jump target or contain instructions, which are jump targets
+         */
+        private static boolean _isReachable(final InstructionStream instructions, final int index) {
+            switch (instructions.getKind(index)) {
+                case VISIT:
+                    return true;
+                case INSN:
+                    val ref = instructions.getRef(index);
+                    return !(ref instanceof MethodInsn) && !(ref instanceof FieldInsn);
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public void apply(final @NonNull MakeExecutable executable, final @NonNull InstructionStream instructions) {
+            boolean reachable = true;
+            int lastJump = -1;
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                val kind = instructions.getKind(i);
+
+                if (kind == InstructionKind.NOP) continue;
+
+                if (!reachable) {
+                    if (!_isReachable(instructions, i)) {
+                        instructions.erase(i);
+                        continue;
+                    }
+
+                    reachable = true;
+                }
+
+                if (kind == InstructionKind.VISIT && lastJump != -1
+                        && instructions.getRef(lastJump) == instructions.getRef(i)) {
+                    // jump to the next instruction
+                    instructions.erase(lastJump);
+                }
+
+                lastJump = -1;
+
+                if (_isUnconditional(instructions, i)) {
+                    reachable = false;
+
+                    if (kind == InstructionKind.JUMP) {
+                        lastJump = i;
+                    }
+                }
+            }
+        }
+
+    }
+
+    private static final class PeepholePass implements InstructionPass {
+
+        private static final InstructionPass INSTANCE = new PeepholePass();
+
+        private static final int KEEP = 0;
+        private static final int ERASE_PREVIOUS = 1;
+        private static final int ERASE_BOTH = 2;
+
+        @Override
+        public @NotNull String getName() {
+            return PEEPHOLE;
+        }
+
+        @Override
+        public void apply(final @NonNull MakeExecutable executable, final @NonNull InstructionStream instructions) {
+            val kept = new int[instructions.size()];
+            int top = 0;
+
+            Map<LocalIndex, Integer> localUses = null;
+
+            for (int i = 0, j = instructions.size(); i < j; i++) {
+                val kind = instructions.getKind(i);
+
+                if (kind == InstructionKind.NOP) continue;
+
+                if (kind == InstructionKind.CAST && top > 0 && _provesType(instructions, kept[top - 1])) {
+                    // checkcast is omitted during compilation, if stack proves the type
+                    instructions.set(i, InstructionKind.CAST, 1, instructions.getRef(i));
+                }
+
+                boolean keep = true;
+
+                while (top > 0) {
+                    val previous = kept[top - 1];
+
+                    int action = _rewrite(instructions, previous, i);
+
+                    if (action == KEEP && instructions.getKind(previous) == InstructionKind.STORE_LOCAL
+                            && kind == InstructionKind.LOAD_LOCAL
+                            && instructions.getRef(previous) == instructions.getRef(i)) {
+                        if (localUses == null) {
+                            localUses = _countLocalUses(executable);
+                        }
+
+                        val local = (LocalIndex) instructions.getRef(i);
+
+                        if (!local.isInitialized() && localUses.getOrDefault(local, 0) == 2) {
+                            action = ERASE_BOTH;
+                        }
+                    }
+
+                    if (action == KEEP) break;
+
+                    instructions.erase(previous);
+                    top--;
+
+                    if (action == ERASE_BOTH) {
+                        instructions.erase(i);
+                        keep = false;
+                        break;
+                    }
+                }
+
+                if (keep) {
+                    kept[top++] = i;
+                }
+            }
+        }
+
+        /**
+         * Whether type of the value, pushed by instruction, is exact. Types of other values (e.g. locals)
+         * are tracked linearly and may be wrong after the merge of branches.
+         */
+        private static boolean _provesType(final InstructionStream instructions, final int previous) {
+            switch (instructions.getKind(previous)) {
+                case PUSH_STRING:
+                case CAST:
+                    return true;
+                case INSN:
+                    return instructions.getRef(previous) instanceof InitInsn;
+                default:
+                    return false;
+            }
+        }
+
+        private static int _rewrite(final InstructionStream instructions, final int previous, final int current) {
+            val previousKind = instructions.getKind(previous);
+
+            switch (instructions.getKind(current)) {
+                case POP:
+                    switch (previousKind) {
+                        case DUP:
+                        case PUSH_INT:
+                        case PUSH_LONG:
+                        case PUSH_FLOAT:
+                        case PUSH_DOUBLE:
+                        case PUSH_STRING:
+                        case PUSH_NULL:
+                        case PUSH_DEFAULT:
+                        case LOAD_LOCAL:
+                            return ERASE_BOTH;
+                    }
+
+                    return KEEP;
+                case SWAP:
+                    return previousKind == InstructionKind.SWAP ? ERASE_BOTH : KEEP;
+                case BOX:
+                    // box does nothing with boxed value
+                    return previousKind == InstructionKind.BOX ? ERASE_PREVIOUS : KEEP;
+                case UNBOX:
+                    // unbox gives the same result for both boxed and primitive values
+                    return previousKind == InstructionKind.BOX || previousKind == InstructionKind.UNBOX
+                            ? ERASE_PREVIOUS
+                            : KEEP;
+                case CAST:
+                    return previousKind == InstructionKind.CAST
+                            && instructions.getRef(previous).equals(instructions.getRef(current))
+                            ? ERASE_PREVIOUS
+                            : KEEP;
+                default:
+                    return KEEP;
+            }
+        }
+
+        /**
+         * Count loads and stores of each local in the executable, local is considered
+         * as used by unknown instructions, if there are any of them.
+         */
+        private static Map<LocalIndex, Integer> _countLocalUses(final MakeExecutable executable) {
+            val streams = new ArrayList<InstructionStream>();
+            _collect(executable.getBytecode(), streams);
+
+            val result = new IdentityHashMap<LocalIndex, Integer>();
+
+            for (val stream : streams) {
+                for (int i = 0, j = stream.size(); i < j; i++) {
+                    switch (stream.getKind(i)) {
+                        case INSN:
+                            val ref = stream.getRef(i);
+
+                            if (!(ref instanceof MethodInsn) && !(ref instanceof FieldInsn)) {
+                                return Collections.emptyMap();
+                            }
+
+                            break;
+                        case LOAD_LOCAL:
+                        case STORE_LOCAL:
+                            result.merge((LocalIndex) stream.getRef(i), 1, Integer::sum);
+                            break;
+                    }
+                }
+            }
+
+            return result;
+        }
+
+    }
+
+    @Getter
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class PassTimingImpl implements PassTiming {
+
+        String name;
+
+        @Getter(AccessLevel.NONE)
+        LongAdder invocations = new LongAdder();
+
+        @Getter(AccessLevel.NONE)
+        LongAdder totalNanos = new LongAdder();
+
+        @Override
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        @Override
+        public String toString() {
+            return name + "[invocations=" + getInvocations() + ", totalNanos=" + getTotalNanos() + "]";
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class PassManagerImpl implements PassManager {
+
+        List<InstructionPass> passes;
+        ConcurrentMap<String, PassTimingImpl> timings;
+
+        @Override
+        public @Unmodifiable @NotNull List<@NotNull InstructionPass> getPasses() {
+            return Collections.unmodifiableList(passes);
+        }
+
+        private int _indexOf(final String name) {
+            for (int i = 0, j = passes.size(); i < j; i++) {
+                if (passes.get(i).getName().equals(name)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private void _add(final int index, final InstructionPass pass) {
+            if (_indexOf(pass.getName()) != -1) {
+                throw new IllegalArgumentException("Pass " + pass.getName() + " is already registered");
+            }
+
+            passes.add(index, pass);
+        }
+
+        private int _existing(final String name) {
+            val index = _indexOf(name);
+
+            if (index == -1) {
+                throw new IllegalArgumentException("No such pass: " + name);
+            }
+
+            return index;
+        }
+
+        @Override
+        public synchronized void addFirst(final @NonNull InstructionPass pass) {
+            _add(0, pass);
+        }
+
+        @Override
+        public synchronized void addLast(final @NonNull InstructionPass pass) {
+            _add(passes.size(), pass);
+        }
+
+        @Override
+        public synchronized void addBefore(final @NonNull String name, final @NonNull InstructionPass pass) {
+            _add(_existing(name), pass);
+        }
+
+        @Override
+        public synchronized void addAfter(final @NonNull String name, final @NonNull InstructionPass pass) {
+            _add(_existing(name) + 1, pass);
+        }
+
+        @Override
+        public synchronized boolean remove(final @NonNull String name) {
+            val index = _indexOf(name);
+
+            if (index == -1) {
+                return false;
+            }
+
+            passes.remove(index);
+            return true;
+        }
+
+        @Override
+        public void run(final @NonNull MakeExecutable executable, final @NonNull InstructionSet code) {
+            if (passes.isEmpty()) {
+                return;
+            }
+
+            val type = executable.getDeclaringClass();
+
+            List<InstructionStream> streams = null;
+
+            for (val pass : passes) {
+                if (!type.isPassEnabled(pass)) continue;
+
+                if (streams == null) {
+                    _collect(code, streams = new ArrayList<>());
+                }
+
+                val start = System.nanoTime();
+
+                for (val stream : streams) {
+                    pass.apply(executable, stream);
+                    stream.compact();
+                }
+
+                val timing = timings.computeIfAbsent(pass.getName(), PassTimingImpl::new);
+                timing.totalNanos.add(System.nanoTime() - start);
+                timing.invocations.increment();
+            }
+        }
+
+        @Override
+        public @Unmodifiable @NotNull Map<@NotNull String, @NotNull PassTiming> getTimings() {
+            return Collections.unmodifiableMap(new TreeMap<>(timings));
+        }
+
+        @Override
+        public void resetTimings() {
+            timings.clear();
+        }
+
+    }
+
+}
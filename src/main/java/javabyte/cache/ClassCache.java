@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.cache;
+
+import javabyte.make.MakeClass;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cache of generated classes, which are keyed by {@link MakeClass#computeKey()}.
+ * <p>
+ * Concurrent misses of the same key are collapsed into single generation.
+ *
+ * @author whilein
+ */
+public interface ClassCache {
+
+    byte @NotNull [] writeAsBytes(@NotNull MakeClass type);
+
+    /**
+     * Get class from cache or load it into {@code loader}, classes are cached per class loader
+     * and don't prevent class loader from being collected.
+     *
+     * @param type   class
+     * @param loader class loader
+     * @return loaded class
+     */
+    @NotNull Class<?> load(@NotNull MakeClass type, @NotNull ClassLoader loader);
+
+    void clear();
+
+}
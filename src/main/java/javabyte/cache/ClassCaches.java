@@ -0,0 +1,252 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.cache;
+
+import javabyte.make.MakeClass;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class ClassCaches {
+
+    public @NotNull ClassCache memory() {
+        return new MemoryClassCache();
+    }
+
+    /**
+     * Create store, which keeps class files in {@code directory} as <code>&lt;key&gt;.class</code>.
+     * <p>
+     * Files are written once under file lock and moved into place atomically, lock files
+     * are deleted after the class is written.
+     *
+     * @param directory directory
+     * @return new store
+     * @throws UncheckedIOException if directory cannot be created
+     */
+    public @NotNull ClassStore directory(final @NonNull Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new DirectoryClassStore(directory);
+    }
+
+    /**
+     * Get value from {@code map} or compute it, concurrent calls with same key wait for single computation.
+     *
+     * @param map      map of pending and completed values
+     * @param key      key
+     * @param supplier supplier of value
+     * @param <K>      key type
+     * @param <V>      value type
+     * @return value
+     */
+    <K, V> V singleFlight(
+            final ConcurrentMap<K, CompletableFuture<V>> map,
+            final K key,
+            final Supplier<V> supplier
+    ) {
+        val existing = map.get(key);
+
+        if (existing != null) {
+            return _join(existing);
+        }
+
+        val future = new CompletableFuture<V>();
+        val winner = map.putIfAbsent(key, future);
+
+        if (winner != null) {
+            return _join(winner);
+        }
+
+        try {
+            val value = supplier.get();
+            future.complete(value);
+
+            return value;
+        } catch (final Throwable e) {
+            map.remove(key, future);
+            future.completeExceptionally(e);
+
+            throw e;
+        }
+    }
+
+    private <V> V _join(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            val cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw e;
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class DirectoryClassStore implements ClassStore {
+
+        Path directory;
+
+        ConcurrentMap<ClassKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+        @Override
+        public byte @Nullable [] read(final @NonNull ClassKey key) {
+            try {
+                return Files.readAllBytes(directory.resolve(key.toHexString() + ".class"));
+            } catch (final NoSuchFileException e) {
+                return null;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public byte @NotNull [] computeIfAbsent(
+                final @NonNull ClassKey key,
+                final @NonNull Supplier<byte @NotNull []> generator
+        ) {
+            val bytes = read(key);
+
+            if (bytes != null) {
+                return bytes;
+            }
+
+            try {
+                return singleFlight(inFlight, key, () -> _generate(key, generator));
+            } finally {
+                inFlight.remove(key);
+            }
+        }
+
+        @Override
+        public byte @NotNull [] writeAsBytes(final @NonNull MakeClass type) {
+            return computeIfAbsent(type.computeKey(), type::writeAsBytes);
+        }
+
+        private byte[] _generate(final ClassKey key, final Supplier<byte[]> generator) {
+            val name = key.toHexString();
+            val lockFile = directory.resolve(name + ".lock");
+
+            try (val channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                val lock = channel.lock();
+
+                try {
+                    // another process could write the class while we were waiting for the lock
+                    byte[] bytes = read(key);
+
+                    if (bytes == null) {
+                        bytes = generator.get();
+
+                        val temp = Files.createTempFile(directory, name, ".tmp");
+
+                        try {
+                            Files.write(temp, bytes);
+                            Files.move(temp, directory.resolve(name + ".class"), StandardCopyOption.ATOMIC_MOVE);
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                    }
+
+                    // class is written, so lock file is not needed anymore, waiters on the deleted file
+                    // and processes, that create it again, find the class after they get the lock
+                    Files.deleteIfExists(lockFile);
+
+                    return bytes;
+                } finally {
+                    lock.release();
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class MemoryClassCache implements ClassCache {
+
+        ConcurrentMap<ClassKey, CompletableFuture<byte[]>> bytes = new ConcurrentHashMap<>();
+
+        Map<ClassLoader, ConcurrentMap<ClassKey, CompletableFuture<WeakReference<Class<?>>>>> classes
+                = Collections.synchronizedMap(new WeakHashMap<>());
+
+        @Override
+        public byte @NotNull [] writeAsBytes(final @NonNull MakeClass type) {
+            return singleFlight(bytes, type.computeKey(), type::writeAsBytes).clone();
+        }
+
+        @Override
+        public @NotNull Class<?> load(final @NonNull MakeClass type, final @NonNull ClassLoader loader) {
+            val key = type.computeKey();
+            val loaderClasses = classes.computeIfAbsent(loader, __ -> new ConcurrentHashMap<>());
+
+            val cls = singleFlight(loaderClasses, key, () -> new WeakReference<>(type.load(loader))).get();
+
+            if (cls == null) {
+                // class is already unloaded, so loader is unreachable and will not be used anymore
+                throw new IllegalStateException("Class " + type.getName() + " is unloaded");
+            }
+
+            return cls;
+        }
+
+        @Override
+        public void clear() {
+            bytes.clear();
+            classes.clear();
+        }
+
+    }
+
+}
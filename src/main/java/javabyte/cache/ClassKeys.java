@@ -0,0 +1,469 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.cache;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.objectweb.asm.Opcodes.ASM9;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class ClassKeys {
+
+    private final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private MessageDigest _digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public @NotNull ClassKey of(final byte @NonNull [] hash) {
+        return new ClassKeyImpl(hash.clone());
+    }
+
+    /**
+     * Create key from user-supplied string, it should identify class contents.
+     *
+     * @param key key
+     * @return SHA-256 of key
+     */
+    public @NotNull ClassKey of(final @NonNull String key) {
+        return new ClassKeyImpl(_digest().digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Create key from SHA-256 of all events, that {@code source} passes to the visitor.
+     * Labels are hashed by order of their appearance in the method.
+     *
+     * @param source source of class
+     * @return key
+     */
+    public @NotNull ClassKey of(final @NonNull Consumer<@NotNull ClassVisitor> source) {
+        val visitor = new HashClassVisitor(_digest());
+        source.accept(visitor);
+
+        return new ClassKeyImpl(visitor.digest.digest());
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ClassKeyImpl implements ClassKey {
+
+        byte[] hash;
+
+        @Override
+        public byte @NotNull [] getHash() {
+            return hash.clone();
+        }
+
+        @Override
+        public @NotNull String toHexString() {
+            val out = new char[hash.length * 2];
+
+            for (int i = 0; i < hash.length; i++) {
+                out[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                out[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+
+            return new String(out);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ClassKeyImpl)) return false;
+
+            return Arrays.equals(hash, ((ClassKeyImpl) obj).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hash);
+        }
+
+        @Override
+        public String toString() {
+            return "ClassKey[" + toHexString() + "]";
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Hasher {
+
+        MessageDigest digest;
+
+        void putTag(final String tag) {
+            // opcodes are never negative
+            putInt(-1);
+            putString(tag);
+        }
+
+        void putInt(final int value) {
+            digest.update((byte) (value >>> 24));
+            digest.update((byte) (value >>> 16));
+            digest.update((byte) (value >>> 8));
+            digest.update((byte) value);
+        }
+
+        void putString(final String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+
+            val bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            digest.update(bytes);
+        }
+
+        void putStrings(final String[] values) {
+            if (values == null) {
+                putInt(-1);
+                return;
+            }
+
+            putInt(values.length);
+
+            for (val value : values) {
+                putString(value);
+            }
+        }
+
+        void putConstant(final Object value) {
+            if (value instanceof Handle) {
+                val handle = (Handle) value;
+
+                putString("H");
+                putInt(handle.getTag());
+                putString(handle.getOwner());
+                putString(handle.getName());
+                putString(handle.getDesc());
+                putInt(handle.isInterface() ? 1 : 0);
+            } else if (value instanceof Type) {
+                putString("T");
+                putString(((Type) value).getDescriptor());
+            } else if (value == null) {
+                putString(null);
+            } else {
+                putString(value.getClass().getSimpleName());
+                putString(value.toString());
+            }
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class HashClassVisitor extends ClassVisitor {
+
+        MessageDigest digest;
+        Hasher hasher;
+
+        private HashClassVisitor(final MessageDigest digest) {
+            super(ASM9);
+
+            this.digest = digest;
+            this.hasher = new Hasher(digest);
+        }
+
+        @Override
+        public void visit(
+                final int version,
+                final int access,
+                final String name,
+                final String signature,
+                final String superName,
+                final String[] interfaces
+        ) {
+            hasher.putTag("class");
+            hasher.putInt(version);
+            hasher.putInt(access);
+            hasher.putString(name);
+            hasher.putString(signature);
+            hasher.putString(superName);
+            hasher.putStrings(interfaces);
+        }
+
+        @Override
+        public void visitOuterClass(final String owner, final String name, final String descriptor) {
+            hasher.putTag("outer");
+            hasher.putString(owner);
+            hasher.putString(name);
+            hasher.putString(descriptor);
+        }
+
+        @Override
+        public void visitInnerClass(final String name, final String outerName, final String innerName, final int access) {
+            hasher.putTag("inner");
+            hasher.putString(name);
+            hasher.putString(outerName);
+            hasher.putString(innerName);
+            hasher.putInt(access);
+        }
+
+        @Override
+        public FieldVisitor visitField(
+                final int access,
+                final String name,
+                final String descriptor,
+                final String signature,
+                final Object value
+        ) {
+            hasher.putTag("field");
+            hasher.putInt(access);
+            hasher.putString(name);
+            hasher.putString(descriptor);
+            hasher.putString(signature);
+            hasher.putConstant(value);
+
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                final int access,
+                final String name,
+                final String descriptor,
+                final String signature,
+                final String[] exceptions
+        ) {
+            hasher.putTag("method");
+            hasher.putInt(access);
+            hasher.putString(name);
+            hasher.putString(descriptor);
+            hasher.putString(signature);
+            hasher.putStrings(exceptions);
+
+            return new HashMethodVisitor(hasher);
+        }
+
+        @Override
+        public void visitEnd() {
+            hasher.putTag("end");
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class HashMethodVisitor extends MethodVisitor {
+
+        Hasher hasher;
+        Map<Label, Integer> labels = new IdentityHashMap<>();
+
+        private HashMethodVisitor(final Hasher hasher) {
+            super(ASM9);
+
+            this.hasher = hasher;
+        }
+
+        private void putLabel(final Label label) {
+            Integer id = labels.get(label);
+
+            if (id == null) {
+                labels.put(label, id = labels.size());
+            }
+
+            hasher.putInt(id);
+        }
+
+        private void putFrameTypes(final int count, final Object[] types) {
+            hasher.putInt(count);
+
+            for (int i = 0; i < count; i++) {
+                val type = types[i];
+
+                if (type instanceof Label) {
+                    putLabel((Label) type);
+                } else {
+                    hasher.putConstant(type);
+                }
+            }
+        }
+
+        @Override
+        public void visitFrame(
+                final int type,
+                final int numLocal,
+                final Object[] local,
+                final int numStack,
+                final Object[] stack
+        ) {
+            hasher.putTag("frame");
+            hasher.putInt(type);
+            putFrameTypes(numLocal, local);
+            putFrameTypes(numStack, stack);
+        }
+
+        @Override
+        public void visitInsn(final int opcode) {
+            hasher.putInt(opcode);
+        }
+
+        @Override
+        public void visitIntInsn(final int opcode, final int operand) {
+            hasher.putInt(opcode);
+            hasher.putInt(operand);
+        }
+
+        @Override
+        public void visitVarInsn(final int opcode, final int var) {
+            hasher.putInt(opcode);
+            hasher.putInt(var);
+        }
+
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+            hasher.putInt(opcode);
+            hasher.putString(type);
+        }
+
+        @Override
+        public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            hasher.putInt(opcode);
+            hasher.putString(owner);
+            hasher.putString(name);
+            hasher.putString(descriptor);
+        }
+
+        @Override
+        public void visitMethodInsn(
+                final int opcode,
+                final String owner,
+                final String name,
+                final String descriptor,
+                final boolean isInterface
+        ) {
+            hasher.putInt(opcode);
+            hasher.putString(owner);
+            hasher.putString(name);
+            hasher.putString(descriptor);
+            hasher.putInt(isInterface ? 1 : 0);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(
+                final String name,
+                final String descriptor,
+                final Handle bootstrapMethodHandle,
+                final Object... bootstrapMethodArguments
+        ) {
+            hasher.putTag("indy");
+            hasher.putString(name);
+            hasher.putString(descriptor);
+            hasher.putConstant(bootstrapMethodHandle);
+            hasher.putInt(bootstrapMethodArguments.length);
+
+            for (val argument : bootstrapMethodArguments) {
+                hasher.putConstant(argument);
+            }
+        }
+
+        @Override
+        public void visitJumpInsn(final int opcode, final Label label) {
+            hasher.putInt(opcode);
+            putLabel(label);
+        }
+
+        @Override
+        public void visitLabel(final Label label) {
+            hasher.putTag("label");
+            putLabel(label);
+        }
+
+        @Override
+        public void visitLdcInsn(final Object value) {
+            hasher.putTag("ldc");
+            hasher.putConstant(value);
+        }
+
+        @Override
+        public void visitIincInsn(final int var, final int increment) {
+            hasher.putTag("iinc");
+            hasher.putInt(var);
+            hasher.putInt(increment);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(final int min, final int max, final Label dflt, final Label... labels) {
+            hasher.putTag("tableswitch");
+            hasher.putInt(min);
+            hasher.putInt(max);
+            putLabel(dflt);
+
+            for (val label : labels) {
+                putLabel(label);
+            }
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] labels) {
+            hasher.putTag("lookupswitch");
+            putLabel(dflt);
+            hasher.putInt(keys.length);
+
+            for (int i = 0; i < keys.length; i++) {
+                hasher.putInt(keys[i]);
+                putLabel(labels[i]);
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+            hasher.putTag("multianewarray");
+            hasher.putString(descriptor);
+            hasher.putInt(numDimensions);
+        }
+
+        @Override
+        public void visitTryCatchBlock(final Label start, final Label end, final Label handler, final String type) {
+            hasher.putTag("trycatch");
+            putLabel(start);
+            putLabel(end);
+            putLabel(handler);
+            hasher.putString(type);
+        }
+
+    }
+
+}
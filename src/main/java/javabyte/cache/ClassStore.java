@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.cache;
+
+import javabyte.make.MakeClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Supplier;
+
+/**
+ * Persistent storage of class files, which can be shared by several processes.
+ *
+ * @author whilein
+ */
+public interface ClassStore {
+
+    byte @Nullable [] read(@NotNull ClassKey key);
+
+    /**
+     * Read class file or generate and store it, generation of the same key is performed
+     * only once, even if several processes use this store.
+     *
+     * @param key       key of class, e.g. {@link ClassKeys#of(String)} to skip generation entirely
+     * @param generator generator of class file
+     * @return class file
+     */
+    byte @NotNull [] computeIfAbsent(@NotNull ClassKey key, @NotNull Supplier<byte @NotNull []> generator);
+
+    byte @NotNull [] writeAsBytes(@NotNull MakeClass type);
+
+}
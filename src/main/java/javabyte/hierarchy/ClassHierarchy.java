@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.hierarchy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Source of class headers, which must not load or initialize classes.
+ *
+ * @author whilein
+ */
+public interface ClassHierarchy {
+
+    /**
+     * Find header of class.
+     *
+     * @param internalName internal name of class, e.g. <code>java/lang/Object</code>
+     * @return header or {@code null} if this hierarchy doesn't know the class
+     */
+    @Nullable ClassHeader findHeader(@NotNull String internalName);
+
+}
@@ -0,0 +1,381 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.hierarchy;
+
+import javabyte.make.MakeClass;
+import javabyte.make.MakeInnerClass;
+import javabyte.type.TypeName;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class Hierarchies {
+
+    private final String OBJECT = "java/lang/Object";
+
+    private final Map<ClassLoader, ClassHierarchy> CLASS_LOADER_HIERARCHIES
+            = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ClassHierarchy SYSTEM_HIERARCHY = new ClassFileHierarchy(null);
+
+    public @NotNull ClassHeader header(
+            final @NonNull String name,
+            final @Nullable String superName,
+            final @NotNull String @NonNull [] interfaces,
+            final boolean isInterface
+    ) {
+        return new ClassHeaderImpl(name, superName, interfaces, isInterface);
+    }
+
+    /**
+     * Get hierarchy, that reads class files from resources of {@code loader}
+     * using {@link ClassReader}, results are cached.
+     *
+     * @param loader class loader or {@code null} for system class loader
+     * @return hierarchy
+     */
+    public @NotNull ClassHierarchy ofClassLoader(final @Nullable ClassLoader loader) {
+        if (loader == null) {
+            return SYSTEM_HIERARCHY;
+        }
+
+        return CLASS_LOADER_HIERARCHIES.computeIfAbsent(loader, ClassFileHierarchy::new);
+    }
+
+    /**
+     * Get hierarchy of generated classes, including their inner classes.
+     * <p>
+     * Headers are taken from {@link MakeClass} on every lookup, so changes are visible.
+     *
+     * @param types generated classes
+     * @return hierarchy
+     */
+    public @NotNull ClassHierarchy ofMakeClasses(final @NotNull MakeClass @NonNull ... types) {
+        return new MakeClassHierarchy(Arrays.asList(types));
+    }
+
+    public @NotNull ClassHierarchy ofMakeClasses(final @NonNull List<? extends @NotNull MakeClass> types) {
+        return new MakeClassHierarchy(types);
+    }
+
+    /**
+     * Get hierarchy of generated class, including its declaring and inner classes.
+     *
+     * @param type generated class
+     * @return hierarchy
+     */
+    public @NotNull ClassHierarchy ofMakeClass(final @NonNull MakeClass type) {
+        MakeClass root = type;
+
+        while (root instanceof MakeInnerClass) {
+            root = ((MakeInnerClass) root).getDeclaringClass();
+        }
+
+        return new MakeClassHierarchy(Collections.singletonList(root));
+    }
+
+    public @NotNull ClassHierarchy chain(final @NotNull ClassHierarchy @NonNull ... hierarchies) {
+        return new ChainClassHierarchy(hierarchies);
+    }
+
+    /**
+     * Find common super class of two classes.
+     *
+     * @param hierarchy hierarchy
+     * @param first     internal name of first class
+     * @param second    internal name of second class
+     * @return internal name of common super class
+     * @throws TypeNotPresentException if some class in hierarchy is not found
+     */
+    public @NotNull String getCommonSuperClass(
+            final @NonNull ClassHierarchy hierarchy,
+            final @NonNull String first,
+            final @NonNull String second
+    ) {
+        if (first.equals(second)) {
+            return first;
+        }
+
+        if (first.charAt(0) == '[' || second.charAt(0) == '[') {
+            return OBJECT;
+        }
+
+        val firstHeader = _findHeader(hierarchy, first);
+        val secondHeader = _findHeader(hierarchy, second);
+
+        if (firstHeader.isInterface() || secondHeader.isInterface()) {
+            return OBJECT;
+        }
+
+        val firstSupers = new HashSet<String>();
+
+        for (ClassHeader header = firstHeader; ; ) {
+            firstSupers.add(header.getName());
+
+            val superName = header.getSuperName();
+            if (superName == null) break;
+
+            header = _findHeader(hierarchy, superName);
+        }
+
+        for (ClassHeader header = secondHeader; ; ) {
+            if (firstSupers.contains(header.getName())) {
+                return header.getName();
+            }
+
+            val superName = header.getSuperName();
+            if (superName == null) break;
+
+            header = _findHeader(hierarchy, superName);
+        }
+
+        return OBJECT;
+    }
+
+    /**
+     * Check whether value of class {@code from} can be assigned to class {@code to}
+     * without cast. Arrays are only assignable to the same array type and {@code java/lang/Object}.
+     *
+     * @param hierarchy hierarchy
+     * @param to        internal name of target class
+     * @param from      internal name of source class
+     * @return {@code true} if assignable, {@code false} if not or some class in hierarchy is not found
+     */
+    public boolean isAssignable(
+            final @NonNull ClassHierarchy hierarchy,
+            final @NonNull String to,
+            final @NonNull String from
+    ) {
+        if (to.equals(from) || to.equals(OBJECT)) {
+            return true;
+        }
+
+        if (to.charAt(0) == '[' || from.charAt(0) == '[') {
+            return false;
+        }
+
+        val visited = new HashSet<String>();
+        val queue = new ArrayDeque<String>();
+        queue.add(from);
+
+        String name;
+
+        while ((name = queue.poll()) != null) {
+            if (!visited.add(name)) continue;
+
+            if (name.equals(to)) {
+                return true;
+            }
+
+            val header = hierarchy.findHeader(name);
+
+            if (header == null) {
+                return false;
+            }
+
+            if (header.getSuperName() != null) {
+                queue.add(header.getSuperName());
+            }
+
+            queue.addAll(Arrays.asList(header.getInterfaces()));
+        }
+
+        return false;
+    }
+
+    private ClassHeader _findHeader(final ClassHierarchy hierarchy, final String name) {
+        val header = hierarchy.findHeader(name);
+
+        if (header == null) {
+            throw new TypeNotPresentException(name.replace('/', '.'), null);
+        }
+
+        return header;
+    }
+
+    @Getter
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ClassHeaderImpl implements ClassHeader {
+        String name;
+        String superName;
+        String[] interfaces;
+        boolean isInterface;
+
+        @Override
+        public String toString() {
+            return "ClassHeader[" + name + " extends " + superName + " implements "
+                    + Arrays.toString(interfaces) + "]";
+        }
+    }
+
+    /**
+     * Hierarchy, that reads class files from the loader. Loader is referenced weakly, because hierarchy
+     * is cached by the loader, only found headers are cached and up to {@link #MAX_HEADERS} headers.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class ClassFileHierarchy implements ClassHierarchy {
+
+        private static final int MAX_HEADERS = 8192;
+
+        Reference<ClassLoader> loader;
+        Map<String, ClassHeader> headers;
+
+        private ClassFileHierarchy(final ClassLoader loader) {
+            this.loader = loader != null ? new WeakReference<>(loader) : null;
+            this.headers = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public @Nullable ClassHeader findHeader(final @NonNull String internalName) {
+            val cached = headers.get(internalName);
+
+            if (cached != null) {
+                return cached;
+            }
+
+            val header = _read(internalName);
+
+            // misses are not cached, because class may be defined later
+            if (header != null && headers.size() < MAX_HEADERS) {
+                headers.put(internalName, header);
+            }
+
+            return header;
+        }
+
+        private ClassHeader _read(final String internalName) {
+            val resource = internalName + ".class";
+
+            final ClassLoader loader;
+
+            if (this.loader != null) {
+                loader = this.loader.get();
+
+                if (loader == null) {
+                    return null;
+                }
+            } else {
+                loader = null;
+            }
+
+            try (val is = loader != null
+                    ? loader.getResourceAsStream(resource)
+                    : ClassLoader.getSystemResourceAsStream(resource)) {
+                if (is == null) {
+                    return null;
+                }
+
+                return _read(is);
+            } catch (final IOException e) {
+                return null;
+            }
+        }
+
+        private ClassHeader _read(final InputStream is) throws IOException {
+            val reader = new ClassReader(is);
+
+            return new ClassHeaderImpl(reader.getClassName(), reader.getSuperName(), reader.getInterfaces(),
+                    (reader.getAccess() & Opcodes.ACC_INTERFACE) != 0);
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class MakeClassHierarchy implements ClassHierarchy {
+
+        List<? extends MakeClass> types;
+
+        @Override
+        public @Nullable ClassHeader findHeader(final @NonNull String internalName) {
+            return _findHeader(types, internalName);
+        }
+
+        private ClassHeader _findHeader(final List<? extends MakeClass> types, final String internalName) {
+            for (val type : types) {
+                if (type.getName().getInternalName().equals(internalName)) {
+                    return new ClassHeaderImpl(
+                            internalName,
+                            type.getSuperName().getInternalName(),
+                            type.getInterfaces().stream()
+                                    .map(TypeName::getInternalName)
+                                    .toArray(String[]::new),
+                            (type.getModifiers() & Opcodes.ACC_INTERFACE) != 0
+                    );
+                }
+
+                val header = _findHeader(type.getInnerClasses(), internalName);
+
+                if (header != null) {
+                    return header;
+                }
+            }
+
+            return null;
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ChainClassHierarchy implements ClassHierarchy {
+
+        ClassHierarchy[] hierarchies;
+
+        @Override
+        public @Nullable ClassHeader findHeader(final @NonNull String internalName) {
+            for (val hierarchy : hierarchies) {
+                val header = hierarchy.findHeader(internalName);
+
+                if (header != null) {
+                    return header;
+                }
+            }
+
+            return null;
+        }
+
+    }
+
+}
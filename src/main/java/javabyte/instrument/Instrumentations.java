@@ -0,0 +1,269 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.instrument;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Access to {@link Instrumentation}, which is either installed by the agent, or obtained
+ * by attaching agent to the current JVM.
+ * <p>
+ * Self attach is disabled since Java 9 by default and requires {@code -Djdk.attach.allowAttachSelf=true},
+ * on Java 8 the attach API is loaded from {@code tools.jar} of the JDK.
+ *
+ * @author whilein
+ */
+@UtilityClass
+public class Instrumentations {
+
+    private final String VIRTUAL_MACHINE = "com.sun.tools.attach.VirtualMachine";
+
+    private volatile Instrumentation instrumentation;
+
+    public void premain(final String args, final @NonNull Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    public void agentmain(final String args, final @NonNull Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    public void install(final @NonNull Instrumentation instrumentation) {
+        Instrumentations.instrumentation = instrumentation;
+    }
+
+    /**
+     * Get instrumentation, agent is attached to the current JVM on first call, if it's not installed yet.
+     *
+     * @return instrumentation
+     * @throws UnsupportedOperationException if agent cannot be attached
+     */
+    public synchronized @NotNull Instrumentation get() {
+        if (instrumentation == null) {
+            _attach();
+
+            if (instrumentation == null) {
+                throw new UnsupportedOperationException("Agent is attached, but instrumentation is not installed, "
+                        + "javabyte should be loaded by the system class loader");
+            }
+        }
+
+        return instrumentation;
+    }
+
+    /**
+     * Redefine loaded class. New class file should declare the same fields and methods,
+     * the same super class and interfaces, only bodies of the methods can be changed.
+     *
+     * @param type  loaded class
+     * @param bytes new class file
+     * @throws IllegalStateException         if shape of the class is changed
+     * @throws UnsupportedOperationException if instrumentation is not available
+     */
+    public void redefine(final @NonNull Class<?> type, final byte @NonNull [] bytes) {
+        _checkShape(type, bytes);
+
+        try {
+            get().redefineClasses(new ClassDefinition(type, bytes));
+        } catch (final ClassNotFoundException | UnmodifiableClassException e) {
+            throw new IllegalStateException("Cannot redefine " + type.getName(), e);
+        }
+    }
+
+    private void _checkShape(final Class<?> type, final byte[] bytes) {
+        val reader = new ClassReader(bytes);
+
+        if (!reader.getClassName().equals(Type.getInternalName(type))) {
+            throw new IllegalStateException("Cannot redefine " + type.getName()
+                    + " using class file of " + reader.getClassName());
+        }
+
+        val superType = type.getSuperclass();
+
+        val expectedSuperName = superType != null ? Type.getInternalName(superType) : null;
+        val expectedInterfaces = new HashSet<String>();
+
+        for (val interfaceType : type.getInterfaces()) {
+            expectedInterfaces.add(Type.getInternalName(interfaceType));
+        }
+
+        if (!String.valueOf(expectedSuperName).equals(String.valueOf(reader.getSuperName()))
+                || !expectedInterfaces.equals(new HashSet<>(Arrays.asList(reader.getInterfaces())))) {
+            throw new IllegalStateException("Cannot redefine " + type.getName() + ": hierarchy is changed");
+        }
+
+        val expectedMembers = new HashSet<String>();
+
+        for (val field : type.getDeclaredFields()) {
+            expectedMembers.add(field.getName() + ' ' + Type.getDescriptor(field.getType()));
+        }
+
+        for (val method : type.getDeclaredMethods()) {
+            expectedMembers.add(method.getName() + Type.getMethodDescriptor(method));
+        }
+
+        for (val constructor : type.getDeclaredConstructors()) {
+            expectedMembers.add("<init>" + Type.getConstructorDescriptor(constructor));
+        }
+
+        val members = new HashSet<String>();
+        reader.accept(new MembersCollector(members), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+
+        if (!expectedMembers.equals(members)) {
+            throw new IllegalStateException("Cannot redefine " + type.getName()
+                    + ": fields or methods are changed, expected " + expectedMembers + ", but found " + members);
+        }
+    }
+
+    private void _attach() {
+        final File agentJar;
+
+        try {
+            agentJar = _createAgentJar();
+        } catch (final IOException e) {
+            throw new UnsupportedOperationException("Cannot create agent jar", e);
+        }
+
+        try {
+            val runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+            val pid = runtimeName.substring(0, runtimeName.indexOf('@'));
+
+            val virtualMachineType = _findVirtualMachine();
+            val virtualMachine = virtualMachineType.getMethod("attach", String.class).invoke(null, pid);
+
+            try {
+                virtualMachineType.getMethod("loadAgent", String.class)
+                        .invoke(virtualMachine, agentJar.getAbsolutePath());
+            } finally {
+                virtualMachineType.getMethod("detach").invoke(virtualMachine);
+            }
+        } catch (final InvocationTargetException e) {
+            throw new UnsupportedOperationException("Cannot attach agent to the current JVM, "
+                    + "self attach requires -Djdk.attach.allowAttachSelf=true", e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Attach API is not available", e);
+        } finally {
+            agentJar.delete();
+        }
+    }
+
+    private Class<?> _findVirtualMachine() throws ClassNotFoundException {
+        try {
+            return Class.forName(VIRTUAL_MACHINE);
+        } catch (final ClassNotFoundException e) {
+            // java 8 keeps attach api in tools.jar
+            val toolsJar = new File(System.getProperty("java.home"), "../lib/tools.jar");
+
+            if (!toolsJar.exists()) {
+                throw e;
+            }
+
+            try {
+                val loader = new URLClassLoader(new URL[]{toolsJar.toURI().toURL()});
+
+                return Class.forName(VIRTUAL_MACHINE, true, loader);
+            } catch (final IOException ioe) {
+                throw e;
+            }
+        }
+    }
+
+    private File _createAgentJar() throws IOException {
+        val manifest = new Manifest();
+
+        val attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(new Attributes.Name("Agent-Class"), Instrumentations.class.getName());
+        attributes.put(new Attributes.Name("Can-Redefine-Classes"), "true");
+
+        val file = File.createTempFile("javabyte-agent", ".jar");
+
+        try (final JarOutputStream output = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            output.flush();
+        }
+
+        return file;
+    }
+
+    private static final class MembersCollector extends ClassVisitor {
+
+        private final Set<String> members;
+
+        private MembersCollector(final Set<String> members) {
+            super(Opcodes.ASM9);
+
+            this.members = members;
+        }
+
+        @Override
+        public FieldVisitor visitField(
+                final int access,
+                final String name,
+                final String descriptor,
+                final String signature,
+                final Object value
+        ) {
+            members.add(name + ' ' + descriptor);
+
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                final int access,
+                final String name,
+                final String descriptor,
+                final String signature,
+                final String[] exceptions
+        ) {
+            // static initializer is not visible using reflection
+            if (!name.equals("<clinit>")) {
+                members.add(name + descriptor);
+            }
+
+            return null;
+        }
+
+    }
+
+}
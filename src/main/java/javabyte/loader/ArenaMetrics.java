@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.loader;
+
+/**
+ * @author whilein
+ */
+public interface ArenaMetrics {
+
+    /**
+     * @return count of arenas, which are not retired
+     */
+    int getLiveArenas();
+
+    /**
+     * @return count of retired arenas, which are not unloaded yet
+     */
+    int getRetiredArenas();
+
+    /**
+     * @return count of retired arenas, which are collected by GC
+     */
+    long getUnloadedArenas();
+
+    long getDefinedClasses();
+
+    long getDefinedBytes();
+
+}
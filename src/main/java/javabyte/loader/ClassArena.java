@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.loader;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Group of generated classes, that are defined in single class loader and unloaded together.
+ *
+ * @author whilein
+ */
+public interface ClassArena {
+
+    /**
+     * Get class loader of this arena, {@link javabyte.make.MakeClass#load(ClassLoader)}
+     * defines classes in it without reflection.
+     *
+     * @return class loader
+     */
+    @NotNull ClassLoader getLoader();
+
+    /**
+     * Define class in this arena.
+     *
+     * @param name  name of class
+     * @param bytes class file
+     * @return defined class
+     * @throws IllegalStateException if arena is retired or arena of the pool reached its limits
+     */
+    @NotNull Class<?> define(@NotNull String name, byte @NotNull [] bytes);
+
+    int getClassCount();
+
+    long getByteCount();
+
+    boolean isRetired();
+
+    /**
+     * Mark arena as retired, retired arena rejects new classes
+     * and will be unloaded when its classes become unreachable.
+     */
+    void retire();
+
+}
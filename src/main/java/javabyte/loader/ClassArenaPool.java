@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.loader;
+
+import javabyte.make.MakeClass;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * @author whilein
+ */
+public interface ClassArenaPool {
+
+    /**
+     * Get current arena, the arena is retired and replaced with a new one
+     * if its class count or byte count limit is reached.
+     *
+     * @return current arena
+     */
+    @NotNull ClassArena getArena();
+
+    @NotNull Class<?> load(@NotNull MakeClass type);
+
+    /**
+     * Retire current arena, next classes will be defined in a new arena.
+     */
+    void rollover();
+
+    @NotNull ArenaMetrics getMetrics();
+
+}
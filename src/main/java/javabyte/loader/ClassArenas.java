@@ -0,0 +1,284 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.loader;
+
+import javabyte.make.MakeClass;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class ClassArenas {
+
+    /**
+     * Create standalone arena.
+     *
+     * @param parent parent class loader
+     * @return new arena
+     */
+    public @NotNull ClassArena arena(final @Nullable ClassLoader parent) {
+        return new ArenaClassLoader(parent, null);
+    }
+
+    /**
+     * Create pool of arenas, current arena rolls over when it reaches any of limits.
+     *
+     * @param parent     parent class loader of arenas
+     * @param maxClasses maximum count of classes in arena, {@code 0} to disable limit
+     * @param maxBytes   maximum size of class files in arena, {@code 0} to disable limit
+     * @return new pool
+     */
+    public @NotNull ClassArenaPool pool(
+            final @Nullable ClassLoader parent,
+            final int maxClasses,
+            final long maxBytes
+    ) {
+        if (maxClasses < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Limits should not be negative");
+        }
+
+        return new ClassArenaPoolImpl(parent, maxClasses, maxBytes);
+    }
+
+    /**
+     * Thrown if class is defined in retired or full arena, pool retries to load the class in the next arena.
+     */
+    private static final class RejectedDefineException extends IllegalStateException {
+
+        private static final long serialVersionUID = 1L;
+
+        private RejectedDefineException(final String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * Class loader of the arena. Limits and retirement are checked, and counts are updated
+     * atomically before the class is defined, so concurrent defines never overshoot the limits.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ArenaClassLoader extends ClassLoader implements ClassArena {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        final Object lock = new Object();
+
+        final ClassArenaPoolImpl pool;
+
+        volatile int classCount;
+        volatile long byteCount;
+        volatile boolean retired;
+
+        private ArenaClassLoader(final ClassLoader parent, final ClassArenaPoolImpl pool) {
+            super(parent);
+
+            this.pool = pool;
+        }
+
+        @Override
+        public @NotNull ClassLoader getLoader() {
+            return this;
+        }
+
+        @Override
+        public @NotNull Class<?> define(final @NonNull String name, final byte @NonNull [] bytes) {
+            synchronized (lock) {
+                if (retired) {
+                    throw new RejectedDefineException("Arena is retired");
+                }
+
+                if (pool != null && pool.isFull(this)) {
+                    throw new RejectedDefineException("Arena is full");
+                }
+
+                _count(1, bytes.length);
+            }
+
+            try {
+                synchronized (getClassLoadingLock(name)) {
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+            } catch (final Throwable e) {
+                synchronized (lock) {
+                    _count(-1, -bytes.length);
+                }
+
+                throw e;
+            }
+        }
+
+        private void _count(final int classes, final long bytes) {
+            classCount += classes;
+            byteCount += bytes;
+
+            if (pool != null) {
+                pool.definedClasses.addAndGet(classes);
+                pool.definedBytes.addAndGet(bytes);
+            }
+        }
+
+        @Override
+        public int getClassCount() {
+            return classCount;
+        }
+
+        @Override
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        @Override
+        public boolean isRetired() {
+            return retired;
+        }
+
+        @Override
+        public void retire() {
+            synchronized (lock) {
+                retired = true;
+            }
+        }
+
+    }
+
+    @Getter
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ArenaMetricsImpl implements ArenaMetrics {
+        int liveArenas;
+        int retiredArenas;
+        long unloadedArenas;
+        long definedClasses;
+        long definedBytes;
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ClassArenaPoolImpl implements ClassArenaPool {
+
+        final ClassLoader parent;
+
+        final int maxClasses;
+        final long maxBytes;
+
+        final ReferenceQueue<ClassArena> queue = new ReferenceQueue<>();
+        final Set<Reference<ClassArena>> retired = ConcurrentHashMap.newKeySet();
+
+        final AtomicLong unloaded = new AtomicLong();
+
+        final AtomicLong definedClasses = new AtomicLong();
+        final AtomicLong definedBytes = new AtomicLong();
+
+        volatile ClassArena current;
+
+        private ClassArenaPoolImpl(final ClassLoader parent, final int maxClasses, final long maxBytes) {
+            this.parent = parent;
+            this.maxClasses = maxClasses;
+            this.maxBytes = maxBytes;
+            this.current = new ArenaClassLoader(parent, this);
+        }
+
+        private boolean isFull(final ClassArena arena) {
+            return (maxClasses != 0 && arena.getClassCount() >= maxClasses)
+                    || (maxBytes != 0 && arena.getByteCount() >= maxBytes);
+        }
+
+        @Override
+        public @NotNull ClassArena getArena() {
+            val arena = current;
+
+            if (!isFull(arena) && !arena.isRetired()) {
+                return arena;
+            }
+
+            synchronized (this) {
+                if (current == arena) {
+                    _rollover();
+                }
+
+                return current;
+            }
+        }
+
+        @Override
+        public @NotNull Class<?> load(final @NonNull MakeClass type) {
+            while (true) {
+                val arena = getArena();
+
+                try {
+                    return type.load(arena.getLoader());
+                } catch (final RejectedDefineException e) {
+                    // arena is retired or filled by concurrent loads, so class is loaded in the next one
+                    synchronized (this) {
+                        if (current == arena) {
+                            _rollover();
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public synchronized void rollover() {
+            _rollover();
+        }
+
+        private void _rollover() {
+            val arena = current;
+            arena.retire();
+
+            retired.add(new PhantomReference<>(arena, queue));
+
+            current = new ArenaClassLoader(parent, this);
+        }
+
+        @Override
+        public @NotNull ArenaMetrics getMetrics() {
+            Reference<? extends ClassArena> reference;
+
+            while ((reference = queue.poll()) != null) {
+                if (retired.remove(reference)) {
+                    unloaded.incrementAndGet();
+                }
+            }
+
+            return new ArenaMetricsImpl(1, retired.size(), unloaded.get(),
+                    definedClasses.get(), definedBytes.get());
+        }
+
+    }
+
+}
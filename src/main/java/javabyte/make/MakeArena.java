@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.make;
+
+import javabyte.Version;
+import javabyte.type.ExactTypeName;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Makes classes, which lists and instruction streams are returned to the arena on {@link #reset()}
+ * and reused by classes, made after it.
+ * <p>
+ * Arena is not thread-safe, it is intended to be used by one generator thread.
+ *
+ * @author whilein
+ */
+public interface MakeArena {
+
+    @NotNull MakeClass make(@NotNull Version version, @NotNull String name);
+
+    @NotNull MakeClass make(@NotNull String name);
+
+    @NotNull MakeClass make(@NotNull Version version, @NotNull ExactTypeName name);
+
+    @NotNull MakeClass make(@NotNull ExactTypeName name);
+
+    /**
+     * Release all classes, made by this arena, and their inner classes. These classes and their elements
+     * should not be used after reset.
+     */
+    void reset();
+
+}
@@ -16,15 +16,24 @@
 
 package javabyte.make;
 
+import javabyte.CompileMode;
+import javabyte.FrameComputation;
+import javabyte.HiddenClassOption;
 import javabyte.Version;
+import javabyte.bytecode.pass.InstructionPass;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.cache.ClassKey;
+import javabyte.hierarchy.ClassHierarchy;
 import javabyte.type.ExactTypeName;
 import javabyte.type.TypeName;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Unmodifiable;
+import org.objectweb.asm.ClassVisitor;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Type;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -83,8 +92,99 @@ public interface MakeClass extends MakeElement {
 
     @NotNull List<@NotNull TypeName> getInterfaces();
 
+    @NotNull FrameComputation getFrameComputation();
+
+    void setFrameComputation(@NotNull FrameComputation frameComputation);
+
+    @NotNull CompileMode getCompileMode();
+
+    void setCompileMode(@NotNull CompileMode compileMode);
+
+    /**
+     * Whether executables of this class are compiled in parallel using {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * Instructions, added by {@link javabyte.bytecode.InstructionSet#callInsn} and
+     * {@link javabyte.bytecode.InstructionSet#whenCompile}, should be thread-safe.
+     *
+     * @return {@code true} if executables are compiled in parallel, {@code false} by default
+     */
+    boolean isParallelCompilation();
+
+    void setParallelCompilation(boolean parallelCompilation);
+
+    /**
+     * Whether compiled executables are kept and reused, until their instructions, signature or state of this class
+     * (name, super class, interfaces, hierarchy, compile mode, passes) are changed. Executables with custom
+     * instructions are always recompiled.
+     * <p>
+     * Executables aren't copied as bytes, reused executable is replayed into the class visitor
+     * from the recorded visitor calls, so it is still visited instruction by instruction.
+     *
+     * @return {@code true} if compiled executables are reused, {@code false} by default
+     */
+    boolean isIncrementalCompilation();
+
+    void setIncrementalCompilation(boolean incrementalCompilation);
+
+    /**
+     * Whether fields and executables of this class are released right after {@link #writeAsBytes()}.
+     *
+     * @return {@code true} if class is released after write, {@code false} by default
+     * @see #release()
+     */
+    boolean isReleaseAfterWrite();
+
+    void setReleaseAfterWrite(boolean releaseAfterWrite);
+
+    /**
+     * Drop fields and executables of this class along with their instructions, so they can be garbage collected.
+     * Released class cannot be written or loaded, inner classes are not released.
+     */
+    void release();
+
+    boolean isReleased();
+
+    /**
+     * Get hierarchy, that used to resolve common super classes of types, which are not generated
+     * along with this class.
+     *
+     * @return class hierarchy
+     */
+    @NotNull ClassHierarchy getHierarchy();
+
+    void setHierarchy(@NotNull ClassHierarchy hierarchy);
+
+    /**
+     * Get pass manager, which passes are applied to instructions of executables before compilation.
+     *
+     * @return pass manager, {@link javabyte.bytecode.pass.Passes#defaultManager()} by default
+     */
+    @NotNull PassManager getPassManager();
+
+    void setPassManager(@NotNull PassManager passManager);
+
+    /**
+     * Enable or disable pass for this class, regardless of {@link InstructionPass#isEnabledByDefault()}.
+     *
+     * @param name    name of pass
+     * @param enabled whether pass is enabled
+     */
+    void setPassEnabled(@NotNull String name, boolean enabled);
+
+    boolean isPassEnabled(@NotNull InstructionPass pass);
+
     @NotNull Class<?> load(@NotNull ClassLoader loader);
 
+    /**
+     * Define this class as hidden class using {@code lookup}, hidden classes are supported since Java 15.
+     *
+     * @param lookup  lookup, which class is in the same package as this class
+     * @param options hidden class options
+     * @return hidden class
+     * @throws UnsupportedOperationException if runtime doesn't support hidden classes
+     * @throws IllegalStateException         if this class has inner classes
+     */
+    @NotNull Class<?> load(@NotNull MethodHandles.Lookup lookup, @NotNull HiddenClassOption @NotNull ... options);
+
     void writeClass(@NotNull OutputStream os) throws IOException;
 
     void writeTo(@NotNull File directory) throws IOException;
@@ -93,4 +193,38 @@ public interface MakeClass extends MakeElement {
 
     byte @NotNull [] writeAsBytes();
 
+    /**
+     * Redefine bodies of methods of the loaded class in place, so the class keeps its identity and the state
+     * of call sites. Fields, executables and their signatures should be the same as in the loaded class.
+     * <p>
+     * Instrumentation is obtained using {@link javabyte.instrument.Instrumentations#get()}.
+     *
+     * @param type loaded class with the same name
+     * @throws IllegalStateException         if fields or executables of the class are changed
+     * @throws UnsupportedOperationException if instrumentation is not available
+     */
+    void redefine(@NotNull Class<?> type);
+
+    /**
+     * Stream this class into {@code visitor} without writing it into bytes. Inner classes are not visited.
+     * <p>
+     * Max stack and locals are always visited, but frames only if frame computation
+     * is {@link FrameComputation#TRACKED}, otherwise they should be computed by the visitor chain,
+     * e.g. {@link org.objectweb.asm.ClassWriter#COMPUTE_FRAMES}.
+     *
+     * @param visitor class visitor
+     */
+    void accept(@NotNull ClassVisitor visitor);
+
+    /**
+     * Compute structural hash of this class and its inner classes. Instructions, including switches,
+     * are hashed without compilation. Only executables with opaque instructions, which state is unknown
+     * until they are compiled (e.g. {@link javabyte.bytecode.InstructionSet#callInsn},
+     * {@link javabyte.bytecode.InstructionSet#whenCompile(Runnable)} or {@code callInit}),
+     * are compiled to be hashed, so such classes are compiled on every call.
+     *
+     * @return key of this class
+     */
+    @NotNull ClassKey computeKey();
+
 }
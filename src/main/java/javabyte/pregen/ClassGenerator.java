@@ -0,0 +1,36 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pregen;
+
+import javabyte.make.MakeClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Generator of classes, which are written at build time by {@link PregenMain}.
+ * <p>
+ * Implementations are found using {@link java.util.ServiceLoader}.
+ *
+ * @author whilein
+ */
+public interface ClassGenerator {
+
+    @NotNull Collection<? extends @NotNull MakeClass> generate();
+
+}
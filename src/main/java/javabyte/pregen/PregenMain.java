@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pregen;
+
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Entry point of build-time generation, the only argument is output directory.
+ *
+ * @author whilein
+ */
+@UtilityClass
+public class PregenMain {
+
+    public void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PregenMain <classes directory>");
+            System.exit(1);
+            return;
+        }
+
+        val loader = Thread.currentThread().getContextClassLoader();
+        val count = Pregenerated.generate(Paths.get(args[0]), loader);
+
+        System.out.println("Pre-generated " + count + " classes into " + args[0]);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pregen;
+
+import javabyte.make.MakeClass;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class Pregenerated {
+
+    /**
+     * Write class and its inner classes into package directory of {@code classesDirectory}.
+     *
+     * @param type             class
+     * @param classesDirectory root of class files, e.g. <code>build/classes/java/main</code>
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final @NonNull MakeClass type, final @NonNull Path classesDirectory) throws IOException {
+        val name = type.getName().getInternalName();
+        val separator = name.lastIndexOf('/');
+
+        val packageDirectory = separator == -1
+                ? classesDirectory
+                : classesDirectory.resolve(name.substring(0, separator));
+
+        Files.createDirectories(packageDirectory);
+        type.writeTo(packageDirectory);
+    }
+
+    /**
+     * Run all {@link ClassGenerator}s, visible to {@code loader}, and write their classes.
+     *
+     * @param classesDirectory root of class files
+     * @param loader           class loader of generators
+     * @return count of written classes
+     * @throws IOException if an I/O error occurs
+     */
+    public int generate(final @NonNull Path classesDirectory, final @NonNull ClassLoader loader) throws IOException {
+        int count = 0;
+
+        for (val generator : ServiceLoader.load(ClassGenerator.class, loader)) {
+            for (val type : generator.generate()) {
+                write(type, classesDirectory);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Find pre-generated class without initializing it.
+     *
+     * @param name   binary name of class
+     * @param loader class loader
+     * @return class or {@code null} if it was not pre-generated
+     */
+    public @Nullable Class<?> find(final @NonNull String name, final @NonNull ClassLoader loader) {
+        if (loader.getResource(name.replace('.', '/') + ".class") == null) {
+            return null;
+        }
+
+        try {
+            return Class.forName(name, false, loader);
+        } catch (final ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get pre-generated class or generate and load it into {@code loader}.
+     *
+     * @param name      binary name of class
+     * @param loader    class loader
+     * @param generator generator, called only if class is not pre-generated
+     * @return class
+     */
+    public @NotNull Class<?> load(
+            final @NonNull String name,
+            final @NonNull ClassLoader loader,
+            final @NonNull Supplier<@NotNull MakeClass> generator
+    ) {
+        val pregenerated = find(name, loader);
+
+        if (pregenerated != null) {
+            return pregenerated;
+        }
+
+        return generator.get().load(loader);
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.reflect;
+
+import javabyte.signature.ClassSignature;
+import javabyte.signature.MethodSignature;
+import javabyte.type.ExactTypeName;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Reflection metadata of the class, computed once and cached until the class is unloaded.
+ *
+ * @author whilein
+ */
+public interface ClassMetadata {
+
+    @NotNull Class<?> getType();
+
+    @NotNull ExactTypeName getName();
+
+    @NotNull ClassSignature getSignature();
+
+    /**
+     * Get methods, declared in the class, with given name.
+     *
+     * @param name name of methods
+     * @return declared methods, or empty list if there are no methods with given name
+     */
+    @Unmodifiable @NotNull List<@NotNull Method> getDeclaredMethods(@NotNull String name);
+
+    /**
+     * Get generic signature of the method, declared in the class.
+     *
+     * @param method method, declared in the class
+     * @return signature of the method
+     */
+    @NotNull MethodSignature getMethodSignature(@NotNull Method method);
+
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.reflect;
+
+import javabyte.signature.ClassSignature;
+import javabyte.signature.MethodSignature;
+import javabyte.signature.Signatures;
+import javabyte.type.ExactTypeName;
+import javabyte.type.Types;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author whilein
+ */
+@UtilityClass
+public class Reflections {
+
+    private final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(final Class<?> type) {
+            return new ClassMetadataImpl(type, Types.of(type), new ConcurrentHashMap<>());
+        }
+    };
+
+    /**
+     * Get metadata of the class, metadata is cached using {@link ClassValue}, so it's unloaded with the class.
+     *
+     * @param type class
+     * @return metadata
+     */
+    public @NotNull ClassMetadata of(final @NonNull Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ClassMetadataImpl implements ClassMetadata {
+
+        @Getter
+        final Class<?> type;
+
+        @Getter
+        final ExactTypeName name;
+
+        final Map<Method, MethodSignature> methodSignatures;
+
+        // lazily computed, both are immutable, so they are safe to publish by race
+        ClassSignature signature;
+        Map<String, List<Method>> declaredMethods;
+
+        @Override
+        public @NotNull ClassSignature getSignature() {
+            ClassSignature signature = this.signature;
+
+            if (signature == null) {
+                this.signature = signature = Signatures.ofClass(type);
+            }
+
+            return signature;
+        }
+
+        @Override
+        public @Unmodifiable @NotNull List<@NotNull Method> getDeclaredMethods(final @NonNull String name) {
+            Map<String, List<Method>> declaredMethods = this.declaredMethods;
+
+            if (declaredMethods == null) {
+                this.declaredMethods = declaredMethods = _declaredMethods();
+            }
+
+            return declaredMethods.getOrDefault(name, Collections.emptyList());
+        }
+
+        private Map<String, List<Method>> _declaredMethods() {
+            val methods = new HashMap<String, List<Method>>();
+
+            for (val method : type.getDeclaredMethods()) {
+                methods.computeIfAbsent(method.getName(), __ -> new ArrayList<>(1)).add(method);
+            }
+
+            for (val entry : methods.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            return Collections.unmodifiableMap(methods);
+        }
+
+        @Override
+        public @NotNull MethodSignature getMethodSignature(final @NonNull Method method) {
+            if (method.getDeclaringClass() != type) {
+                throw new IllegalArgumentException(method + " is not declared in " + type.getName());
+            }
+
+            return methodSignatures.computeIfAbsent(method, Signatures::ofMethod);
+        }
+
+    }
+
+}
@@ -29,8 +29,15 @@ public interface MethodSignature extends Signature {
 
     @NotNull TypeName getReturnType();
 
+    /**
+     * Get copy of parameter types.
+     *
+     * @return parameter types
+     */
     @NotNull TypeName @NotNull [] getParameterTypes();
 
+    int getParameterCount();
+
     @NotNull String getDescriptor();
     void getDescriptor(@NotNull StringBuilder out);
 
@@ -16,9 +16,11 @@
 
 package javabyte.signature;
 
+import javabyte.type.Parameter;
 import javabyte.type.TypeName;
 import javabyte.type.TypeParameter;
 import javabyte.type.Types;
+import javabyte.util.Interner;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.UtilityClass;
@@ -28,6 +30,8 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.GenericDeclaration;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author whilein
@@ -35,6 +39,10 @@ import java.lang.reflect.Type;
 @UtilityClass
 public class Signatures {
 
+    private static final TypeParameter[] NO_GENERIC = new TypeParameter[0];
+
+    private static final Interner<List<Object>, MethodSignature> METHOD_SIGNATURES = new Interner<>();
+
     private static TypeParameter[] getTypeParameters(final GenericDeclaration declaration) {
         val typeParameters = declaration.getTypeParameters();
         val typeParameterNames = new TypeParameter[typeParameters.length];
@@ -47,11 +55,37 @@ public class Signatures {
         return typeParameterNames;
     }
 
+    private static boolean _isBoundToClass(final Parameter[] parameters) {
+        for (val parameter : parameters)
+            if (Types.isBoundToClass(parameter))
+                return true;
+
+        return false;
+    }
+
     private static MethodSignature _methodSignature(
+            final TypeParameter[] generic,
             final TypeName returnType,
             final TypeName[] parameters
     ) {
-        return new MethodSignatureImpl(new TypeParameter[0], returnType, parameters);
+        val key = new Object[generic.length + parameters.length + 2];
+        key[0] = generic.length;
+        System.arraycopy(generic, 0, key, 1, generic.length);
+        key[generic.length + 1] = returnType;
+        System.arraycopy(parameters, 0, key, generic.length + 2, parameters.length);
+
+        // interner ignores classes of names, so signatures with them aren't interned
+        if (Types.isBoundToClass(returnType) || _isBoundToClass(generic) || _isBoundToClass(parameters)) {
+            return new MethodSignatureImpl(generic.clone(), returnType, parameters.clone(), Arrays.hashCode(key));
+        }
+
+        val keyList = Arrays.asList(key);
+        val cache = METHOD_SIGNATURES.get(keyList);
+
+        return cache != null
+                ? cache
+                : METHOD_SIGNATURES.intern(keyList, new MethodSignatureImpl(generic.clone(), returnType,
+                parameters.clone(), Arrays.hashCode(key)));
     }
 
     public static @NotNull MethodSignature methodSignature(
@@ -59,21 +93,21 @@ public class Signatures {
             final @NonNull TypeName returnType,
             final @NotNull TypeName @NonNull [] parameters
     ) {
-        return new MethodSignatureImpl(variables, returnType, parameters);
+        return _methodSignature(variables, returnType, parameters);
     }
 
     public static @NotNull MethodSignature methodSignature(
             final @NonNull TypeName returnType,
             final @NotNull TypeName @NonNull ... parameters
     ) {
-        return _methodSignature(returnType, parameters);
+        return _methodSignature(NO_GENERIC, returnType, parameters);
     }
 
     public static @NotNull MethodSignature methodSignature(
             final @NonNull Type returnType,
             final @NotNull Type @NonNull ... parameters
     ) {
-        return _methodSignature(Types.of(returnType), Types.of(parameters));
+        return _methodSignature(NO_GENERIC, Types.of(returnType), Types.of(parameters));
     }
 
     public static @NotNull ClassSignature classSignature(
@@ -88,7 +122,7 @@ public class Signatures {
             final @NonNull TypeName superName,
             final @NotNull TypeName @Nullable [] interfaces
     ) {
-        return new ClassSignatureImpl(new TypeParameter[0], superName, interfaces);
+        return new ClassSignatureImpl(NO_GENERIC, superName, interfaces);
     }
 
 
@@ -107,7 +141,7 @@ public class Signatures {
 
         val typeParameters = getTypeParameters(method);
 
-        return new MethodSignatureImpl(typeParameters, returnName, parameterNames);
+        return _methodSignature(typeParameters, returnName, parameterNames);
     }
 
     @Getter
@@ -179,25 +213,77 @@ public class Signatures {
 
     }
 
-    @Getter
-    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @FieldDefaults(level = AccessLevel.PRIVATE)
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class MethodSignatureImpl implements MethodSignature {
 
-        TypeParameter[] generic;
-        TypeName returnType;
-        TypeName[] parameterTypes;
+        final TypeParameter[] generic;
+
+        @Getter
+        final TypeName returnType;
+
+        final TypeName[] parameterTypes;
+
+        final int hash;
+
+        // lazily computed, signatures are shared between threads, but strings are safe to publish by race
+        String descriptor;
+        String signature;
+
+        // signatures are interned, so arrays are copied to keep them immutable
+        @Override
+        public @NotNull TypeParameter @NotNull [] getGeneric() {
+            return generic.length == 0 ? generic : generic.clone();
+        }
+
+        @Override
+        public @NotNull TypeName @NotNull [] getParameterTypes() {
+            return parameterTypes.length == 0 ? parameterTypes : parameterTypes.clone();
+        }
+
+        @Override
+        public int getParameterCount() {
+            return parameterTypes.length;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof MethodSignatureImpl)) return false;
+
+            val that = (MethodSignatureImpl) obj;
+
+            return hash == that.hash
+                    && returnType.equals(that.returnType)
+                    && Arrays.equals(parameterTypes, that.parameterTypes)
+                    && Arrays.equals(generic, that.generic);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
 
         @Override
         public @NotNull String getSignature() {
-            val out = new StringBuilder();
-            getSignature(out);
+            String signature = this.signature;
 
-            return out.toString();
+            if (signature == null) {
+                val out = new StringBuilder();
+                _getSignature(out);
+
+                this.signature = signature = out.toString();
+            }
+
+            return signature;
         }
 
         @Override
         public void getSignature(final @NonNull StringBuilder out) {
+            out.append(getSignature());
+        }
+
+        private void _getSignature(final StringBuilder out) {
             if (generic.length != 0) {
                 out.append('<');
                 for (val generic : generic) {
@@ -236,14 +322,24 @@ public class Signatures {
 
         @Override
         public @NotNull String getDescriptor() {
-            val out = new StringBuilder();
-            getDescriptor(out);
+            String descriptor = this.descriptor;
 
-            return out.toString();
+            if (descriptor == null) {
+                val out = new StringBuilder();
+                _getDescriptor(out);
+
+                this.descriptor = descriptor = out.toString();
+            }
+
+            return descriptor;
         }
 
         @Override
         public void getDescriptor(final @NonNull StringBuilder out) {
+            out.append(getDescriptor());
+        }
+
+        private void _getDescriptor(final StringBuilder out) {
             out.append('(');
             for (val parameterType : parameterTypes) {
                 parameterType.getDescriptor(out);
@@ -17,6 +17,7 @@
 package javabyte.type;
 
 import javabyte.util.AsmUtils;
+import javabyte.util.Interner;
 import javabyte.util.StringUtils;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -33,8 +34,15 @@ import java.util.*;
 @UtilityClass
 public class Types {
 
-    private static final Map<String, ExactTypeName> CACHE_INTERNAL = new HashMap<>();
-    private static final Map<String, ExactTypeName> CACHE = new HashMap<>();
+    private static final Interner<String, ExactTypeName> NAMES = new Interner<>();
+    private static final Interner<List<Object>, ParameterizedTypeName> PARAMETERIZED = new Interner<>();
+
+    private static final ClassValue<ExactTypeName> CLASS_NAMES = new ClassValue<ExactTypeName>() {
+        @Override
+        protected ExactTypeName computeValue(final Class<?> type) {
+            return _of(type);
+        }
+    };
 
     private static final char[] PRIMITIVE_DESCRIPTORS = "VZBSCIJFD".toCharArray();
 
@@ -124,7 +132,7 @@ public class Types {
     }
 
     public @NotNull ExactTypeName of(final @NonNull Class<?> cls) {
-        return _of(cls);
+        return CLASS_NAMES.get(cls);
     }
 
     private ExactTypeName _of(final Class<?> cls) {
@@ -136,7 +144,15 @@ public class Types {
             component = component.getComponentType();
         }
 
-        return _getCacheOrInit(component.getName(), dimensions, false, cls);
+        val name = (ExactTypeNameImpl) _getCacheOrInit(component.getName(), dimensions, false);
+
+        // classes of bootstrap loader are resolved by name to the same class, others are carried
+        // by separate name, so interned names are never bound to the class loader
+        if (name.originalClass == cls || component.getClassLoader() == null) {
+            return name;
+        }
+
+        return _fromName(component.getName(), -1, dimensions, cls);
     }
 
     public @NotNull TypeName of(final @NonNull Type type) {
@@ -148,11 +164,11 @@ public class Types {
     }
 
     public @NotNull ExactTypeName of(final @NonNull String name) {
-        return _fromName(name, 0, null);
+        return _getCacheOrInit(name, 0, false);
     }
 
     public @NotNull ExactTypeName ofInternal(final @NonNull String internalName) {
-        return _getCacheOrInit(internalName, 0, true, null);
+        return _getCacheOrInit(internalName, 0, true);
     }
 
     public @NotNull ExactTypeName @NotNull [] of(final @NotNull String @NonNull [] names) {
@@ -183,7 +199,7 @@ public class Types {
             throw new IllegalStateException("You should specify at least one parameter");
         }
 
-        return new ParameterizedTypeNameImpl(name, parameters);
+        return _parameterized(name, parameters);
     }
 
     public @NotNull Wildcard wildcardUpper(final @NotNull TypeName @NonNull ... names) {
@@ -218,36 +234,93 @@ public class Types {
         return false;
     }
 
+    /**
+     * Whether name or any of its parameters and bounds carries the class of non-bootstrap class loader.
+     * Such names are not interned, so values, containing them, shouldn't be interned too.
+     *
+     * @param parameter name or parameter
+     * @return {@code true} if it is bound to the class of non-bootstrap class loader
+     */
+    public boolean isBoundToClass(final @NonNull Parameter parameter) {
+        if (parameter instanceof ExactTypeNameImpl) {
+            val originalClass = ((ExactTypeNameImpl) parameter).originalClass;
+
+            return originalClass != null && originalClass.getClassLoader() != null;
+        } else if (parameter instanceof ParameterizedTypeNameImpl) {
+            val parameterized = (ParameterizedTypeNameImpl) parameter;
+
+            return isBoundToClass(parameterized.rawName) || _isBoundToClass(parameterized.parameters);
+        } else if (parameter instanceof WildcardImpl) {
+            val wildcard = (WildcardImpl) parameter;
+
+            return _isBoundToClass(wildcard.upper) || _isBoundToClass(wildcard.lower);
+        } else if (parameter instanceof TypeParameterImpl) {
+            return _isBoundToClass(((TypeParameterImpl) parameter).bounds);
+        }
+
+        return false;
+    }
+
+    private boolean _isBoundToClass(final Parameter[] parameters) {
+        if (parameters != null) {
+            for (val parameter : parameters)
+                if (isBoundToClass(parameter))
+                    return true;
+        }
+
+        return false;
+    }
+
     private ExactTypeName _putCache(final Class<?> type) {
         return _putCache(-1, type);
     }
 
     private ExactTypeName _putCache(final int primitive, final Class<?> type) {
-        val name = _fromName(type.getName(), primitive, 0, "\\.", type);
+        return NAMES.intern(type.getName(), _fromName(type.getName(), primitive, 0, type));
+    }
 
-        CACHE.put(type.getName(), name);
-        CACHE_INTERNAL.put(type.getName().replace('.', '/'), name);
+    private ExactTypeName _getCacheOrInit(final String type, final int dimensions, final boolean internal) {
+        val name = internal ? type.replace('/', '.') : type;
+        val key = dimensions == 0 ? name : _arrayName(name, dimensions);
 
-        return name;
-    }
+        val cache = NAMES.get(key);
 
-    private ExactTypeName _getCacheOrInit(final String type, final int dimensions, final boolean internal,
-                                          final Class<?> originalClass) {
-        if (dimensions == 0) {
-            val cache = internal ? CACHE_INTERNAL.get(type) : CACHE.get(type);
-            if (cache != null) return cache;
+        if (cache != null) {
+            return cache;
         }
 
-        return _fromName(type, -1, dimensions, internal ? "/" : "\\.", originalClass);
+        return NAMES.intern(key, _fromName(name, -1, dimensions, null));
+    }
+
+    private String _arrayName(final String name, final int dimensions) {
+        val out = new StringBuilder(name.length() + dimensions * 2).append(name);
+
+        for (int i = 0; i < dimensions; i++)
+            out.append('[').append(']');
+
+        return out.toString();
     }
 
-    private ExactTypeName _fromName(final String name, final int primitive, final int dimensions, final String separator,
+    private ExactTypeName _fromName(final String name, final int primitive, final int dimensions,
                                     final Class<?> originalClass) {
-        return new ExactTypeNameImpl(primitive, dimensions, name.split(separator), originalClass);
+        return new ExactTypeNameImpl(primitive, dimensions, name.replace('.', '/'), originalClass);
     }
 
-    private ExactTypeName _fromName(final String name, final int dimensions, final Class<?> originalClass) {
-        return _fromName(name, -1, dimensions, "\\.", originalClass);
+    private ParameterizedTypeName _parameterized(final ExactTypeName rawName, final Parameter[] parameters) {
+        if (isBoundToClass(rawName) || _isBoundToClass(parameters)) {
+            return new ParameterizedTypeNameImpl(rawName, parameters.clone());
+        }
+
+        val key = new Object[parameters.length + 1];
+        key[0] = rawName;
+        System.arraycopy(parameters, 0, key, 1, parameters.length);
+
+        val keyList = Arrays.asList(key);
+        val cache = PARAMETERIZED.get(keyList);
+
+        return cache != null
+                ? cache
+                : PARAMETERIZED.intern(keyList, new ParameterizedTypeNameImpl(rawName, parameters.clone()));
     }
 
     private Parameter _getParam(final Type type) {
@@ -274,7 +347,7 @@ public class Types {
 
     private TypeName _fromType(final Type type) {
         if (type instanceof Class<?>) {
-            return _of((Class<?>) type);
+            return CLASS_NAMES.get((Class<?>) type);
         } else if (type instanceof ParameterizedType) {
             val parameterized = (ParameterizedType) type;
 
@@ -284,7 +357,7 @@ public class Types {
             val raw = _fromType(rawType);
             val parameters = _getParams(parameterTypes);
 
-            return new ParameterizedTypeNameImpl((ExactTypeName) raw, parameters);
+            return _parameterized((ExactTypeName) raw, parameters);
         } else {
             throw new IllegalArgumentException(type.getClass().getName() + " is not supported");
         }
@@ -312,7 +385,7 @@ public class Types {
         val exactNames = new ExactTypeName[names.length];
 
         for (int i = 0, j = names.length; i < j; i++)
-            exactNames[i] = Types._getCacheOrInit(names[i], 0, internal, null);
+            exactNames[i] = Types._getCacheOrInit(names[i], 0, internal);
 
         return exactNames;
     }
@@ -321,7 +394,7 @@ public class Types {
         val exactNames = new ExactTypeName[types.length];
 
         for (int i = 0, j = types.length; i < j; i++)
-            exactNames[i] = _of(types[i]);
+            exactNames[i] = CLASS_NAMES.get(types[i]);
 
         return exactNames;
     }
@@ -329,17 +402,17 @@ public class Types {
     @NoArgsConstructor(access = AccessLevel.PROTECTED)
     private static abstract class AbstractParameter implements Parameter {
         @Override
-        public final @NotNull String getSignature() {
+        public @NotNull String getSignature() {
             return StringUtils.from(this::getSignature);
         }
 
         @Override
-        public final @NotNull String getDescriptor() {
+        public @NotNull String getDescriptor() {
             return StringUtils.from(this::getDescriptor);
         }
 
         @Override
-        public final @NotNull String toString() {
+        public @NotNull String toString() {
             return StringUtils.from(this::toString);
         }
     }
@@ -347,12 +420,12 @@ public class Types {
     @NoArgsConstructor(access = AccessLevel.PROTECTED)
     private static abstract class AbstractTypeName extends AbstractParameter implements TypeName {
         @Override
-        public final @NotNull String getInternalName() {
+        public @NotNull String getInternalName() {
             return StringUtils.from(this::getInternalName);
         }
 
         @Override
-        public final @NotNull String getName() {
+        public @NotNull String getName() {
             return StringUtils.from(this::getName);
         }
     }
@@ -363,8 +436,16 @@ public class Types {
     private static final class ParameterizedTypeNameImpl extends AbstractTypeName implements ParameterizedTypeName {
 
         ExactTypeName rawName;
+
+        @Getter(AccessLevel.NONE)
         Parameter[] parameters;
 
+        @Override
+        public @NotNull Parameter @NotNull [] getParameters() {
+            // interned names are shared, so the array is copied
+            return parameters.length == 0 ? parameters : parameters.clone();
+        }
+
         @Override
         public int getDimensions() {
             return rawName.getDimensions();
@@ -463,7 +544,25 @@ public class Types {
 
         @Override
         public @NotNull ParameterizedTypeName dimensions(final int dimensions) {
-            return new ParameterizedTypeNameImpl(rawName.dimensions(dimensions), parameters);
+            if (dimensions == rawName.getDimensions()) return this;
+
+            return _parameterized(rawName.dimensions(dimensions), parameters);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof ParameterizedTypeName)) return false;
+
+            val that = (ParameterizedTypeName) obj;
+
+            return rawName.equals(that.getRawName())
+                    && Arrays.equals(parameters, that.getParameters());
+        }
+
+        @Override
+        public int hashCode() {
+            return rawName.hashCode() * 31 + Arrays.hashCode(parameters);
         }
     }
 
@@ -580,12 +679,13 @@ public class Types {
             if (!(obj instanceof TypeParameter)) return false;
 
             val that = (TypeParameter) obj;
-            return Arrays.equals(getBounds(), that.getBounds());
+            return label.equals(that.getLabel())
+                    && Arrays.equals(getBounds(), that.getBounds());
         }
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(bounds);
+            return label.hashCode() * 31 + Arrays.hashCode(bounds);
         }
 
         @Override
@@ -633,24 +733,66 @@ public class Types {
 
     }
 
-    @Getter
     @FieldDefaults(level = AccessLevel.PRIVATE)
-    @AllArgsConstructor(access = AccessLevel.PRIVATE)
     private static final class ExactTypeNameImpl extends AbstractTypeName implements ExactTypeName {
 
+        @Getter
         final int primitive;
+
+        @Getter
         final int dimensions;
-        final String[] array;
 
-        Class<?> originalClass;
+        /**
+         * Internal name of the component, e.g. {@code java/lang/String} for {@code String[][]}
+         */
+        final String component;
+
+        final int hash;
+
+        /**
+         * Class, that is carried by the name, it is set only for built-in names and names of classes,
+         * that are not loaded by bootstrap loader. Interned names are never bound to other classes.
+         */
+        final Class<?> originalClass;
+
+        // lazily computed, types are shared between threads, but strings are safe to publish by race
+        String name;
+        String internalName;
+        String descriptor;
+        String[] array;
+        ExactTypeName componentType;
+
+        private ExactTypeNameImpl(
+                final int primitive,
+                final int dimensions,
+                final String component,
+                final Class<?> originalClass
+        ) {
+            this.primitive = primitive;
+            this.dimensions = dimensions;
+            this.component = component;
+            this.originalClass = originalClass;
+
+            this.hash = component.hashCode() * 31 + dimensions;
+        }
 
         @Override
         public boolean equals(final Object obj) {
             if (obj == this) return true;
+
+            if (obj instanceof ExactTypeNameImpl) {
+                val that = (ExactTypeNameImpl) obj;
+
+                return hash == that.hash
+                        && dimensions == that.dimensions
+                        && primitive == that.primitive
+                        && component.equals(that.component);
+            }
+
             if (!(obj instanceof ExactTypeName)) return false;
 
             val that = (ExactTypeName) obj;
-            
+
             return dimensions == that.getDimensions()
                     && primitive == that.getPrimitive()
                     && Arrays.equals(split(), that.split());
@@ -658,7 +800,7 @@ public class Types {
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(array);
+            return hash;
         }
 
         @Override
@@ -672,7 +814,13 @@ public class Types {
                 throw new IllegalStateException(this + " should be an array");
             }
 
-            return dimensions(dimensions - 1);
+            ExactTypeName componentType = this.componentType;
+
+            if (componentType == null) {
+                this.componentType = componentType = dimensions(dimensions - 1);
+            }
+
+            return componentType;
         }
 
         @Override
@@ -688,73 +836,107 @@ public class Types {
         @Override
         @SneakyThrows
         public @NotNull Class<?> toClass() {
-            if (originalClass == null) {
-                originalClass = Class.forName(getName());
-                originalClass = _originalWithDims(0, dimensions);
+            if (originalClass != null) {
+                return originalClass;
             }
 
-            return originalClass;
+            val componentName = _componentName();
+
+            // built-in names, e.g. primitives, always carry the class
+            val builtIn = (ExactTypeNameImpl) NAMES.get(componentName);
+
+            val component = builtIn != null && builtIn.originalClass != null
+                    ? builtIn.originalClass
+                    : Class.forName(componentName);
+
+            return _withDims(component, 0, dimensions);
         }
 
         @Override
         public @NotNull String getSimpleName() {
-            return array[array.length - 1];
+            return component.substring(component.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public @NotNull String getName() {
+            String name = this.name;
+
+            if (name == null) {
+                name = component.replace('/', '.');
+
+                if (dimensions > 0) {
+                    name = _arrayName(name, dimensions);
+                }
+
+                this.name = name;
+            }
+
+            return name;
         }
 
         @Override
         public void getName(final @NonNull StringBuilder out) {
-            for (int i = 0, j = array.length; i < j; i++) {
-                if (i != 0) out.append('.');
-                out.append(array[i]);
+            out.append(getName());
+        }
+
+        @Override
+        public @NotNull String getInternalName() {
+            String internalName = this.internalName;
+
+            if (internalName == null) {
+                this.internalName = internalName = dimensions > 0 ? getDescriptor() : component;
             }
 
-            for (int i = 0; i < dimensions; i++)
-                out.append('[').append(']');
+            return internalName;
         }
 
         @Override
         public void getInternalName(final @NonNull StringBuilder out) {
-            if (getDimensions() > 0) {
-                out.append('[');
+            out.append(getInternalName());
+        }
 
-                val component = getComponent();
-                component.getSignature(out);
-            } else {
-                for (int i = 0, j = array.length; i < j; i++) {
-                    if (i != 0) out.append('/');
-                    out.append(array[i]);
+        @Override
+        public @NotNull String getDescriptor() {
+            String descriptor = this.descriptor;
+
+            if (descriptor == null) {
+                if (primitive != -1) {
+                    descriptor = String.valueOf(PRIMITIVE_DESCRIPTORS[primitive]);
+                } else if (dimensions > 0) {
+                    descriptor = '[' + getComponent().getDescriptor();
+                } else {
+                    descriptor = 'L' + component + ';';
                 }
+
+                this.descriptor = descriptor;
             }
+
+            return descriptor;
         }
 
         @Override
-        public void getSignature(final @NonNull StringBuilder out) {
-            if (primitive != -1) {
-                val descriptor = PRIMITIVE_DESCRIPTORS[primitive];
-                out.append(descriptor);
-                return;
-            }
+        public void getDescriptor(final @NonNull StringBuilder out) {
+            out.append(getDescriptor());
+        }
 
-            if (dimensions > 0) {
-                out.append('[');
+        @Override
+        public @NotNull String getSignature() {
+            return getDescriptor();
+        }
 
-                val component = getComponent();
-                component.getSignature(out);
-            } else {
-                out.append('L');
-                getInternalName(out);
-                out.append(';');
-            }
+        @Override
+        public void getSignature(final @NonNull StringBuilder out) {
+            out.append(getDescriptor());
         }
 
         @Override
-        public void getDescriptor(final @NonNull StringBuilder out) {
-            getSignature(out);
+        public @NotNull String toString() {
+            return getName();
         }
 
         @Override
         public void toString(final @NonNull StringBuilder out) {
-            getName(out);
+            out.append(getName());
         }
 
         @Override
@@ -769,16 +951,28 @@ public class Types {
 
         @Override
         public @NotNull String @Nullable [] split() {
+            String[] array = this.array;
+
+            if (array == null) {
+                this.array = array = component.split("/");
+            }
+
             return array;
         }
 
+        private String _componentName() {
+            return dimensions == 0
+                    ? getName()
+                    : getName().substring(0, getName().length() - dimensions * 2);
+        }
+
         @Override
         public @NotNull ParameterizedTypeName parameterized(final @NotNull Parameter @NonNull ... parameters) {
             if (parameters.length < 1) {
                 throw new IllegalStateException("You should specify at least one parameter");
             }
 
-            return new ParameterizedTypeNameImpl(this, parameters);
+            return _parameterized(this, parameters);
         }
 
         @Override
@@ -787,24 +981,22 @@ public class Types {
                 throw new IllegalStateException("You should specify at least one parameter");
             }
 
-            return new ParameterizedTypeNameImpl(this, _fromArray(parameters));
+            return _parameterized(this, _fromArray(parameters));
         }
 
         @Override
         public @NotNull ExactTypeName dimensions(final int dimensions) {
             if (dimensions == this.dimensions) return this;
 
-            val originalClass = this.originalClass != null
-                    ? _originalWithDims(this.dimensions, dimensions)
-                    : null;
+            if (originalClass != null) {
+                return CLASS_NAMES.get(_withDims(originalClass, this.dimensions, dimensions));
+            }
 
-            return dimensions == 0
-                    ? _getCacheOrInit(String.join(".", array), 0, false, originalClass)
-                    : new ExactTypeNameImpl(primitive, dimensions, array, originalClass);
+            return _getCacheOrInit(_componentName(), dimensions, false);
         }
 
         @SneakyThrows
-        private Class<?> _originalWithDims(final int originalDims, final int dims) {
+        private Class<?> _withDims(final Class<?> originalClass, final int originalDims, final int dims) {
             Class<?> result = originalClass;
 
             int diff = Math.abs(originalDims - dims);
@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.util;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent interner with weak values, entries are expunged after their values are collected.
+ *
+ * @author whilein
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class Interner<K, V> {
+
+    ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    ReferenceQueue<V> queue = new ReferenceQueue<>();
+
+    public @Nullable V get(final @NonNull K key) {
+        _expunge();
+
+        val entry = entries.get(key);
+        return entry != null ? entry.get() : null;
+    }
+
+    /**
+     * Intern value by given key.
+     *
+     * @param key   key
+     * @param value value to intern
+     * @return already interned value or {@code value} itself
+     */
+    public @NotNull V intern(final @NonNull K key, final @NonNull V value) {
+        _expunge();
+
+        val newEntry = new Entry<K, V>(key, value, queue);
+
+        while (true) {
+            val entry = entries.putIfAbsent(key, newEntry);
+            if (entry == null) return value;
+
+            val existing = entry.get();
+            if (existing != null) return existing;
+
+            if (entries.replace(key, entry, newEntry)) return value;
+        }
+    }
+
+    public int size() {
+        _expunge();
+
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void _expunge() {
+        Entry<K, V> entry;
+
+        while ((entry = (Entry<K, V>) queue.poll()) != null) {
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class Entry<K, V> extends WeakReference<V> {
+
+        K key;
+
+        private Entry(final K key, final V value, final ReferenceQueue<V> queue) {
+            super(value, queue);
+
+            this.key = key;
+        }
+
+    }
+
+}
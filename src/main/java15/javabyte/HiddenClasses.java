@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * @author whilein
+ */
+final class HiddenClasses {
+
+    private HiddenClasses() {
+        throw new UnsupportedOperationException();
+    }
+
+    static Class<?> define(
+            final MethodHandles.Lookup lookup,
+            final byte[] bytes,
+            final HiddenClassOption[] options
+    ) {
+        final MethodHandles.Lookup.ClassOption[] classOptions = new MethodHandles.Lookup.ClassOption[options.length];
+
+        for (int i = 0; i < options.length; i++) {
+            switch (options[i]) {
+                case NESTMATE:
+                    classOptions[i] = MethodHandles.Lookup.ClassOption.NESTMATE;
+                    break;
+                case STRONG:
+                    classOptions[i] = MethodHandles.Lookup.ClassOption.STRONG;
+                    break;
+            }
+        }
+
+        try {
+            return lookup.defineHiddenClass(bytes, true, classOptions).lookupClass();
+        } catch (final IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.arena;
+
+import javabyte.CompileMode;
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.make.MakeArena;
+import javabyte.make.MakeClass;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class MakeArenaTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("MakeArena_Reuse")
+    @SneakyThrows
+    void reuse() {
+        val arena = Javabyte.arena();
+
+        val first = makeSum(arena, testName + "First", MathOpcode.IADD);
+        assertEquals(5, apply(first, 2, 3));
+
+        arena.reset();
+        assertTrue(first.isReleased());
+
+        val second = makeSum(arena, testName + "Second", MathOpcode.IMUL);
+        assertFalse(second.isReleased());
+        assertEquals(6, apply(second, 2, 3));
+    }
+
+    @Test
+    @DisplayName("MakeArena_ReleasedClass")
+    void releasedClass() {
+        val type = makeSum(Javabyte.arena(), testName, MathOpcode.IADD);
+        type.release();
+
+        assertTrue(type.getMethods().isEmpty());
+        assertThrows(IllegalStateException.class, type::writeAsBytes);
+    }
+
+    @Test
+    @DisplayName("MakeArena_StaleHandle")
+    @SneakyThrows
+    void staleHandle() {
+        val arena = Javabyte.arena();
+
+        val first = makeSum(arena, testName + "First", MathOpcode.IADD);
+        val method = first.getMethods().get(0);
+        val field = first.addField("value", int.class);
+        val code = method.getBytecode();
+
+        arena.reset();
+
+        val second = makeSum(arena, testName + "Second", MathOpcode.IMUL);
+
+        assertThrows(IllegalStateException.class, () -> first.addInterface(Runnable.class));
+        assertThrows(IllegalStateException.class, () -> first.addField("other", int.class));
+        assertThrows(IllegalStateException.class, () -> first.addMethod("other"));
+        assertThrows(IllegalStateException.class, () -> first.setCompileMode(CompileMode.TRUSTED));
+        assertThrows(IllegalStateException.class, first::setPublic);
+        assertThrows(IllegalStateException.class, field::setPrivate);
+        assertThrows(IllegalStateException.class, () -> method.addParameter(int.class));
+        assertThrows(IllegalStateException.class, () -> method.addException(Exception.class));
+        assertThrows(IllegalStateException.class, () -> method.setReturnType(long.class));
+        assertThrows(IllegalStateException.class, () -> code.pushInt(1));
+        assertThrows(IllegalStateException.class, code::getInstructions);
+
+        assertEquals(6, apply(second, 2, 3));
+    }
+
+    @Test
+    @DisplayName("MakeArena_ReleaseAfterWrite")
+    @SneakyThrows
+    void releaseAfterWrite() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setReleaseAfterWrite(true);
+
+        val inner = type.addInner("Inner");
+        inner.setPublicFinal();
+
+        type.writeAsBytes();
+
+        assertTrue(type.isReleased());
+        assertFalse(inner.isReleased());
+        assertThrows(IllegalStateException.class, type::writeAsBytes);
+    }
+
+    @SneakyThrows
+    private int apply(final MakeClass type, final int left, final int right) {
+        return type.load(TestClassLoader.create())
+                .asSubclass(IntBinaryOperator.class)
+                .newInstance()
+                .applyAsInt(left, right);
+    }
+
+    private MakeClass makeSum(final MakeArena arena, final String name, final MathOpcode opcode) {
+        val type = arena.make(name);
+        type.setPublicFinal();
+        type.addInterface(IntBinaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.callMath(opcode);
+        code.callReturn();
+
+        return type;
+    }
+
+}
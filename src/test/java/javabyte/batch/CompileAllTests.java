@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.batch;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class CompileAllTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("CompileAll_DependencyOrder")
+    void dependencyOrder() {
+        val base = Javabyte.make(testName + "Base");
+        base.setPublic();
+
+        val child = Javabyte.make(testName + "Child");
+        child.setPublicFinal();
+        child.setSuperName(base.getName());
+
+        val inner = child.addInner("Inner");
+        inner.setPublicFinal();
+        inner.setStatic(true);
+
+        val classes = Javabyte.compileAll(Arrays.asList(child, base), TestClassLoader.create());
+
+        assertEquals(Arrays.asList(testName + "Base", testName + "Child", testName + "Child$Inner"),
+                Arrays.asList(classes.keySet().toArray()));
+
+        assertSame(classes.get(testName + "Base"), classes.get(testName + "Child").getSuperclass());
+    }
+
+    @Test
+    @DisplayName("CompileAll_Cycle")
+    void cycle() {
+        val first = Javabyte.make(testName + "First");
+        val second = Javabyte.make(testName + "Second");
+
+        first.setSuperName(second.getName());
+        second.setSuperName(first.getName());
+
+        assertThrows(IllegalStateException.class, () -> Javabyte.compileAll(Arrays.asList(first, second),
+                TestClassLoader.create()));
+    }
+
+    @Test
+    @DisplayName("CompileAll_WriteAll")
+    void writeAll() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+
+        val inner = type.addInner("Inner");
+        inner.setPublicFinal();
+
+        val bytes = Javabyte.writeAll(Collections.singletonList(type));
+
+        assertEquals(Arrays.asList(testName, testName + "$Inner"), Arrays.asList(bytes.keySet().toArray()));
+        assertEquals(type.writeAsBytes().length, bytes.get(testName).length);
+        assertEquals(inner.writeAsBytes().length, bytes.get(testName + "$Inner").length);
+    }
+
+}
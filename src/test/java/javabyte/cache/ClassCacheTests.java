@@ -0,0 +1,266 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.cache;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.pass.InstructionPass;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.bytecode.pass.Passes;
+import javabyte.make.MakeClass;
+import javabyte.make.MakeExecutable;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class ClassCacheTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("ClassKey")
+    void classKey() {
+        val key = make("A").computeKey();
+
+        assertEquals(key, make("A").computeKey());
+        assertEquals(64, key.toHexString().length());
+        assertNotEquals(key, make("B").computeKey());
+
+        val withField = make("A");
+        withField.addField("field", int.class);
+
+        assertNotEquals(key, withField.computeKey());
+    }
+
+    @Test
+    @DisplayName("ClassCache_Bytes")
+    void cacheBytes() {
+        val cache = ClassCaches.memory();
+        val type = make("A");
+
+        assertArrayEquals(type.writeAsBytes(), cache.writeAsBytes(type));
+        assertArrayEquals(type.writeAsBytes(), cache.writeAsBytes(make("A")));
+    }
+
+    @Test
+    @DisplayName("ClassCache_SingleFlight")
+    @SneakyThrows
+    void cacheSingleFlight() {
+        val cache = ClassCaches.memory();
+        val loader = TestClassLoader.create();
+
+        val executor = Executors.newFixedThreadPool(8);
+
+        try {
+            val tasks = new ArrayList<Callable<Class<?>>>();
+
+            for (int i = 0; i < 32; i++) {
+                tasks.add(() -> cache.load(make("A"), loader));
+            }
+
+            val first = executor.submit(tasks.get(0)).get();
+
+            for (val result : executor.invokeAll(tasks)) {
+                assertSame(first, result.get());
+            }
+
+            assertEquals("A", ((Supplier<?>) first.newInstance()).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("ClassStore_Directory")
+    void storeDirectory(final @TempDir Path directory) {
+        val generated = new AtomicInteger();
+
+        val type = make("A");
+        val key = type.computeKey();
+
+        val bytes = ClassCaches.directory(directory).computeIfAbsent(key, () -> {
+            generated.incrementAndGet();
+            return type.writeAsBytes();
+        });
+
+        // another store on the same directory, e.g. after restart
+        val store = ClassCaches.directory(directory);
+
+        assertArrayEquals(bytes, store.read(key));
+        assertArrayEquals(bytes, store.computeIfAbsent(key, () -> {
+            generated.incrementAndGet();
+            return type.writeAsBytes();
+        }));
+        assertArrayEquals(bytes, store.writeAsBytes(make("A")));
+
+        assertNull(store.read(ClassKeys.of("missing")));
+        assertEquals(1, generated.get());
+
+        assertTrue(Files.exists(directory.resolve(key.toHexString() + ".class")));
+        assertFalse(Files.exists(directory.resolve(key.toHexString() + ".lock")));
+    }
+
+    @Test
+    @DisplayName("ClassStore_DeterministicSwitch")
+    void deterministicSwitch() {
+        assertArrayEquals(makeSwitch().writeAsBytes(), makeSwitch().writeAsBytes());
+        assertEquals(makeSwitch().computeKey(), makeSwitch().computeKey());
+    }
+
+    @Test
+    @DisplayName("ClassKey_WithoutCompilation")
+    void keyWithoutCompilation() {
+        val compiled = new AtomicInteger();
+        val passes = counting(compiled);
+
+        val type = make("A");
+        type.setPassManager(passes);
+
+        val key = type.computeKey();
+        assertEquals(0, compiled.get());
+
+        val other = make("A");
+        other.setPassManager(passes);
+
+        assertEquals(key, other.computeKey());
+        assertEquals(0, compiled.get());
+
+        ClassCaches.memory().writeAsBytes(type);
+        assertEquals(2, compiled.get()); // get and default constructor
+    }
+
+    @Test
+    @DisplayName("ClassKey_SwitchWithoutCompilation")
+    void switchKeyWithoutCompilation() {
+        val compiled = new AtomicInteger();
+        val passes = counting(compiled);
+
+        val type = makeSwitch();
+        type.setPassManager(passes);
+
+        val other = makeSwitch();
+        other.setPassManager(passes);
+
+        assertEquals(type.computeKey(), other.computeKey());
+        assertEquals(0, compiled.get());
+
+        val reordered = makeSwitch("A", "B", "C", "D", "AaAa", "BBBB");
+        reordered.setPassManager(passes);
+
+        assertNotEquals(type.computeKey(), reordered.computeKey());
+        assertEquals(0, compiled.get());
+    }
+
+    private MakeClass makeSwitch() {
+        return makeSwitch("D", "AaAa", "C", "BBBB", "B", "A");
+    }
+
+    private MakeClass makeSwitch(final String... branches) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+
+        val method = type.addMethod("switchValue");
+        method.setPublic();
+        method.setReturnType(String.class);
+        method.addParameter(String.class);
+
+        val switchCase = method.getBytecode().stringsSwitchCaseInsn()
+                .source(1);
+
+        for (val branch : branches) {
+            val code = switchCase.branch(branch);
+            code.pushString(branch);
+            code.callReturn();
+        }
+
+        val defaultBranch = switchCase.defaultBranch();
+        defaultBranch.pushNull();
+        defaultBranch.callReturn();
+
+        return type;
+    }
+
+    private static PassManager counting(final AtomicInteger compiled) {
+        val passes = Passes.manager();
+        passes.addLast(new InstructionPass() {
+            @Override
+            public @NotNull String getName() {
+                return "count";
+            }
+
+            @Override
+            public boolean isEnabledByDefault() {
+                return true;
+            }
+
+            @Override
+            public void apply(final @NotNull MakeExecutable executable, final @NotNull InstructionStream instructions) {
+                compiled.incrementAndGet();
+            }
+        });
+
+        return passes;
+    }
+
+    private MakeClass make(final String value) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(Supplier.class);
+
+        val method = type.addMethod("get");
+        method.setPublic();
+        method.setReturnType(Object.class);
+
+        val code = method.getBytecode();
+        code.pushString(value);
+        code.callReturn();
+
+        return type;
+    }
+
+}
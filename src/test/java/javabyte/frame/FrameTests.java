@@ -0,0 +1,305 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.frame;
+
+import javabyte.FrameComputation;
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.bytecode.InstructionSet;
+import javabyte.iterate.IterateArray;
+import javabyte.iterate.IterateList;
+import javabyte.make.MakeClass;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MethodOpcode;
+import javabyte.switchcase.SwitchCaseStrings;
+import javabyte.type.Types;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * @author whilein
+ */
+final class FrameTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_IterateArray")
+    @SneakyThrows
+    void iterateArray() {
+        val type = make(IterateArray.class);
+
+        val method = type.addMethod("iterate");
+        method.setPublic();
+        method.copySignatureFrom(IterateArray.class);
+
+        iterate(method.getBytecode());
+
+        val indexes = new ArrayList<Integer>();
+
+        type.load(TestClassLoader.create())
+                .asSubclass(IterateArray.class)
+                .newInstance()
+                .iterate(new String[]{"A", "B", "C"}, (x, y) -> indexes.add(x * y));
+
+        assertEquals(Arrays.asList(0, 3, 6), indexes);
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_IterateList")
+    @SneakyThrows
+    void iterateList() {
+        val type = make(IterateList.class);
+
+        val method = type.addMethod("iterate");
+        method.setPublic();
+        method.copySignatureFrom(IterateList.class);
+
+        iterate(method.getBytecode());
+
+        val indexes = new ArrayList<Integer>();
+
+        type.load(TestClassLoader.create())
+                .asSubclass(IterateList.class)
+                .newInstance()
+                .iterate(Arrays.asList("A", "B", "C"), (x, y) -> indexes.add(x * y));
+
+        assertEquals(Arrays.asList(0, 3, 6), indexes);
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_SwitchCaseStrings")
+    @SneakyThrows
+    void switchCaseStrings() {
+        val type = make(SwitchCaseStrings.class);
+
+        val method = type.addMethod("switchValue");
+        method.setPublic();
+        method.setReturnType(String.class);
+        method.addParameter(String.class);
+
+        val switchCase = method.getBytecode().stringsSwitchCaseInsn()
+                .source(1);
+
+        val branches = new String[]{"A", "B", "AaAa", "BBBB"};
+
+        for (val branch : branches) {
+            val code = switchCase.branch(branch);
+            code.pushString(branch.toLowerCase());
+            code.callReturn();
+        }
+
+        val defaultBranch = switchCase.defaultBranch();
+        defaultBranch.pushString("Default");
+        defaultBranch.callReturn();
+
+        val instance = type.load(TestClassLoader.create())
+                .asSubclass(SwitchCaseStrings.class)
+                .newInstance();
+
+        for (val branch : branches) {
+            assertEquals(branch.toLowerCase(), instance.switchValue(branch));
+        }
+
+        assertEquals("Default", instance.switchValue("C"));
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_CompareLongs")
+    @SneakyThrows
+    void compareLongs() {
+        val type = make(LongBinaryOperator.class);
+
+        val method = type.addMethod("applyAsLong");
+        method.setPublic();
+        method.copySignatureFrom(LongBinaryOperator.class);
+
+        val code = method.getBytecode();
+
+        val equals = Bytecode.position();
+
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.jumpIfEquals(equals);
+        code.pushLong(0);
+        code.callReturn();
+
+        code.visit(equals);
+        code.pushLong(1);
+        code.callReturn();
+
+        val instance = type.load(TestClassLoader.create())
+                .asSubclass(LongBinaryOperator.class)
+                .newInstance();
+
+        assertEquals(1, instance.applyAsLong(5, 5));
+        assertEquals(0, instance.applyAsLong(5, 6));
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_EqualsHashCodeToString")
+    @SneakyThrows
+    void equalsHashCodeToString() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setFrameComputation(FrameComputation.TRACKED);
+
+        type.addField("A", Types.INT);
+        type.addField("B", Types.LONG);
+        type.addField("C", Types.STRING);
+        type.addField("D", Types.OBJECT.dimensions(1));
+
+        type.addHashCodeAndEquals();
+        type.addToString();
+
+        val cls = type.load(TestClassLoader.create());
+
+        val first = cls.newInstance();
+        val second = cls.newInstance();
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, new Object());
+        assertEquals(testName + "[A=0, B=0, C='null', D=null]", first.toString());
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_BranchBeforeSuper")
+    @SneakyThrows
+    void branchBeforeSuper() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setFrameComputation(FrameComputation.TRACKED);
+        type.setSuperName(RuntimeException.class);
+
+        val constructor = type.addConstructor();
+        constructor.setPublic();
+        constructor.addParameter(boolean.class);
+
+        val code = constructor.getBytecode();
+
+        val other = Bytecode.position();
+        val end = Bytecode.position();
+
+        code.loadLocal(0);
+        code.loadLocal(1);
+        code.jump(JumpOpcode.IFEQ, other);
+        code.pushString("A");
+        code.jump(JumpOpcode.GOTO, end);
+        code.visit(other);
+        code.pushString("B");
+        code.visit(end);
+
+        code.methodInsn(MethodOpcode.SPECIAL, "<init>")
+                .inSuper()
+                .descriptor(void.class, String.class);
+
+        code.callReturn();
+
+        val constructorRef = type.load(TestClassLoader.create())
+                .asSubclass(RuntimeException.class)
+                .getConstructor(boolean.class);
+
+        assertEquals("A", constructorRef.newInstance(true).getMessage());
+        assertEquals("B", constructorRef.newInstance(false).getMessage());
+    }
+
+    @Test
+    @DisplayName("TrackedFrames_BranchInInit")
+    @SneakyThrows
+    void branchInInit() {
+        val type = make(IntFunction.class);
+
+        val method = type.addMethod("apply");
+        method.setPublic();
+        method.copySignatureFrom(IntFunction.class);
+
+        val code = method.getBytecode();
+
+        code.callInit(StringBuilder.class)
+                .parameters(String.class)
+                .init(init -> {
+                    val other = Bytecode.position();
+                    val end = Bytecode.position();
+
+                    init.loadLocal(1);
+                    init.jump(JumpOpcode.IFEQ, other);
+                    init.pushString("A");
+                    init.jump(JumpOpcode.GOTO, end);
+                    init.visit(other);
+                    init.pushString("B");
+                    init.visit(end);
+                });
+
+        code.callReturn();
+
+        val instance = type.load(TestClassLoader.create())
+                .asSubclass(IntFunction.class)
+                .newInstance();
+
+        assertEquals("A", instance.apply(1).toString());
+        assertEquals("B", instance.apply(0).toString());
+    }
+
+    private MakeClass make(final Class<?> iface) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setFrameComputation(FrameComputation.TRACKED);
+        type.addInterface(iface);
+
+        return type;
+    }
+
+    private void iterate(final InstructionSet code) {
+        code.loadLocal(1);
+
+        val iterate = code.iterateOverInsn().element(String.class);
+
+        val body = iterate.getBody();
+        body.loadLocal(2);
+        body.loadLocal(iterate.getCounterLocal());
+        body.callBox();
+        body.loadLocal(iterate.getLengthLocal());
+        body.callBox();
+        body.methodInsn(MethodOpcode.INTERFACE, "accept")
+                .descriptor(void.class, Object.class, Object.class)
+                .in(BiConsumer.class);
+
+        code.callReturn();
+    }
+
+}
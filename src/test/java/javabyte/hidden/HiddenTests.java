@@ -0,0 +1,104 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.hidden;
+
+import javabyte.HiddenClassOption;
+import javabyte.Javabyte;
+import javabyte.make.MakeClass;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.lang.invoke.MethodHandles;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class HiddenTests {
+
+    static final boolean HIDDEN_CLASSES_SUPPORTED;
+
+    static {
+        val version = System.getProperty("java.specification.version");
+
+        HIDDEN_CLASSES_SUPPORTED = !version.startsWith("1.") && Integer.parseInt(version) >= 15;
+    }
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("HiddenClass")
+    @SneakyThrows
+    void hiddenClass() {
+        val type = make();
+
+        if (!HIDDEN_CLASSES_SUPPORTED) {
+            assertThrows(UnsupportedOperationException.class, () -> type.load(MethodHandles.lookup()));
+            return;
+        }
+
+        val hiddenClass = type.load(MethodHandles.lookup(), HiddenClassOption.NESTMATE);
+
+        // hidden class name contains '/' followed by suffix
+        assertTrue(hiddenClass.getName().startsWith(type.getName().getName() + "/"));
+
+        @SuppressWarnings("unchecked")
+        val supplier = (Supplier<String>) hiddenClass.newInstance();
+
+        assertEquals("Hidden", supplier.get());
+    }
+
+    @Test
+    @DisplayName("HiddenClass_InnerClass")
+    void hiddenClassWithInnerClass() {
+        val type = make();
+        type.addInner("Inner");
+
+        assertThrows(IllegalStateException.class, () -> type.load(MethodHandles.lookup()));
+    }
+
+    private MakeClass make() {
+        val type = Javabyte.make(HiddenTests.class.getPackage().getName() + "." + testName);
+        type.setPublicFinal();
+        type.addInterface(Supplier.class);
+
+        val method = type.addMethod("get");
+        method.setPublic();
+        method.setReturnType(Object.class);
+
+        val code = method.getBytecode();
+        code.pushString("Hidden");
+        code.callReturn();
+
+        return type;
+    }
+
+}
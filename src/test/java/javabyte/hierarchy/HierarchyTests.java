@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.hierarchy;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.make.MakeClass;
+import javabyte.opcode.JumpOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author whilein
+ */
+final class HierarchyTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("CommonSuperClass_ClassFiles")
+    void commonSuperClassOfClassFiles() {
+        val hierarchy = Hierarchies.ofClassLoader(getClass().getClassLoader());
+
+        assertEquals("java/lang/Number",
+                Hierarchies.getCommonSuperClass(hierarchy, "java/lang/Integer", "java/lang/Long"));
+        assertEquals("java/util/AbstractList",
+                Hierarchies.getCommonSuperClass(hierarchy, "java/util/ArrayList", "java/util/LinkedList"));
+        assertEquals("java/lang/Object",
+                Hierarchies.getCommonSuperClass(hierarchy, "java/lang/String", "java/lang/Integer"));
+        assertEquals("java/lang/Object",
+                Hierarchies.getCommonSuperClass(hierarchy, "java/util/List", "java/util/ArrayList"));
+
+        assertNull(hierarchy.findHeader("javabyte/hierarchy/Missing"));
+        assertSame(hierarchy.findHeader("java/lang/Integer"), hierarchy.findHeader("java/lang/Integer"));
+    }
+
+    @Test
+    @DisplayName("ClassFiles_MissNotCached")
+    @SneakyThrows
+    void missNotCached(final @TempDir Path directory) {
+        val type = make("Late");
+        val internalName = type.getName().getInternalName();
+
+        try (val loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            val hierarchy = Hierarchies.ofClassLoader(loader);
+            assertNull(hierarchy.findHeader(internalName));
+
+            val file = directory.resolve(internalName + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, type.writeAsBytes());
+
+            val header = hierarchy.findHeader(internalName);
+            assertNotNull(header);
+            assertEquals("java/lang/Object", header.getSuperName());
+        }
+    }
+
+    @Test
+    @DisplayName("ClassFiles_LoaderNotRetained")
+    @SneakyThrows
+    void loaderNotRetained() {
+        val reference = cacheHierarchy();
+
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(reference.get());
+    }
+
+    @SneakyThrows
+    private static WeakReference<ClassLoader> cacheHierarchy() {
+        val loader = new URLClassLoader(new URL[0], null);
+        Hierarchies.ofClassLoader(loader).findHeader("java/lang/Object");
+        loader.close();
+
+        return new WeakReference<>(loader);
+    }
+
+    @Test
+    @DisplayName("CommonSuperClass_Generated")
+    @SneakyThrows
+    void commonSuperClassOfGenerated() {
+        val base = make("Base");
+        val first = make("First");
+        first.setSuperName(base.getName());
+        val second = make("Second");
+        second.setSuperName(base.getName());
+
+        val type = make("Pick");
+        type.setHierarchy(Hierarchies.chain(
+                Hierarchies.ofMakeClasses(base, first, second),
+                Hierarchies.ofClassLoader(getClass().getClassLoader())
+        ));
+
+        assertEquals(base.getName().getInternalName(), Hierarchies.getCommonSuperClass(type.getHierarchy(),
+                first.getName().getInternalName(), second.getName().getInternalName()));
+
+        val method = type.addMethod("pick");
+        method.setPublic();
+        method.setStatic(true);
+        method.setReturnType(Object.class);
+        method.addParameter(boolean.class);
+        method.addParameter(first.getName());
+        method.addParameter(second.getName());
+
+        val code = method.getBytecode();
+
+        val pickSecond = Bytecode.position();
+        val end = Bytecode.position();
+
+        code.loadLocal(0);
+        code.jump(JumpOpcode.IFEQ, pickSecond);
+        code.loadLocal(1);
+        code.jump(JumpOpcode.GOTO, end);
+        code.visit(pickSecond);
+        code.loadLocal(2);
+        code.visit(end);
+        code.callReturn();
+
+        // frames are computed before any of these classes are defined
+        type.writeAsBytes();
+
+        val loader = TestClassLoader.create();
+
+        base.load(loader);
+        val firstClass = first.load(loader);
+        val secondClass = second.load(loader);
+
+        val firstInstance = firstClass.newInstance();
+        val secondInstance = secondClass.newInstance();
+
+        val pick = type.load(loader).getMethod("pick", boolean.class, firstClass, secondClass);
+
+        assertSame(firstInstance, pick.invoke(null, true, firstInstance, secondInstance));
+        assertSame(secondInstance, pick.invoke(null, false, firstInstance, secondInstance));
+    }
+
+    private MakeClass make(final String name) {
+        val type = Javabyte.make(testName + name);
+        type.setPublic();
+
+        return type;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.importer;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.opcode.MathOpcode;
+import javabyte.type.Types;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.objectweb.asm.ClassReader;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class ImportClassTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("ImportClass_Unchanged")
+    void unchanged() {
+        val bytes = makeOriginal();
+        val type = Javabyte.importClass(bytes);
+
+        assertEquals(testName, type.getName().getName());
+        assertTrue(type.getMethods().isEmpty());
+
+        assertArrayEquals(bytes, type.writeAsBytes());
+    }
+
+    @Test
+    @DisplayName("ImportClass_ReplaceMethod")
+    @SneakyThrows
+    void replaceMethod() {
+        val type = Javabyte.importClass(makeOriginal());
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.callMath(MathOpcode.IMUL);
+        code.callReturn();
+
+        val instance = type.load(TestClassLoader.create()).newInstance();
+
+        assertEquals(6, ((IntBinaryOperator) instance).applyAsInt(2, 3));
+        assertEquals(10, ((IntSupplier) instance).getAsInt());
+    }
+
+    @Test
+    @DisplayName("ImportClass_AddMember")
+    @SneakyThrows
+    void addMember() {
+        val type = Javabyte.importClass(makeOriginal());
+
+        val field = type.addField("value", int.class);
+        field.setPublic();
+
+        val cls = type.load(TestClassLoader.create());
+
+        assertEquals(int.class, cls.getField("value").getType());
+        assertEquals(5, ((IntBinaryOperator) cls.newInstance()).applyAsInt(2, 3));
+    }
+
+    @Test
+    @DisplayName("ImportClass_KeepVersion")
+    void keepVersion() {
+        val bytes = makeOriginal();
+        bytes[5] = 3; // minor version
+        bytes[7] = 50; // major version of Java 6, that is not supported by Version
+
+        val type = Javabyte.importClass(bytes);
+
+        assertThrows(IllegalStateException.class, type::getVersion);
+        assertArrayEquals(bytes, type.writeAsBytes());
+
+        val offset = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, offset, 4, bytes.length);
+
+        assertArrayEquals(bytes, Javabyte.importClass(new ClassReader(offset, 4, bytes.length)).writeAsBytes());
+    }
+
+    private byte[] makeOriginal() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntBinaryOperator.class);
+        type.addInterface(Types.of(IntSupplier.class));
+
+        val sum = type.addMethod("applyAsInt");
+        sum.setPublic();
+        sum.copySignatureFrom(IntBinaryOperator.class);
+
+        val sumCode = sum.getBytecode();
+        sumCode.loadLocal(1);
+        sumCode.loadLocal(2);
+        sumCode.callMath(MathOpcode.IADD);
+        sumCode.callReturn();
+
+        val get = type.addMethod("getAsInt");
+        get.setPublic();
+        get.copySignatureFrom(IntSupplier.class);
+
+        val getCode = get.getBytecode();
+        getCode.pushInt(10);
+        getCode.callReturn();
+
+        return type.writeAsBytes();
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.incremental;
+
+import javabyte.CompileMode;
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.pass.InstructionPass;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.bytecode.pass.Passes;
+import javabyte.make.MakeClass;
+import javabyte.make.MakeExecutable;
+import javabyte.make.MakeMethod;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author whilein
+ */
+final class IncrementalCompilationTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("IncrementalCompilation_Reuse")
+    void reuse() {
+        val compiled = new ArrayList<String>();
+
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setIncrementalCompilation(true);
+        type.setPassManager(recording(compiled));
+
+        val method = addAbs(type);
+
+        val bytes = type.writeAsBytes();
+        assertEquals(Arrays.asList("applyAsInt", "<init>"), compiled);
+
+        compiled.clear();
+
+        // default constructor is created on every write
+        assertArrayEquals(bytes, type.writeAsBytes());
+        assertEquals(Collections.singletonList("<init>"), compiled);
+
+        compiled.clear();
+
+        method.setFinal(true);
+        type.writeAsBytes();
+        assertEquals(Arrays.asList("applyAsInt", "<init>"), compiled);
+    }
+
+    @Test
+    @DisplayName("IncrementalCompilation_CompileModeAndPasses")
+    void compileModeAndPasses() {
+        val compiled = new ArrayList<String>();
+
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setIncrementalCompilation(true);
+        type.setPassManager(recording(compiled));
+
+        addAbs(type);
+
+        type.writeAsBytes();
+        compiled.clear();
+
+        type.setCompileMode(CompileMode.TRUSTED);
+        type.writeAsBytes();
+        assertEquals(Arrays.asList("applyAsInt", "<init>"), compiled);
+
+        compiled.clear();
+
+        // same pass manager is changed
+        type.getPassManager().addFirst(new InstructionPass() {
+            @Override
+            public @NotNull String getName() {
+                return "noop";
+            }
+
+            @Override
+            public boolean isEnabledByDefault() {
+                return true;
+            }
+
+            @Override
+            public void apply(final @NotNull MakeExecutable executable, final @NotNull InstructionStream instructions) {
+            }
+        });
+
+        type.writeAsBytes();
+        assertEquals(Arrays.asList("applyAsInt", "<init>"), compiled);
+
+        compiled.clear();
+
+        type.writeAsBytes();
+        assertEquals(Collections.singletonList("<init>"), compiled);
+    }
+
+    @Test
+    @DisplayName("IncrementalCompilation_Replay")
+    @SneakyThrows
+    void replay() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setIncrementalCompilation(true);
+
+        addAbs(type);
+
+        type.writeAsBytes();
+        type.writeAsBytes();
+
+        val operator = type.load(TestClassLoader.create())
+                .asSubclass(IntUnaryOperator.class)
+                .newInstance();
+
+        assertEquals(5, operator.applyAsInt(-5));
+        assertEquals(7, operator.applyAsInt(7));
+    }
+
+    private static MakeMethod addAbs(final MakeClass type) {
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val positive = Bytecode.position();
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.jump(JumpOpcode.IFGE, positive);
+        code.pushInt(0);
+        code.loadLocal(1);
+        code.callMath(MathOpcode.ISUB);
+        code.callReturn();
+        code.visit(positive);
+        code.loadLocal(1);
+        code.callReturn();
+
+        return method;
+    }
+
+    private static PassManager recording(final List<String> compiled) {
+        val passes = Passes.manager();
+        passes.addLast(new InstructionPass() {
+            @Override
+            public @NotNull String getName() {
+                return "record";
+            }
+
+            @Override
+            public boolean isEnabledByDefault() {
+                return true;
+            }
+
+            @Override
+            public void apply(final @NotNull MakeExecutable executable, final @NotNull InstructionStream instructions) {
+                compiled.add(executable.getName());
+            }
+        });
+
+        return passes;
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.insn;
+
+import javabyte.EqualityStrategy;
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.bytecode.insn.InstructionKind;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.pass.Passes;
+import javabyte.opcode.MathOpcode;
+import javabyte.type.Types;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.lang.ref.WeakReference;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class InstructionStreamTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("InstructionStream_Entries")
+    void entries() {
+        val stream = InstructionStream.create(0);
+        val position = Bytecode.position();
+
+        stream.pushDouble(Double.NaN);
+        stream.jumpIfEquals(EqualityStrategy.SAFE, position, true);
+        stream.callMath(MathOpcode.IADD);
+
+        for (int i = 0; i < 100; i++) {
+            stream.pop();
+        }
+
+        assertEquals(103, stream.size());
+
+        assertEquals(InstructionKind.PUSH_DOUBLE, stream.getKind(0));
+        assertTrue(Double.isNaN(Double.longBitsToDouble(stream.getOperand(0))));
+
+        assertEquals(InstructionKind.JUMP_IF_EQUALS, stream.getKind(1));
+        assertSame(position, stream.getRef(1));
+
+        assertEquals(InstructionKind.MATH, stream.getKind(2));
+        assertSame(MathOpcode.IADD, stream.getRef(2));
+
+        assertEquals(InstructionKind.POP, stream.getKind(102));
+        assertThrows(IndexOutOfBoundsException.class, () -> stream.getKind(103));
+
+        stream.clear();
+
+        assertTrue(stream.isEmpty());
+    }
+
+    @Test
+    @DisplayName("InstructionStream_NewArray")
+    void newArray() {
+        val stream = InstructionStream.create();
+
+        assertThrows(IllegalArgumentException.class, () -> stream.callNewArray(Types.INT, 1));
+        assertTrue(stream.isEmpty());
+    }
+
+    @Test
+    @DisplayName("InstructionStream_LargeMethod")
+    @SneakyThrows
+    void largeMethod() {
+        val type = Javabyte.make(testName);
+        type.addInterface(IntSupplier.class);
+        type.setPublicFinal();
+
+        val method = type.addMethod("getAsInt");
+        method.setPublic();
+        method.setReturnType(int.class);
+
+        val code = method.getBytecode();
+        code.pushInt(0);
+
+        for (int i = 0; i < 10000; i++) {
+            code.pushInt(i);
+            code.callMath(MathOpcode.IADD);
+        }
+
+        code.callReturn();
+
+        val result = type.load(TestClassLoader.create())
+                .asSubclass(IntSupplier.class)
+                .newInstance();
+
+        assertEquals(49995000, result.getAsInt());
+    }
+
+    @Test
+    @DisplayName("InstructionStream_PushDefaultDouble")
+    @SneakyThrows
+    void pushDefaultDouble() {
+        val type = Javabyte.make(testName);
+        type.addInterface(DoubleSupplier.class);
+        type.setPublicFinal();
+
+        val method = type.addMethod("getAsDouble");
+        method.setPublic();
+        method.setReturnType(double.class);
+
+        val code = method.getBytecode();
+        code.pushDefault(Types.DOUBLE);
+        code.callReturn();
+
+        val result = type.load(TestClassLoader.create())
+                .asSubclass(DoubleSupplier.class)
+                .newInstance();
+
+        assertEquals(0.0, result.getAsDouble());
+    }
+
+    @Test
+    @DisplayName("InstructionStream_DeepStack")
+    @SneakyThrows
+    void deepStack() {
+        val type = Javabyte.make(testName);
+        type.addInterface(IntSupplier.class);
+        type.setPublicFinal();
+
+        val method = type.addMethod("getAsInt");
+        method.setPublic();
+        method.setReturnType(int.class);
+
+        // keep all values on the stack
+        type.setPassEnabled(Passes.CONSTANT_FOLDING, false);
+
+        val code = method.getBytecode();
+
+        for (int i = 0; i < 100; i++) {
+            code.pushInt(i);
+        }
+
+        for (int i = 1; i < 100; i++) {
+            code.callMath(MathOpcode.IADD);
+        }
+
+        code.callReturn();
+
+        val result = type.load(TestClassLoader.create())
+                .asSubclass(IntSupplier.class)
+                .newInstance();
+
+        assertEquals(4950, result.getAsInt());
+    }
+
+    @Test
+    @DisplayName("InstructionStream_InternedStackItems")
+    void internedStackItems() {
+        assertSame(Bytecode.item(Types.of(String.class)), Bytecode.item(Types.of(String.class)));
+        assertSame(Bytecode.INT, Bytecode.item(Types.INT));
+    }
+
+    @Test
+    @DisplayName("InstructionStream_StackItemsNotRetained")
+    @SneakyThrows
+    void stackItemsNotRetained() {
+        val loader = itemOfLoadedClass();
+
+        for (int i = 0; i < 100 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+
+            // collected items are expunged on the next access
+            Bytecode.item(Types.OBJECT);
+        }
+
+        assertNull(loader.get());
+    }
+
+    @SneakyThrows
+    private WeakReference<ClassLoader> itemOfLoadedClass() {
+        val type = Javabyte.make(testName);
+        type.setPublic();
+
+        val loader = TestClassLoader.create();
+        // item of the class itself is already created during compilation by the name without class
+        val item = Bytecode.item(Types.of(type.load(loader)).dimensions(1));
+
+        assertSame(item, Bytecode.item(item.getType()));
+
+        return new WeakReference<>(loader);
+    }
+
+}
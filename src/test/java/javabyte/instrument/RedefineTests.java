@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.instrument;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.make.MakeClass;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class RedefineTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("Redefine_MethodBody")
+    @SneakyThrows
+    void methodBody() {
+        val cls = makeSupplier(1).load(TestClassLoader.create());
+        val supplier = (IntSupplier) cls.newInstance();
+
+        assertEquals(1, supplier.getAsInt());
+
+        makeSupplier(2).redefine(cls);
+
+        assertEquals(2, supplier.getAsInt());
+    }
+
+    @Test
+    @DisplayName("Redefine_ChangedShape")
+    void changedShape() {
+        val cls = makeSupplier(1).load(TestClassLoader.create());
+
+        val type = makeSupplier(2);
+        type.addField("value", int.class);
+
+        assertThrows(IllegalStateException.class, () -> type.redefine(cls));
+    }
+
+    private MakeClass makeSupplier(final int value) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntSupplier.class);
+
+        val method = type.addMethod("getAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntSupplier.class);
+
+        val code = method.getBytecode();
+        code.pushInt(value);
+        code.callReturn();
+
+        return type;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.loader;
+
+import javabyte.Javabyte;
+import javabyte.make.MakeClass;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class ClassArenaTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("Arena")
+    @SneakyThrows
+    void arena() {
+        val arena = ClassArenas.arena(getClass().getClassLoader());
+        val type = make("A");
+
+        val cls = type.load(arena.getLoader());
+
+        assertSame(arena.getLoader(), cls.getClassLoader());
+        assertEquals(1, arena.getClassCount());
+        assertEquals(type.writeAsBytes().length, arena.getByteCount());
+        assertEquals("A", ((Supplier<?>) cls.newInstance()).get());
+        assertFalse(arena.isRetired());
+    }
+
+    @Test
+    @DisplayName("ArenaPool_Rollover")
+    void poolRollover() {
+        val pool = ClassArenas.pool(getClass().getClassLoader(), 2, 0);
+
+        val first = pool.load(make("A"));
+        val second = pool.load(make("B"));
+        val third = pool.load(make("C"));
+
+        assertSame(first.getClassLoader(), second.getClassLoader());
+        assertNotSame(first.getClassLoader(), third.getClassLoader());
+        assertTrue(((ClassArena) first.getClassLoader()).isRetired());
+
+        val metrics = pool.getMetrics();
+
+        assertEquals(1, metrics.getLiveArenas());
+        assertEquals(1, metrics.getRetiredArenas());
+        assertEquals(3, metrics.getDefinedClasses());
+    }
+
+    @Test
+    @DisplayName("ArenaPool_RetiredRejectsDefine")
+    void poolRetiredRejectsDefine() {
+        val pool = ClassArenas.pool(getClass().getClassLoader(), 0, 0);
+        val arena = pool.getArena();
+
+        pool.rollover();
+
+        val type = make("A");
+
+        assertThrows(IllegalStateException.class, () -> type.load(arena.getLoader()));
+        assertEquals(0, arena.getClassCount());
+
+        pool.load(type);
+        assertEquals(1, pool.getMetrics().getDefinedClasses());
+    }
+
+    @Test
+    @DisplayName("ArenaPool_Concurrent")
+    @SneakyThrows
+    void poolConcurrent() {
+        val pool = ClassArenas.pool(getClass().getClassLoader(), 2, 0);
+        val executor = Executors.newFixedThreadPool(8);
+
+        try {
+            val tasks = new ArrayList<Callable<Class<?>>>();
+
+            for (int i = 0; i < 32; i++) {
+                val type = make(String.valueOf(i));
+                tasks.add(() -> pool.load(type));
+            }
+
+            val arenas = new HashSet<ClassArena>();
+
+            for (val future : executor.invokeAll(tasks)) {
+                arenas.add((ClassArena) future.get().getClassLoader());
+            }
+
+            for (val arena : arenas) {
+                assertTrue(arena.getClassCount() <= 2);
+            }
+
+            assertEquals(32, pool.getMetrics().getDefinedClasses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("ArenaPool_Unload")
+    @SneakyThrows
+    void poolUnload() {
+        val pool = ClassArenas.pool(getClass().getClassLoader(), 0, 0);
+
+        pool.load(make("A"));
+        pool.rollover();
+
+        for (int i = 0; i < 100 && pool.getMetrics().getUnloadedArenas() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        val metrics = pool.getMetrics();
+
+        assertEquals(1, metrics.getUnloadedArenas());
+        assertEquals(0, metrics.getRetiredArenas());
+    }
+
+    private MakeClass make(final String value) {
+        val type = Javabyte.make(testName + value);
+        type.setPublicFinal();
+        type.addInterface(Supplier.class);
+
+        val method = type.addMethod("get");
+        method.setPublic();
+        method.setReturnType(Object.class);
+
+        val code = method.getBytecode();
+        code.pushString(value);
+        code.callReturn();
+
+        return type;
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.local;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.make.MakeClass;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author whilein
+ */
+final class LocalSlotTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("LocalSlots_DisjointRanges")
+    @SneakyThrows
+    void disjointRanges() {
+        val type = make(LongBinaryOperator.class);
+
+        val method = type.addMethod("applyAsLong");
+        method.setPublic();
+        method.copySignatureFrom(LongBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(1);
+        code.callMath(MathOpcode.LADD);
+        val sum = code.storeLocal();
+
+        code.loadLocal(sum);
+        code.loadLocal(sum);
+        code.callMath(MathOpcode.LMUL);
+        val product = code.storeLocal();
+
+        code.loadLocal(product);
+        code.loadLocal(product);
+        code.callMath(MathOpcode.LADD);
+        code.callReturn();
+
+        // this + 2 long parameters + 1 long local, product reuses slot of sum
+        assertEquals(7, maxLocals(type, "applyAsLong"));
+
+        assertEquals(72, type.load(TestClassLoader.create())
+                .asSubclass(LongBinaryOperator.class)
+                .newInstance()
+                .applyAsLong(3, 0));
+    }
+
+    @Test
+    @DisplayName("LocalSlots_Wide")
+    @SneakyThrows
+    void wide() {
+        val type = make(IntBinaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        val first = code.storeLocal();
+
+        code.loadLocal(2);
+        val second = code.storeLocal();
+
+        code.loadLocal(first);
+        code.loadLocal(first);
+        code.callMath(MathOpcode.IADD);
+        code.callCast(long.class);
+        val wide = code.storeLocal();
+
+        code.loadLocal(wide);
+        code.loadLocal(second);
+        code.callCast(long.class);
+        code.callMath(MathOpcode.LADD);
+        code.loadLocal(wide);
+        code.callMath(MathOpcode.LADD);
+        code.callCast(int.class);
+        code.loadLocal(second);
+        code.callMath(MathOpcode.IADD);
+        code.callReturn();
+
+        // freed slot of the first local is too narrow for the long one
+        assertEquals(7, maxLocals(type, "applyAsInt"));
+
+        assertEquals(16, type.load(TestClassLoader.create())
+                .asSubclass(IntBinaryOperator.class)
+                .newInstance()
+                .applyAsInt(3, 2));
+    }
+
+    @Test
+    @DisplayName("LocalSlots_Loop")
+    @SneakyThrows
+    void loop() {
+        val type = make(IntBinaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val loop = Bytecode.position();
+        val end = Bytecode.position();
+
+        val code = method.getBytecode();
+        code.pushInt(0);
+        val result = code.storeLocal();
+        code.pushInt(0);
+        val counter = code.storeLocal();
+
+        code.visit(loop);
+        code.loadLocal(counter);
+        code.loadLocal(1);
+        code.jump(JumpOpcode.IF_ICMPGE, end);
+
+        code.loadLocal(result);
+        code.loadLocal(2);
+        code.callMath(MathOpcode.IADD);
+        code.storeLocal(result);
+
+        code.loadLocal(counter);
+        code.pushInt(1);
+        code.callMath(MathOpcode.IADD);
+        code.storeLocal(counter);
+
+        // counter is not used below, but its slot must not be reused inside of the loop
+        code.pushInt(100);
+        val temp = code.storeLocal();
+        code.loadLocal(temp);
+        code.loadLocal(temp);
+        code.callMath(MathOpcode.IADD);
+        code.pop();
+
+        code.jump(JumpOpcode.GOTO, loop);
+
+        code.visit(end);
+        code.loadLocal(result);
+        code.callReturn();
+
+        assertEquals(6, type.load(TestClassLoader.create())
+                .asSubclass(IntBinaryOperator.class)
+                .newInstance()
+                .applyAsInt(3, 2));
+    }
+
+    private MakeClass make(final Class<?> interfaceType) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(interfaceType);
+
+        return type;
+    }
+
+    private static int maxLocals(final MakeClass type, final String methodName) {
+        val result = new int[1];
+
+        new ClassReader(type.writeAsBytes()).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(
+                    final int access,
+                    final String name,
+                    final String descriptor,
+                    final String signature,
+                    final String[] exceptions
+            ) {
+                if (!name.equals(methodName) || (access & Opcodes.ACC_BRIDGE) != 0) {
+                    return null;
+                }
+
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitMaxs(final int maxStack, final int maxLocals) {
+                        result[0] = maxLocals;
+                    }
+                };
+            }
+        }, ClassReader.SKIP_DEBUG);
+
+        return result[0];
+    }
+
+}
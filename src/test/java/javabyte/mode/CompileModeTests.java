@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.mode;
+
+import javabyte.CompileMode;
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.make.MakeClass;
+import javabyte.opcode.CompareOpcode;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class CompileModeTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("CompileMode_SameBytecode")
+    @SneakyThrows
+    void sameBytecode() {
+        val debug = makeSum(CompileMode.DEBUG);
+        val trusted = makeSum(CompileMode.TRUSTED);
+
+        assertArrayEquals(debug.writeAsBytes(), trusted.writeAsBytes());
+
+        assertEquals(5, trusted.load(TestClassLoader.create())
+                .asSubclass(IntBinaryOperator.class)
+                .newInstance()
+                .applyAsInt(2, 3));
+    }
+
+    @Test
+    @DisplayName("CompileMode_TrustedSkipsValidation")
+    void trustedSkipsValidation() {
+        val debug = makeInvalid(CompileMode.DEBUG);
+        assertThrows(IllegalStateException.class, debug::writeAsBytes);
+
+        val trusted = makeInvalid(CompileMode.TRUSTED);
+        trusted.writeAsBytes();
+    }
+
+    private MakeClass makeSum(final CompileMode mode) {
+        val type = make(mode);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.callMath(MathOpcode.IADD);
+        code.callReturn();
+
+        return type;
+    }
+
+    private MakeClass makeInvalid(final CompileMode mode) {
+        val type = make(mode);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        // LCMP requires two longs
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.callCompare(CompareOpcode.LCMP);
+        code.callReturn();
+
+        return type;
+    }
+
+    private MakeClass make(final CompileMode mode) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntBinaryOperator.class);
+        type.setCompileMode(mode);
+
+        return type;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.parallel;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.make.MakeClass;
+import javabyte.opcode.MathOpcode;
+import javabyte.opcode.MethodOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author whilein
+ */
+final class ParallelCompilationTests {
+
+    private static final int METHODS = 200;
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("ParallelCompilation_SameBytecode")
+    @SneakyThrows
+    void sameBytecode() {
+        val sequential = make(false);
+        val parallel = make(true);
+
+        assertArrayEquals(sequential.writeAsBytes(), parallel.writeAsBytes());
+
+        val operator = parallel.load(TestClassLoader.create())
+                .asSubclass(IntUnaryOperator.class)
+                .newInstance();
+
+        // sum of 0..METHODS-1 plus argument
+        assertEquals(METHODS * (METHODS - 1) / 2 + 1, operator.applyAsInt(1));
+    }
+
+    @Test
+    @DisplayName("ParallelCompilation_Error")
+    void error() {
+        val type = make(true);
+
+        val method = type.addMethod("invalid");
+        method.setPublic();
+        method.setReturnType(int.class);
+
+        // nothing to return
+        method.getBytecode().callReturn();
+
+        assertThrows(RuntimeException.class, type::writeAsBytes);
+    }
+
+    private MakeClass make(final boolean parallel) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setParallelCompilation(parallel);
+
+        for (int i = 0; i < METHODS; i++) {
+            val method = type.addMethod("add" + i);
+            method.setPublic();
+            method.setReturnType(int.class);
+            method.setParameterTypes(int.class);
+
+            val code = method.getBytecode();
+            code.loadLocal(1);
+            code.pushInt(i);
+            code.callMath(MathOpcode.IADD);
+            code.callReturn();
+        }
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+
+        for (int i = 0; i < METHODS; i++) {
+            code.loadLocal(0);
+            code.swap();
+
+            code.methodInsn(MethodOpcode.VIRTUAL, "add" + i)
+                    .inCurrent()
+                    .descriptor(int.class, int.class);
+        }
+
+        code.callReturn();
+
+        return type;
+    }
+
+}
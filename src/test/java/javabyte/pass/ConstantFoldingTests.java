@@ -0,0 +1,250 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pass;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.bytecode.InstructionSet;
+import javabyte.bytecode.pass.Passes;
+import javabyte.make.MakeClass;
+import javabyte.opcode.CompareOpcode;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class ConstantFoldingTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_Math")
+    void math() {
+        val type = makeIntOperator(code -> {
+            code.pushInt(2);
+            code.pushInt(3);
+            code.callMath(MathOpcode.IADD);
+            code.pushInt(4);
+            code.callMath(MathOpcode.IMUL);
+            code.pushInt(1);
+            code.callMath(MathOpcode.ISHL);
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.BIPUSH, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(40, load(type, IntUnaryOperator.class).applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_DivisionByZero")
+    void divisionByZero() {
+        val type = makeIntOperator(code -> {
+            code.pushInt(1);
+            code.pushInt(0);
+            code.callMath(MathOpcode.IDIV);
+            code.callReturn();
+        });
+
+        assertTrue(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.IDIV));
+        assertThrows(ArithmeticException.class, () -> load(type, IntUnaryOperator.class).applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_CastAndCompare")
+    void castAndCompare() {
+        val type = makeIntOperator(code -> {
+            code.pushDouble(3.9);
+            code.callCast(int.class);
+            code.callCast(long.class);
+            code.pushLong(4);
+            code.callCompare(CompareOpcode.LCMP);
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.ICONST_M1, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(-1, load(type, IntUnaryOperator.class).applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_Branch")
+    void branch() {
+        val type = makeIntOperator(code -> {
+            val otherwise = Bytecode.position();
+
+            code.pushInt(0);
+            code.jump(JumpOpcode.IFNE, otherwise);
+            code.pushInt(1);
+            code.callReturn();
+            code.visit(otherwise);
+            code.pushInt(2);
+            code.callReturn();
+        });
+
+        assertFalse(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.IFNE));
+        assertEquals(1, load(type, IntUnaryOperator.class).applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_BranchTaken")
+    void branchTaken() {
+        val type = makeIntOperator(code -> {
+            val otherwise = Bytecode.position();
+
+            code.pushInt(1);
+            code.pushInt(1);
+            code.jump(JumpOpcode.IF_ICMPEQ, otherwise);
+            code.loadLocal(1);
+            code.callReturn();
+            code.visit(otherwise);
+            code.pushInt(2);
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.ICONST_2, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(2, load(type, IntUnaryOperator.class).applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_DeadCode")
+    void deadCode() {
+        val type = makeIntOperator(code -> {
+            code.loadLocal(1);
+            code.callReturn();
+            code.pushInt(5);
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.ILOAD, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(3, load(type, IntUnaryOperator.class).applyAsInt(3));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_Disabled")
+    void disabled() {
+        val type = makeIntOperator(code -> {
+            code.pushInt(2);
+            code.pushInt(3);
+            code.callMath(MathOpcode.IADD);
+            code.callReturn();
+        });
+
+        type.setPassEnabled(Passes.CONSTANT_FOLDING, false);
+
+        assertEquals(Arrays.asList(Opcodes.ICONST_2, Opcodes.ICONST_3, Opcodes.IADD, Opcodes.IRETURN),
+                MethodOpcodes.of(type, "applyAsInt"));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_DisabledByDefault")
+    void disabledByDefault() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val code = method.getBytecode();
+        code.pushInt(2);
+        code.pushInt(3);
+        code.callMath(MathOpcode.IADD);
+        code.callReturn();
+
+        assertEquals(Arrays.asList(Opcodes.ICONST_2, Opcodes.ICONST_3, Opcodes.IADD, Opcodes.IRETURN),
+                MethodOpcodes.of(type, "applyAsInt"));
+    }
+
+    @Test
+    @DisplayName("ConstantFolding_LongShift")
+    @SneakyThrows
+    void longShift() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(LongUnaryOperator.class);
+        type.setPassEnabled(Passes.CONSTANT_FOLDING, true);
+        type.setPassEnabled(Passes.DEAD_CODE, true);
+
+        val method = type.addMethod("applyAsLong");
+        method.setPublic();
+        method.copySignatureFrom(LongUnaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.pushLong(1);
+        code.pushInt(3);
+        code.callMath(MathOpcode.LSHL);
+        code.callMath(MathOpcode.LAND);
+        code.pushInt(1);
+        code.callMath(MathOpcode.LSHL);
+        code.callReturn();
+
+        val operator = load(type, LongUnaryOperator.class);
+
+        assertEquals(16, operator.applyAsLong(8));
+        assertEquals(0, operator.applyAsLong(7));
+    }
+
+    private MakeClass makeIntOperator(final Consumer<InstructionSet> init) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setPassEnabled(Passes.CONSTANT_FOLDING, true);
+        type.setPassEnabled(Passes.DEAD_CODE, true);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        init.accept(method.getBytecode());
+
+        return type;
+    }
+
+    @SneakyThrows
+    private static <T> T load(final MakeClass type, final Class<T> interfaceType) {
+        return type.load(TestClassLoader.create())
+                .asSubclass(interfaceType)
+                .newInstance();
+    }
+
+}
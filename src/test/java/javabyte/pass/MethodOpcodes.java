@@ -0,0 +1,108 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pass;
+
+import javabyte.make.MakeClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author whilein
+ */
+final class MethodOpcodes {
+
+    private MethodOpcodes() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get opcodes of instructions in the method, except bridges.
+     */
+    static @NotNull List<Integer> of(final @NotNull MakeClass type, final @NotNull String methodName) {
+        val opcodes = new ArrayList<Integer>();
+
+        new ClassReader(type.writeAsBytes()).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(
+                    final int access,
+                    final String name,
+                    final String descriptor,
+                    final String signature,
+                    final String[] exceptions
+            ) {
+                if (!name.equals(methodName) || (access & Opcodes.ACC_BRIDGE) != 0) {
+                    return null;
+                }
+
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitInsn(final int opcode) {
+                        opcodes.add(opcode);
+                    }
+
+                    @Override
+                    public void visitIntInsn(final int opcode, final int operand) {
+                        opcodes.add(opcode);
+                    }
+
+                    @Override
+                    public void visitLdcInsn(final Object value) {
+                        opcodes.add(Opcodes.LDC);
+                    }
+
+                    @Override
+                    public void visitVarInsn(final int opcode, final int var) {
+                        opcodes.add(opcode);
+                    }
+
+                    @Override
+                    public void visitTypeInsn(final int opcode, final String type) {
+                        opcodes.add(opcode);
+                    }
+
+                    @Override
+                    public void visitJumpInsn(final int opcode, final Label label) {
+                        opcodes.add(opcode);
+                    }
+
+                    @Override
+                    public void visitMethodInsn(
+                            final int opcode,
+                            final String owner,
+                            final String name,
+                            final String descriptor,
+                            final boolean isInterface
+                    ) {
+                        opcodes.add(opcode);
+                    }
+                };
+            }
+        }, ClassReader.SKIP_DEBUG);
+
+        return opcodes;
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pass;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.insn.InstructionKind;
+import javabyte.bytecode.insn.InstructionStream;
+import javabyte.bytecode.pass.InstructionPass;
+import javabyte.bytecode.pass.PassManager;
+import javabyte.bytecode.pass.Passes;
+import javabyte.make.MakeClass;
+import javabyte.make.MakeExecutable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class PassTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("Pass_Apply")
+    void apply() {
+        val passes = Passes.manager();
+        passes.addLast(new MultiplyPass("multiply", 2, true));
+
+        val result = generate(passes, null);
+
+        assertEquals(20, result.applyAsInt(0));
+        assertEquals(40, result.applyAsInt(1));
+
+        val timing = passes.getTimings().get("multiply");
+        assertEquals(2, timing.getInvocations()); // default constructor and applyAsInt
+        assertTrue(timing.getTotalNanos() >= 0);
+
+        passes.resetTimings();
+        assertTrue(passes.getTimings().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Pass_Disabled")
+    void disabled() {
+        val passes = Passes.manager();
+        passes.addLast(new MultiplyPass("multiply", 2, true));
+        passes.addLast(new MultiplyPass("disabledByDefault", 3, false));
+
+        val result = generate(passes, type -> type.setPassEnabled("multiply", false));
+
+        assertEquals(10, result.applyAsInt(0));
+        assertEquals(20, result.applyAsInt(1));
+        assertFalse(passes.getTimings().containsKey("multiply"));
+    }
+
+    @Test
+    @DisplayName("Pass_Enabled")
+    void enabled() {
+        val passes = Passes.manager();
+        passes.addLast(new MultiplyPass("disabledByDefault", 3, false));
+
+        val result = generate(passes, type -> type.setPassEnabled("disabledByDefault", true));
+
+        assertEquals(30, result.applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("Pass_Order")
+    void order() {
+        val passes = Passes.manager();
+        passes.addLast(new MultiplyPass("b", 1, true));
+        passes.addFirst(new MultiplyPass("a", 1, true));
+        passes.addAfter("b", new MultiplyPass("d", 1, true));
+        passes.addBefore("d", new MultiplyPass("c", 1, true));
+
+        assertEquals("a, b, c, d", passes.getPasses().stream()
+                .map(InstructionPass::getName)
+                .collect(Collectors.joining(", ")));
+
+        assertThrows(IllegalArgumentException.class, () -> passes.addLast(new MultiplyPass("a", 1, true)));
+        assertThrows(IllegalArgumentException.class, () -> passes.addBefore("e", new MultiplyPass("f", 1, true)));
+
+        assertTrue(passes.remove("c"));
+        assertFalse(passes.remove("c"));
+
+        assertEquals(Arrays.asList("a", "b", "d"), passes.getPasses().stream()
+                .map(InstructionPass::getName)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Pass_AppliedToCopy")
+    @SneakyThrows
+    void appliedToCopy() {
+        val passes = Passes.manager();
+        passes.addLast(new MultiplyPass("multiply", 2, true));
+
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setPassManager(passes);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val code = method.getBytecode();
+        code.pushInt(10);
+        code.callReturn();
+
+        type.writeAsBytes();
+
+        val instructions = code.getInstructions();
+        assertEquals(InstructionKind.PUSH_INT, instructions.getKind(0));
+        assertEquals(10, instructions.getOperand(0));
+
+        val result = type.load(TestClassLoader.create())
+                .asSubclass(IntUnaryOperator.class)
+                .newInstance();
+
+        assertEquals(20, result.applyAsInt(0));
+    }
+
+    @Test
+    @DisplayName("Pass_LoadServices")
+    @SneakyThrows
+    void loadServices(final @TempDir Path directory) {
+        val services = directory.resolve("META-INF/services");
+        Files.createDirectories(services);
+        Files.write(services.resolve(InstructionPass.class.getName()),
+                ServicePass.class.getName().getBytes(StandardCharsets.UTF_8));
+
+        val passes = Passes.manager();
+
+        try (val loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            Passes.loadServices(passes, loader);
+        }
+
+        assertEquals(Collections.singletonList("service"), passes.getPasses().stream()
+                .map(InstructionPass::getName)
+                .collect(Collectors.toList()));
+
+        assertTrue(Passes.defaultManager().getPasses().stream()
+                .noneMatch(pass -> pass instanceof ServicePass));
+    }
+
+    @SneakyThrows
+    private IntUnaryOperator generate(final PassManager passes, final Consumer<MakeClass> init) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+        type.setPassManager(passes);
+
+        if (init != null) {
+            init.accept(type);
+        }
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val code = method.getBytecode();
+
+        val switchCase = code.intsSwitchCaseInsn()
+                .source(1);
+
+        val branch = switchCase.branch(0);
+        branch.pushInt(10);
+        branch.callReturn();
+
+        val defaultBranch = switchCase.defaultBranch();
+        defaultBranch.pushInt(20);
+        defaultBranch.callReturn();
+
+        return type.load(TestClassLoader.create())
+                .asSubclass(IntUnaryOperator.class)
+                .newInstance();
+    }
+
+    public static final class ServicePass implements InstructionPass {
+
+        @Override
+        public @NotNull String getName() {
+            return "service";
+        }
+
+        @Override
+        public void apply(final @NotNull MakeExecutable executable, final @NotNull InstructionStream instructions) {
+        }
+
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    @RequiredArgsConstructor
+    private static final class MultiplyPass implements InstructionPass {
+
+        String name;
+        int multiplier;
+        boolean enabledByDefault;
+
+        @Override
+        public @NotNull String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isEnabledByDefault() {
+            return enabledByDefault;
+        }
+
+        @Override
+        public void apply(final @NotNull MakeExecutable executable, final @NotNull InstructionStream instructions) {
+            for (int i = 0; i < instructions.size(); i++) {
+                if (instructions.getKind(i) == InstructionKind.PUSH_INT) {
+                    instructions.set(i, InstructionKind.PUSH_INT, instructions.getOperand(i) * multiplier, null);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pass;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.bytecode.Bytecode;
+import javabyte.bytecode.InstructionSet;
+import javabyte.bytecode.pass.Passes;
+import javabyte.make.MakeClass;
+import javabyte.opcode.JumpOpcode;
+import javabyte.opcode.MathOpcode;
+import javabyte.opcode.MethodOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+final class PeepholeTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("Peephole_BoxUnbox")
+    void boxUnbox() {
+        val type = makeIntOperator(code -> {
+            code.loadLocal(1);
+            code.callBox();
+            code.callBox();
+            code.callUnbox();
+            code.callReturn();
+        });
+
+        assertFalse(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.INVOKESTATIC));
+        assertFalse(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.INVOKEVIRTUAL));
+        assertEquals(5, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_Disabled")
+    void disabled() {
+        val type = makeIntOperator(code -> {
+            code.loadLocal(1);
+            code.callBox();
+            code.callUnbox();
+            code.callReturn();
+        });
+
+        type.setPassEnabled(Passes.PEEPHOLE, false);
+
+        assertTrue(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.INVOKESTATIC));
+        assertEquals(5, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_DisabledByDefault")
+    void disabledByDefault() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntUnaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.callBox();
+        code.callUnbox();
+        code.callReturn();
+
+        assertTrue(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.INVOKESTATIC));
+        assertEquals(5, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_Pop")
+    void pop() {
+        val type = makeIntOperator(code -> {
+            code.pushString("unused");
+            code.pushInt(1);
+            code.dup();
+            code.pop();
+            code.pop();
+            code.pop();
+            code.loadLocal(1);
+            code.swap();
+            code.swap();
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.ILOAD, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(5, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_StoreLoad")
+    void storeLoad() {
+        val type = makeIntOperator(code -> {
+            code.loadLocal(1);
+            val local = code.storeLocal();
+            code.loadLocal(local);
+            code.callReturn();
+        });
+
+        assertEquals(Arrays.asList(Opcodes.ILOAD, Opcodes.IRETURN), MethodOpcodes.of(type, "applyAsInt"));
+        assertEquals(5, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_StoreLoadUsedLocal")
+    void storeLoadUsedLocal() {
+        val type = makeIntOperator(code -> {
+            code.loadLocal(1);
+            val local = code.storeLocal();
+            code.loadLocal(local);
+            code.loadLocal(local);
+            code.callMath(MathOpcode.IADD);
+            code.callReturn();
+        });
+
+        assertTrue(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.ISTORE));
+        assertEquals(10, load(type, IntUnaryOperator.class).applyAsInt(5));
+    }
+
+    @Test
+    @DisplayName("Peephole_Cast")
+    @SuppressWarnings("unchecked")
+    void cast() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setPassEnabled(Passes.PEEPHOLE, true);
+        type.addInterface(Function.class);
+
+        val method = type.addMethod("apply");
+        method.setPublic();
+        method.setReturnType(Object.class);
+        method.setParameterTypes(Object.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.callCast(String.class);
+        code.callCast(String.class);
+        code.callCast(CharSequence.class);
+        code.callCast(Object.class);
+        code.callReturn();
+
+        val checkcasts = MethodOpcodes.of(type, "apply").stream()
+                .filter(opcode -> opcode == Opcodes.CHECKCAST)
+                .count();
+
+        assertEquals(1, checkcasts);
+        assertEquals("value", load(type, Function.class).apply("value"));
+    }
+
+    @Test
+    @DisplayName("Peephole_CastAfterMerge")
+    @SuppressWarnings("unchecked")
+    void castAfterMerge() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setPassEnabled(Passes.PEEPHOLE, true);
+        type.addInterface(ToIntFunction.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.setReturnType(int.class);
+        method.setParameterTypes(Object.class);
+
+        val notInteger = Bytecode.position();
+
+        val code = method.getBytecode();
+        code.pushString("a");
+        val local = code.storeLocal();
+
+        code.loadLocal(1);
+        code.callInstanceOf(Integer.class);
+        code.jump(JumpOpcode.IFEQ, notInteger);
+
+        code.loadLocal(1);
+        code.callCast(Integer.class);
+        code.storeLocal(local);
+
+        code.visit(notInteger);
+
+        // type of local is merged from String and Integer, so checkcast is required
+        code.loadLocal(local);
+        code.callCast(Number.class);
+        code.methodInsn(MethodOpcode.VIRTUAL, "intValue").in(Number.class).descriptor(int.class);
+        code.callReturn();
+
+        assertTrue(MethodOpcodes.of(type, "applyAsInt").contains(Opcodes.CHECKCAST));
+        assertEquals(5, load(type, ToIntFunction.class).applyAsInt(5));
+    }
+
+    private MakeClass makeIntOperator(final Consumer<InstructionSet> init) {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.setPassEnabled(Passes.PEEPHOLE, true);
+        type.addInterface(IntUnaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntUnaryOperator.class);
+
+        init.accept(method.getBytecode());
+
+        return type;
+    }
+
+    @SneakyThrows
+    private static <T> T load(final MakeClass type, final Class<T> interfaceType) {
+        return type.load(TestClassLoader.create())
+                .asSubclass(interfaceType)
+                .newInstance();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package javabyte.pregen;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.make.MakeClass;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * @author whilein
+ */
+final class PregenTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("Pregenerated")
+    @SneakyThrows
+    void pregenerated(final @TempDir Path directory) {
+        val name = "javabyte.pregen.generated." + testName;
+
+        Pregenerated.write(make(name), directory);
+
+        assertTrue(Files.exists(directory.resolve("javabyte/pregen/generated/" + testName + ".class")));
+        assertTrue(Files.exists(directory.resolve("javabyte/pregen/generated/" + testName + "$Inner.class")));
+
+        try (val loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            val pregenerated = Pregenerated.find(name, loader);
+
+            assertNotNull(pregenerated);
+            assertEquals(loader, pregenerated.getClassLoader());
+
+            assertEquals(pregenerated, Pregenerated.load(name, loader, () -> fail("Class is pre-generated")));
+        }
+    }
+
+    @Test
+    @DisplayName("NotPregenerated")
+    void notPregenerated() {
+        val name = "javabyte.pregen.generated." + testName;
+        val loader = TestClassLoader.create();
+
+        assertNull(Pregenerated.find(name, loader));
+        assertEquals(name, Pregenerated.load(name, loader, () -> make(name)).getName());
+    }
+
+    private MakeClass make(final String name) {
+        val type = Javabyte.make(name);
+        type.setPublicFinal();
+        type.addInner("Inner").setPublic();
+
+        return type;
+    }
+
+}
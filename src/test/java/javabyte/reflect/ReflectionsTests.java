@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.reflect;
+
+import javabyte.type.Types;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whilein
+ */
+class ReflectionsTests {
+
+    @Test
+    void metadata_cached() {
+        val metadata = Reflections.of(ArrayList.class);
+
+        assertSame(metadata, Reflections.of(ArrayList.class));
+        assertSame(Types.of(ArrayList.class), metadata.getName());
+        assertSame(metadata.getSignature(), metadata.getSignature());
+        assertTrue(metadata.getSignature().getSignature()
+                .startsWith("<E:Ljava/lang/Object;>Ljava/util/AbstractList<TE;>;Ljava/util/List<TE;>;"));
+    }
+
+    @Test
+    void metadata_declaredMethods() {
+        val metadata = Reflections.of(List.class);
+
+        assertEquals(1, metadata.getDeclaredMethods("size").size());
+        assertTrue(metadata.getDeclaredMethods("remove").size() > 1);
+        assertTrue(metadata.getDeclaredMethods("nonExistingMethod").isEmpty());
+        assertSame(metadata.getDeclaredMethods("size"), metadata.getDeclaredMethods("size"));
+    }
+
+    @Test
+    @SneakyThrows
+    void metadata_methodSignature() {
+        val metadata = Reflections.of(String.class);
+        val compareTo = String.class.getMethod("compareTo", String.class);
+
+        val signature = metadata.getMethodSignature(compareTo);
+
+        assertSame(signature, metadata.getMethodSignature(compareTo));
+        assertEquals("(Ljava/lang/String;)I", signature.getDescriptor());
+
+        assertThrows(IllegalArgumentException.class, () -> metadata.getMethodSignature(
+                Object.class.getMethod("hashCode")));
+    }
+
+}
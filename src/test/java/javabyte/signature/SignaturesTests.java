@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.signature;
+
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
+import javabyte.type.TypeName;
+import javabyte.type.TypeParameter;
+import javabyte.type.Types;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author whilein
+ */
+class SignaturesTests {
+
+    @Test
+    void intern_methodSignature() {
+        val signature = Signatures.methodSignature(Types.INT, Types.STRING, Types.LONG);
+
+        assertSame(signature, Signatures.methodSignature(int.class, String.class, long.class));
+        assertNotEquals(signature, Signatures.methodSignature(Types.INT, Types.LONG, Types.STRING));
+        assertEquals("(Ljava/lang/String;J)I", signature.getDescriptor());
+        assertSame(signature.getDescriptor(), signature.getDescriptor());
+    }
+
+    @Test
+    void intern_genericMethodSignature() {
+        val first = Signatures.methodSignature(
+                new TypeParameter[]{Types.variable("T", new TypeName[]{Types.OBJECT})},
+                Types.VOID, new TypeName[0]);
+        val second = Signatures.methodSignature(
+                new TypeParameter[]{Types.variable("U", new TypeName[]{Types.OBJECT})},
+                Types.VOID, new TypeName[0]);
+
+        assertNotEquals(first, second);
+        assertEquals(first.getDescriptor(), second.getDescriptor());
+        assertEquals("<T:Ljava/lang/Object;>()V", first.getSignature());
+        assertEquals("<U:Ljava/lang/Object;>()V", second.getSignature());
+    }
+
+    @Test
+    void intern_immutableParameters() {
+        val signature = Signatures.methodSignature(Types.INT, Types.STRING, Types.LONG);
+
+        val parameterTypes = signature.getParameterTypes();
+        parameterTypes[0] = Types.OBJECT;
+
+        assertEquals(2, signature.getParameterCount());
+        assertEquals(Types.STRING, signature.getParameterTypes()[0]);
+        assertSame(signature, Signatures.methodSignature(Types.INT, Types.STRING, Types.LONG));
+    }
+
+    @Test
+    @SneakyThrows
+    void intern_notBoundToClass() {
+        val type = Javabyte.make("signature.Regenerated");
+        type.setPublic();
+
+        val method = type.addMethod("self");
+        method.setPublic();
+        method.setReturnType(type.getName());
+        method.addParameter(type.getName());
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.callReturn();
+
+        val first = type.load(TestClassLoader.create());
+        val second = type.load(TestClassLoader.create());
+
+        val firstSignature = Signatures.ofMethod(first.getMethod("self", first));
+        val secondSignature = Signatures.ofMethod(second.getMethod("self", second));
+
+        assertNotSame(firstSignature, secondSignature);
+        assertSame(first, firstSignature.getReturnType().toClass());
+        assertSame(second, secondSignature.getReturnType().toClass());
+        assertSame(second, secondSignature.getParameterTypes()[0].toClass());
+    }
+
+    @Test
+    @SneakyThrows
+    void intern_ofMethod() {
+        val signature = Signatures.ofMethod(List.class.getMethod("size"));
+
+        assertSame(Signatures.methodSignature(Types.INT), signature);
+    }
+
+}
@@ -16,12 +16,20 @@
 
 package javabyte.type;
 
+import javabyte.Javabyte;
+import javabyte.TestClassLoader;
 import lombok.AccessLevel;
+import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
+import lombok.val;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -125,4 +133,107 @@ class TypesTests {
         assertFalse(colClass.isArray());
     }
 
+    @Test
+    void intern_names() {
+        assertSame(Types.INT, Types.of("int"));
+        assertSame(colClass, Types.of("java.util.Collection"));
+        assertSame(colClass, Types.ofInternal("java/util/Collection"));
+        assertSame(stringArray, Types.STRING.dimensions(1));
+        assertSame(Types.STRING, stringArray.dimensions(0));
+        assertSame(intArray, Types.INT.dimensions(1));
+        assertEquals("[I", Types.INT.dimensions(1).getDescriptor());
+    }
+
+    @Test
+    void cached_strings() {
+        assertSame(stringArray.getDescriptor(), stringArray.getDescriptor());
+        assertSame(stringArray.getInternalName(), stringArray.getDescriptor());
+        assertSame(colClass.getName(), colClass.toString());
+        assertEquals("Ljava/util/Collection;", colClass.getSignature());
+        assertEquals("String", stringArray.getSimpleName());
+        assertArrayEquals(new String[]{"java", "lang", "String"}, stringArray.split());
+        assertEquals(Types.of("java.lang.String[]").hashCode(), stringArray.hashCode());
+    }
+
+    @Test
+    @SneakyThrows
+    void intern_notBoundToClass() {
+        val type = Javabyte.make("intern.Loaded");
+        type.setPublic();
+
+        val interned = Types.of("intern.Loaded");
+
+        val loaded = type.load(TestClassLoader.create());
+        val name = Types.of(loaded);
+
+        assertSame(loaded, name.toClass());
+        assertSame(loaded, name.dimensions(1).getComponent().toClass());
+        assertEquals(interned, name);
+        assertNotSame(interned, name);
+
+        assertSame(interned, Types.of("intern.Loaded"));
+        assertThrows(ClassNotFoundException.class, interned::toClass);
+        assertSame(int[].class, Types.of("int").dimensions(1).toClass());
+    }
+
+    @Test
+    void intern_parameterized() {
+        assertSame(colOfStrings, colClass.parameterized(String.class));
+        assertSame(colOfStringsArray, colOfStrings.dimensions(1));
+        assertSame(colOfStrings, colOfStringsArray.dimensions(0));
+        assertNotEquals(colClass.parameterized(Types.variable("T", new TypeName[]{Types.OBJECT})),
+                colClass.parameterized(Types.variable("U", new TypeName[]{Types.OBJECT})));
+    }
+
+    @Test
+    void intern_immutableParameters() {
+        val parameters = new Parameter[]{Types.STRING};
+        val name = colClass.parameterized(parameters);
+
+        parameters[0] = Types.INT;
+        assertEquals(Types.STRING, name.getParameters()[0]);
+
+        name.getParameters()[0] = Types.INT;
+        assertEquals(Types.STRING, name.getParameters()[0]);
+        assertSame(name, colClass.parameterized(Types.STRING));
+    }
+
+    @Test
+    @SneakyThrows
+    void intern_concurrent() {
+        val threads = 8;
+        val executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            val start = new CountDownLatch(1);
+            val futures = new ArrayList<Future<ExactTypeName[]>>();
+
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    val names = new ExactTypeName[100];
+
+                    for (int j = 0; j < names.length; j++)
+                        names[j] = Types.of("intern.Concurrent" + j).dimensions(j % 3);
+
+                    return names;
+                }));
+            }
+
+            start.countDown();
+
+            val expected = futures.get(0).get();
+
+            for (val future : futures) {
+                val names = future.get();
+
+                for (int j = 0; j < names.length; j++)
+                    assertSame(expected[j], names[j]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2021 Whilein
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package javabyte.visitor;
+
+import javabyte.CompileMode;
+import javabyte.FrameComputation;
+import javabyte.Javabyte;
+import javabyte.loader.ClassArenas;
+import javabyte.make.MakeClass;
+import javabyte.opcode.MathOpcode;
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author whilein
+ */
+final class AcceptVisitorTests {
+
+    String testName;
+
+    @BeforeEach
+    void setup(final TestInfo testInfo) {
+        testName = testInfo.getDisplayName();
+    }
+
+    @Test
+    @DisplayName("AcceptVisitor_SameBytes")
+    void sameBytes() {
+        val type = makeSum();
+
+        val cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        type.accept(cw);
+
+        assertArrayEquals(type.writeAsBytes(), cw.toByteArray());
+    }
+
+    @Test
+    @DisplayName("AcceptVisitor_Chain")
+    @SneakyThrows
+    void chain() {
+        val type = makeSum();
+        type.setFrameComputation(FrameComputation.TRACKED);
+
+        val methods = new ArrayList<String>();
+
+        // frames and maxs are tracked, so the writer doesn't compute anything
+        val cw = new ClassWriter(0);
+
+        type.accept(new ClassVisitor(Opcodes.ASM9, cw) {
+            @Override
+            public MethodVisitor visitMethod(
+                    final int access,
+                    final String name,
+                    final String descriptor,
+                    final String signature,
+                    final String[] exceptions
+            ) {
+                methods.add(name);
+
+                return super.visitMethod(access, name, descriptor, signature, exceptions);
+            }
+        });
+
+        assertEquals(Arrays.asList("applyAsInt", "<init>"), methods);
+
+        val arena = ClassArenas.arena(getClass().getClassLoader());
+
+        val operator = (IntBinaryOperator) arena.define(testName, cw.toByteArray())
+                .newInstance();
+
+        assertEquals(5, operator.applyAsInt(2, 3));
+    }
+
+    @Test
+    @DisplayName("AcceptVisitor_TrustedMaxs")
+    @SneakyThrows
+    void trustedMaxs() {
+        val type = makeSum();
+        type.setFrameComputation(FrameComputation.TRACKED);
+        type.setCompileMode(CompileMode.TRUSTED);
+
+        val maxStacks = new ArrayList<Integer>();
+
+        // maxs are visited as is, so the writer must not compute them
+        val cw = new ClassWriter(0);
+
+        type.accept(new ClassVisitor(Opcodes.ASM9, cw) {
+            @Override
+            public MethodVisitor visitMethod(
+                    final int access,
+                    final String name,
+                    final String descriptor,
+                    final String signature,
+                    final String[] exceptions
+            ) {
+                return new MethodVisitor(Opcodes.ASM9,
+                        super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitMaxs(final int maxStack, final int maxLocals) {
+                        maxStacks.add(maxStack);
+
+                        super.visitMaxs(maxStack, maxLocals);
+                    }
+                };
+            }
+        });
+
+        assertEquals(Arrays.asList(2, 1), maxStacks);
+
+        val arena = ClassArenas.arena(getClass().getClassLoader());
+
+        val operator = (IntBinaryOperator) arena.define(testName, cw.toByteArray())
+                .newInstance();
+
+        assertEquals(5, operator.applyAsInt(2, 3));
+    }
+
+    private MakeClass makeSum() {
+        val type = Javabyte.make(testName);
+        type.setPublicFinal();
+        type.addInterface(IntBinaryOperator.class);
+
+        val method = type.addMethod("applyAsInt");
+        method.setPublic();
+        method.copySignatureFrom(IntBinaryOperator.class);
+
+        val code = method.getBytecode();
+        code.loadLocal(1);
+        code.loadLocal(2);
+        code.callMath(MathOpcode.IADD);
+        code.callReturn();
+
+        return type;
+    }
+
+}